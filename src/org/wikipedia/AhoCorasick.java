@@ -0,0 +1,238 @@
+/**
+ *  @(#)AhoCorasick.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.util.*;
+
+/**
+ *  Searches text for many fixed strings at once using the Aho-Corasick
+ *  algorithm. The time taken is proportional to the length of the text plus
+ *  the number of matches, regardless of the number of patterns. Usage:
+ *
+ *  <pre>{@code
+ *  AhoCorasick matcher = new AhoCorasick(List.of("{{prod blp/dated|", "{{infobox "), true);
+ *  boolean whitelisted = matcher.containsAny(text);
+ *  BitSet which = matcher.matchingPatterns(text);
+ *  }</pre>
+ *
+ *  <p>
+ *  Instances are immutable and may be shared between threads.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class AhoCorasick
+{
+    private final List<String> patterns;
+    private final boolean ignorecase;
+    private final int[] lengths;
+
+    // the automaton: for each state, the sorted characters that have a
+    // transition out of it and the corresponding target states
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    // the patterns ending at each state and the next state along the failure
+    // chain that has patterns ending at it (0 = none)
+    private final int[][] outputs;
+    private final int[] dictlinks;
+
+    /**
+     *  Creates a new matcher for the given patterns.
+     *  @param patterns the strings to search for, which must not be empty
+     *  @param ignorecase whether to ignore case (character by character, as
+     *  in {@link Character#toLowerCase(char)})
+     *  @throws IllegalArgumentException if any pattern is empty
+     */
+    public AhoCorasick(Collection<String> patterns, boolean ignorecase)
+    {
+        this.patterns = List.copyOf(patterns);
+        this.ignorecase = ignorecase;
+        lengths = new int[this.patterns.size()];
+
+        // build the trie
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> output = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        output.add(new ArrayList<>());
+        for (int i = 0; i < lengths.length; i++)
+        {
+            String pattern = this.patterns.get(i);
+            if (pattern.isEmpty())
+                throw new IllegalArgumentException("Patterns must not be empty.");
+            lengths[i] = pattern.length();
+            int state = 0;
+            for (int j = 0; j < pattern.length(); j++)
+            {
+                char c = fold(pattern.charAt(j));
+                Integer next = trie.get(state).get(c);
+                if (next == null)
+                {
+                    next = trie.size();
+                    trie.get(state).put(c, next);
+                    trie.add(new TreeMap<>());
+                    output.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            output.get(state).add(i);
+        }
+
+        // freeze it
+        int size = trie.size();
+        keys = new char[size][];
+        targets = new int[size][];
+        outputs = new int[size][];
+        for (int i = 0; i < size; i++)
+        {
+            TreeMap<Character, Integer> transitions = trie.get(i);
+            keys[i] = new char[transitions.size()];
+            targets[i] = new int[transitions.size()];
+            int j = 0;
+            for (var entry : transitions.entrySet())
+            {
+                keys[i][j] = entry.getKey();
+                targets[i][j] = entry.getValue();
+                j++;
+            }
+            outputs[i] = output.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // failure and dictionary links, breadth first so that the links of
+        // shallower states are always available
+        fail = new int[size];
+        dictlinks = new int[size];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0])
+            queue.add(child);
+        while (!queue.isEmpty())
+        {
+            int state = queue.poll();
+            for (int i = 0; i < keys[state].length; i++)
+            {
+                int child = targets[state][i];
+                int f = next(fail[state], keys[state][i]);
+                fail[child] = f == child ? 0 : f;
+                dictlinks[child] = outputs[fail[child]].length > 0 ? fail[child] : dictlinks[fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     *  Returns the patterns searched for by this matcher, in the order they
+     *  were supplied.
+     *  @return (see above)
+     */
+    public List<String> getPatterns()
+    {
+        return patterns;
+    }
+
+    /**
+     *  Returns whether the given text contains at least one of the patterns.
+     *  @param text the text to search
+     *  @return (see above)
+     */
+    public boolean containsAny(CharSequence text)
+    {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++)
+        {
+            state = next(state, fold(text.charAt(i)));
+            if (outputs[state].length > 0 || dictlinks[state] > 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     *  Returns the indices of the patterns that occur in the given text.
+     *  @param text the text to search
+     *  @return a set of indices into {@link #getPatterns()}
+     */
+    public BitSet matchingPatterns(CharSequence text)
+    {
+        BitSet ret = new BitSet(patterns.size());
+        find(text, (pattern, start, end) ->
+        {
+            ret.set(pattern);
+            return true;
+        });
+        return ret;
+    }
+
+    /**
+     *  Finds all occurrences of the patterns in the given text, including
+     *  overlapping ones. Matches are reported in order of their end index.
+     *  @param text the text to search
+     *  @param handler receives each match and decides whether to continue
+     */
+    public void find(CharSequence text, MatchHandler handler)
+    {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++)
+        {
+            state = next(state, fold(text.charAt(i)));
+            for (int s = outputs[state].length > 0 ? state : dictlinks[state]; s > 0; s = dictlinks[s])
+                for (int pattern : outputs[s])
+                    if (!handler.onMatch(pattern, i + 1 - lengths[pattern], i + 1))
+                        return;
+        }
+    }
+
+    /**
+     *  Follows the transition out of <var>state</var> on <var>c</var>,
+     *  falling back along failure links if there isn't one.
+     */
+    private int next(int state, char c)
+    {
+        while (true)
+        {
+            int index = Arrays.binarySearch(keys[state], c);
+            if (index >= 0)
+                return targets[state][index];
+            if (state == 0)
+                return 0;
+            state = fail[state];
+        }
+    }
+
+    private char fold(char c)
+    {
+        return ignorecase ? Character.toLowerCase(c) : c;
+    }
+
+    /**
+     *  Receives matches from {@link #find(CharSequence, MatchHandler)}.
+     */
+    @FunctionalInterface
+    public interface MatchHandler
+    {
+        /**
+         *  Accepts a match.
+         *  @param pattern the index of the pattern that matched
+         *  @param start the index of the first character of the match
+         *  @param end the index after the last character of the match
+         *  @return whether to continue searching
+         */
+        public boolean onMatch(int pattern, int start, int end);
+    }
+}
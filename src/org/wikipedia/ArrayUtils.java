@@ -21,14 +21,28 @@
 package org.wikipedia;
 
 import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
 
 /**
  *  Convenience methods for dealing with collections of pages and revisions.
+ * 
+ *  <p>
+ *  The set operations on lists of pages run in time linear in the total size
+ *  of the inputs. If all inputs are already sorted in natural order, they are
+ *  merged without hashing. Very large inputs are filtered in parallel. The
+ *  order of the output is always the order of the first input. If all inputs
+ *  are {@link TitleSet}s that share a dictionary, their own operations are 
+ *  used instead.
+ * 
  *  @author MER-C
- *  @version 0.01
+ *  @version 0.02
  */
 public class ArrayUtils
 {
+    // inputs larger than this are processed in parallel
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    
     /**
      *  Determines the intersection of the list of pages <var>a</var> and any
      *  number of lists of articles <var>b</var>. Such lists might be generated
@@ -51,11 +65,29 @@ public class ArrayUtils
      */
     public static String[] intersection(String[] a, String[]... b)
     {
-        List<String> intersec = new ArrayList<>(5000);
-        intersec.addAll(List.of(a));
-        for (String[] subarray : b)
-            intersec.retainAll(List.of(subarray));
-        return intersec.toArray(String[]::new);
+        return filter(Arrays.asList(a), asLists(b), true).toArray(String[]::new);
+    }
+    
+    /**
+     *  Determines the intersection of the list of pages <var>a</var> and any
+     *  number of lists of pages <var>b</var>, i.e. the pages in <var>a</var>
+     *  that are also in every one of <var>b</var>, in the order they appear in
+     *  <var>a</var>.
+     * 
+     *  <pre>{@code 
+     *  List<String> people = ArrayUtils.intersection(wikipedia.getCategoryMembers("Living people", Wiki.MAIN_NAMESPACE),
+     *      wikipedia.whatLinksHere(List.of("Barack Obama"), false, false, Wiki.MAIN_NAMESPACE).get(0));
+     *  }</pre>
+     * 
+     *  @param a a list of pages
+     *  @param b at least one other list of pages
+     *  @return the intersection of <var>a</var> and each of <var>b</var>
+     *  @since 0.02
+     */
+    @SafeVarargs
+    public static List<String> intersection(Collection<String> a, Collection<String>... b)
+    {
+        return filter(a, b, true);
     }
 
     /**
@@ -82,11 +114,179 @@ public class ArrayUtils
      */
     public static String[] relativeComplement(String[] a, String[]... b)
     {
-        List<String> compl = new ArrayList<>(5000);
-        compl.addAll(List.of(a));
-        for (String[] subarray : b)
-            compl.removeAll(List.of(subarray));
-        return compl.toArray(String[]::new);
+        return filter(Arrays.asList(a), asLists(b), false).toArray(String[]::new);
+    }
+    
+    /**
+     *  Determines the list of pages that are in <var>a</var> but not any of 
+     *  <var>b</var>, in the order they appear in <var>a</var>. This operation 
+     *  does not commute.
+     *  @param a a list of pages
+     *  @param b other lists of pages
+     *  @return the pages in <var>a</var> that are not in any of <var>b</var>
+     *  @since 0.02
+     */
+    @SafeVarargs
+    public static List<String> relativeComplement(Collection<String> a, Collection<String>... b)
+    {
+        return filter(a, b, false);
+    }
+    
+    /**
+     *  Determines the union of the supplied lists of pages, i.e. each distinct
+     *  page that is in any of them, in order of first appearance.
+     *  @param lists some lists of pages
+     *  @return the union of those lists
+     *  @since 0.02
+     */
+    public static String[] union(String[]... lists)
+    {
+        return union(asLists(lists)).toArray(String[]::new);
+    }
+    
+    /**
+     *  Determines the union of the supplied lists of pages, i.e. each distinct
+     *  page that is in any of them, in order of first appearance.
+     *  @param lists some lists of pages
+     *  @return the union of those lists
+     *  @since 0.02
+     */
+    @SafeVarargs
+    public static List<String> union(Collection<String>... lists)
+    {
+        TitleSet[] titlesets = asTitleSets(lists);
+        if (titlesets != null && titlesets.length > 0)
+        {
+            // append the new titles of each set in turn to keep the order of
+            // first appearance, rather than merging everything in id order
+            List<String> ret = new ArrayList<>(titlesets[0]);
+            TitleSet seen = titlesets[0];
+            for (int i = 1; i < titlesets.length; i++)
+            {
+                ret.addAll(titlesets[i].relativeComplement(seen));
+                seen = seen.union(titlesets[i]);
+            }
+            return ret;
+        }
+        int size = 0;
+        for (Collection<String> list : lists)
+            size += list.size();
+        Set<String> union = LinkedHashSet.newLinkedHashSet(size);
+        for (Collection<String> list : lists)
+            union.addAll(list);
+        return new ArrayList<>(union);
+    }
+    
+    /**
+     *  Returns the elements of <var>a</var> that are in all (<var>retain</var>
+     *  = true) or none (<var>retain</var> = false) of <var>b</var>, in order.
+     */
+    private static List<String> filter(Collection<String> a, Collection<String>[] b, boolean retain)
+    {
+        if (b.length == 0)
+            return new ArrayList<>(a);
+        TitleSet[] titlesets = asTitleSets(b);
+        if (a instanceof TitleSet ts && titlesets != null && ts.getDictionary() == titlesets[0].getDictionary())
+            return new ArrayList<>(retain ? ts.intersection(titlesets) : ts.relativeComplement(titlesets));
+        if (isSorted(a) && Arrays.stream(b).allMatch(ArrayUtils::isSorted))
+            return mergeFilter(a, b, retain);
+        
+        // hash all of b, then look up each element of a
+        int total = 0;
+        for (Collection<String> other : b)
+            total += other.size();
+        Stream<Collection<String>> others = b.length > 1 && total > PARALLEL_THRESHOLD 
+            ? Arrays.stream(b).parallel() : Arrays.stream(b);
+        List<Set<String>> sets = others.map(ArrayUtils::asSet).toList();
+        Predicate<String> test = retain 
+            ? page -> sets.stream().allMatch(set -> set.contains(page))
+            : page -> sets.stream().noneMatch(set -> set.contains(page));
+        Stream<String> stream = a.size() > PARALLEL_THRESHOLD ? a.parallelStream() : a.stream();
+        return stream.filter(test).collect(Collectors.toCollection(ArrayList::new));
+    }
+    
+    /**
+     *  Implementation of {@link #filter(Collection, Collection[], boolean)}
+     *  for inputs sorted in natural order: a merge of all inputs at once.
+     */
+    private static List<String> mergeFilter(Collection<String> a, Collection<String>[] b, boolean retain)
+    {
+        String[][] others = new String[b.length][];
+        for (int i = 0; i < b.length; i++)
+            others[i] = b[i].toArray(String[]::new);
+        int[] positions = new int[b.length];
+        List<String> ret = new ArrayList<>();
+        for (String page : a)
+        {
+            boolean inall = true, inany = false;
+            for (int i = 0; i < others.length; i++)
+            {
+                String[] other = others[i];
+                int position = positions[i];
+                while (position < other.length && other[position].compareTo(page) < 0)
+                    position++;
+                positions[i] = position;
+                boolean found = position < other.length && other[position].equals(page);
+                inall &= found;
+                inany |= found;
+            }
+            if (retain ? inall : !inany)
+                ret.add(page);
+        }
+        return ret;
+    }
+    
+    /**
+     *  Returns whether the given collection is sorted in natural order and
+     *  contains no nulls.
+     */
+    private static boolean isSorted(Collection<String> c)
+    {
+        if (c instanceof SortedSet<String> ss && ss.comparator() == null)
+            return true;
+        String previous = null;
+        for (String current : c)
+        {
+            if (current == null || previous != null && previous.compareTo(current) > 0)
+                return false;
+            previous = current;
+        }
+        return true;
+    }
+    
+    private static Set<String> asSet(Collection<String> c)
+    {
+        return switch (c)
+        {
+            case HashSet<String> hs -> hs;
+            case TitleSet ts -> ts;
+            default -> new HashSet<>(c);
+        };
+    }
+    
+    /**
+     *  Returns the given collections cast to title sets if they all are title
+     *  sets sharing a dictionary, otherwise null.
+     */
+    private static TitleSet[] asTitleSets(Collection<String>[] c)
+    {
+        TitleSet[] ret = new TitleSet[c.length];
+        for (int i = 0; i < c.length; i++)
+        {
+            if (!(c[i] instanceof TitleSet ts) || i > 0 && ts.getDictionary() != ret[0].getDictionary())
+                return null;
+            ret[i] = ts;
+        }
+        return ret;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Collection<String>[] asLists(String[][] arrays)
+    {
+        Collection<String>[] ret = new Collection[arrays.length];
+        for (int i = 0; i < arrays.length; i++)
+            ret[i] = Arrays.asList(arrays[i]);
+        return ret;
     }
     
     /**
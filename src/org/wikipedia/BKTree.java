@@ -0,0 +1,195 @@
+/**
+ *  @(#)BKTree.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.util.*;
+
+/**
+ *  A Burkhard-Keller tree of Strings for finding all Strings within a given
+ *  {@linkplain MathsAndStats#levenshteinDistance(String, String) Levenshtein
+ *  distance} of a query without comparing the query to every String, e.g.
+ *  usernames that are similar to a given username:
+ *
+ *  <pre>{@code
+ *  BKTree tree = new BKTree(usernames);
+ *  List<String> similar = tree.search("Example", 2);
+ *  }</pre>
+ *
+ *  <p>
+ *  Each child of a node is labelled with its distance to that node. By the
+ *  triangle inequality, only children labelled within <var>k</var> of the
+ *  distance between the query and the node can contain matches.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class BKTree
+{
+    private Node root;
+    private int size;
+
+    private static class Node
+    {
+        private final String value;
+        // children sorted by their distance to this node
+        private int[] distances = new int[0];
+        private Node[] children = new Node[0];
+
+        private Node(String value)
+        {
+            this.value = value;
+        }
+
+        private Node child(int distance)
+        {
+            int index = Arrays.binarySearch(distances, distance);
+            return index < 0 ? null : children[index];
+        }
+
+        private void addChild(int distance, Node child)
+        {
+            int index = -Arrays.binarySearch(distances, distance) - 1;
+            int[] newdistances = new int[distances.length + 1];
+            Node[] newchildren = new Node[children.length + 1];
+            System.arraycopy(distances, 0, newdistances, 0, index);
+            System.arraycopy(children, 0, newchildren, 0, index);
+            newdistances[index] = distance;
+            newchildren[index] = child;
+            System.arraycopy(distances, index, newdistances, index + 1, distances.length - index);
+            System.arraycopy(children, index, newchildren, index + 1, children.length - index);
+            distances = newdistances;
+            children = newchildren;
+        }
+    }
+
+    /**
+     *  Creates an empty tree.
+     */
+    public BKTree()
+    {
+    }
+
+    /**
+     *  Creates a tree containing the given Strings.
+     *  @param values the Strings to add
+     */
+    public BKTree(Collection<String> values)
+    {
+        for (String value : values)
+            add(value);
+    }
+
+    /**
+     *  Adds a String to this tree.
+     *  @param value a String (must not be null)
+     *  @return whether the String was added, i.e. was not already present
+     */
+    public boolean add(String value)
+    {
+        Objects.requireNonNull(value);
+        if (root == null)
+        {
+            root = new Node(value);
+            size++;
+            return true;
+        }
+        Node node = root;
+        while (true)
+        {
+            int distance = MathsAndStats.levenshteinDistance(value, node.value);
+            if (distance == 0)
+                return false;
+            Node child = node.child(distance);
+            if (child == null)
+            {
+                node.addChild(distance, new Node(value));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     *  Returns the number of Strings in this tree.
+     *  @return (see above)
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     *  Returns all Strings in this tree within Levenshtein distance
+     *  <var>k</var> of the query, closest first. Ties are sorted
+     *  alphabetically.
+     *  @param query the String to look for
+     *  @param k the maximum distance
+     *  @return (see above)
+     *  @throws IllegalArgumentException if {@code k < 0}
+     */
+    public List<String> search(String query, int k)
+    {
+        return new ArrayList<>(searchWithDistances(query, k).keySet());
+    }
+
+    /**
+     *  Returns all Strings in this tree within Levenshtein distance
+     *  <var>k</var> of the query and their distances, closest first. Ties are
+     *  sorted alphabetically.
+     *  @param query the String to look for
+     *  @param k the maximum distance
+     *  @return a map: String &#8594; distance to query
+     *  @throws IllegalArgumentException if {@code k < 0}
+     */
+    public Map<String, Integer> searchWithDistances(String query, int k)
+    {
+        if (k < 0)
+            throw new IllegalArgumentException("Maximum distance must be non-negative.");
+        List<Map.Entry<String, Integer>> results = new ArrayList<>();
+        // the query is compared to many nodes, so preprocess it once if possible
+        MathsAndStats.BitParallelLevenshtein matcher = query.length() >= 1 && query.length() <= 64
+            ? new MathsAndStats.BitParallelLevenshtein(query) : null;
+        Deque<Node> stack = new ArrayDeque<>();
+        if (root != null)
+            stack.push(root);
+        while (!stack.isEmpty())
+        {
+            Node node = stack.pop();
+            // no child further than this can contain matches, so the distance
+            // need not be computed exactly beyond it
+            int max = k + (node.distances.length == 0 ? 0 : node.distances[node.distances.length - 1]);
+            int distance = matcher == null ? MathsAndStats.levenshteinDistance(query, node.value, max)
+                : matcher.distance(node.value, max);
+            if (distance <= k)
+                results.add(Map.entry(node.value, distance));
+            if (distance > max)
+                continue;
+            for (int i = 0; i < node.distances.length; i++)
+                if (Math.abs(node.distances[i] - distance) <= k)
+                    stack.push(node.children[i]);
+        }
+        results.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> ret = new LinkedHashMap<>();
+        for (var entry : results)
+            ret.put(entry.getKey(), entry.getValue());
+        return ret;
+    }
+}
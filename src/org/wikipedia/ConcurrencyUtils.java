@@ -0,0 +1,171 @@
+/**
+ *  @(#)ConcurrencyUtils.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ *  Convenience methods for making many independent network requests at the
+ *  same time. Tasks run on virtual threads, so the practical limit on
+ *  concurrency is the number of simultaneous requests each wiki session
+ *  permits (see {@link Wiki#setMaxConcurrentRequests(int)}) and the
+ *  <var>threads</var> parameter of each method.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class ConcurrencyUtils
+{
+    private ConcurrencyUtils()
+    {
+    }
+
+    /**
+     *  Applies the given function to each of the inputs, with no more than
+     *  <var>threads</var> applications running at once. If any application
+     *  fails, the remainder are cancelled and the exception rethrown.
+     *
+     *  <pre>{@code
+     *  // fetch the histories of many pages, four at a time
+     *  List<List<Wiki.Revision>> histories = ConcurrencyUtils.map(titles, 4,
+     *      title -> wiki.getPageHistory(title, null));
+     *  }</pre>
+     *
+     *  @param <T> the input type
+     *  @param <R> the output type
+     *  @param inputs the inputs to apply the function to
+     *  @param threads the maximum number of concurrent applications
+     *  @param fn the function to apply
+     *  @return the outputs, in the same order as the inputs
+     *  @throws IOException if any application of <var>fn</var> throws an
+     *  IOException or if this thread is interrupted
+     *  @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public static <T, R> List<R> map(Collection<? extends T> inputs, int threads,
+        ThrowingFunction<? super T, ? extends R> fn) throws IOException
+    {
+        List<R> results = new ArrayList<>(Collections.nCopies(inputs.size(), null));
+        List<T> temp = new ArrayList<>(inputs);
+        forEach(temp, threads, fn, (index, result) -> results.set(index, result));
+        return results;
+    }
+
+    /**
+     *  Applies the given function to each of the inputs, with no more than
+     *  <var>threads</var> applications running at once, and hands each
+     *  result to <var>callback</var> as soon as it is available. Callbacks
+     *  are made one at a time in order of completion, so they can safely
+     *  write to the same output. If any application fails, the remainder are
+     *  cancelled and the exception rethrown.
+     *
+     *  @param <T> the input type
+     *  @param <R> the output type
+     *  @param inputs the inputs to apply the function to
+     *  @param threads the maximum number of concurrent applications
+     *  @param fn the function to apply
+     *  @param callback accepts (index of input, output)
+     *  @throws IOException if any application of <var>fn</var> or
+     *  <var>callback</var> throws an IOException or if this thread is
+     *  interrupted
+     *  @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public static <T, R> void forEach(SequencedCollection<? extends T> inputs, int threads,
+        ThrowingFunction<? super T, ? extends R> fn, IndexedCallback<? super R> callback) throws IOException
+    {
+        if (threads < 1)
+            throw new IllegalArgumentException("Thread count must be a positive integer.");
+        if (inputs.isEmpty())
+            return;
+        Semaphore permits = new Semaphore(threads);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            CompletionService<Map.Entry<Integer, R>> cs = new ExecutorCompletionService<>(executor);
+            int index = 0;
+            for (T input : inputs)
+            {
+                int i = index++;
+                cs.submit(() ->
+                {
+                    permits.acquire();
+                    try
+                    {
+                        // SimpleEntry permits null values
+                        return new AbstractMap.SimpleEntry<>(i, fn.applyThrows(input));
+                    }
+                    finally
+                    {
+                        permits.release();
+                    }
+                });
+            }
+            try
+            {
+                for (int i = 0; i < index; i++)
+                {
+                    Map.Entry<Integer, R> result = cs.take().get();
+                    callback.accept(result.getKey(), result.getValue());
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for results.");
+            }
+            catch (ExecutionException ex)
+            {
+                executor.shutdownNow();
+                switch (ex.getCause())
+                {
+                    case IOException ioe -> throw ioe;
+                    case UncheckedIOException uioe -> throw uioe.getCause();
+                    case RuntimeException re -> throw re;
+                    case Error err -> throw err;
+                    default -> throw new IOException(ex.getCause());
+                }
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                // thrown by the callback
+                executor.shutdownNow();
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     *  Receives results from {@link #forEach(SequencedCollection, int,
+     *  ThrowingFunction, IndexedCallback)}.
+     *  @param <R> the result type
+     */
+    @FunctionalInterface
+    public interface IndexedCallback<R>
+    {
+        /**
+         *  Accepts a result.
+         *  @param index the index of the input that produced this result
+         *  @param result the result
+         *  @throws IOException if a filesystem or network error occurs
+         */
+        public void accept(int index, R result) throws IOException;
+    }
+}
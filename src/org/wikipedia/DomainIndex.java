@@ -0,0 +1,244 @@
+/**
+ *  @(#)DomainIndex.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.util.*;
+
+/**
+ *  An in-memory index of external links grouped by registrable domain (see
+ *  {@link ExternalLinks#extractRegistrableDomain(String)}). Each domain maps
+ *  to the list of (page, URL) pairs that link to it. The index is built up
+ *  incrementally, for instance:
+ *
+ *  <pre>{@code
+ *  DomainIndex index = new DomainIndex();
+ *  // straight from the network, without storing the linksearch results
+ *  wiki.linksearch("*.example.com", null, -1, index::add);
+ *  // or from a list of pages
+ *  index.addAll(pages, wiki.getExternalLinksOnPage(pages));
+ *  List<Map.Entry<String, Integer>> top10 = index.topDomains(10);
+ *  }</pre>
+ *
+ *  <p>
+ *  Page titles are stored once per index. This class is thread safe.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class DomainIndex
+{
+    private final NavigableMap<String, Postings> index = new TreeMap<>();
+    private final Map<String, Integer> pageids = new HashMap<>();
+    private final List<String> pages = new ArrayList<>();
+    private int size = 0;
+
+    /**
+     *  The links to a single domain, stored as parallel arrays of page ids
+     *  and URLs.
+     */
+    private static class Postings
+    {
+        private int[] pageids = new int[4];
+        private String[] urls = new String[4];
+        private int size = 0;
+
+        private void add(int pageid, String url)
+        {
+            if (size == pageids.length)
+            {
+                pageids = Arrays.copyOf(pageids, 2 * size);
+                urls = Arrays.copyOf(urls, 2 * size);
+            }
+            pageids[size] = pageid;
+            urls[size] = url;
+            size++;
+        }
+    }
+
+    /**
+     *  Adds a link to this index. Links that do not contain a valid host name
+     *  are ignored. This method has the right signature for use as the
+     *  consumer of {@link Wiki#linksearch(String, String, int,
+     *  java.util.function.BiConsumer, int...)}.
+     *
+     *  @param page the page containing the link
+     *  @param url the URL of the link
+     *  @return whether the link was added
+     */
+    public synchronized boolean add(String page, String url)
+    {
+        String domain = ExternalLinks.extractRegistrableDomain(url);
+        if (domain == null)
+            return false;
+        int pageid = pageids.computeIfAbsent(page, p ->
+        {
+            pages.add(p);
+            return pages.size() - 1;
+        });
+        index.computeIfAbsent(domain, d -> new Postings()).add(pageid, url);
+        size++;
+        return true;
+    }
+
+    /**
+     *  Adds the output of {@link Wiki#linksearch(String)} to this index.
+     *  @param results a list of { page, URL } pairs
+     */
+    public void addAll(List<String[]> results)
+    {
+        for (String[] result : results)
+            add(result[0], result[1]);
+    }
+
+    /**
+     *  Adds the output of {@link Wiki#getExternalLinksOnPage(List)} to this
+     *  index.
+     *  @param pages a list of pages
+     *  @param links the external links on each of those pages, in the same
+     *  order
+     *  @throws IllegalArgumentException if the two lists are of different size
+     */
+    public void addAll(List<String> pages, List<List<String>> links)
+    {
+        if (pages.size() != links.size())
+            throw new IllegalArgumentException("Pages and links must be the same size.");
+        for (int i = 0; i < pages.size(); i++)
+            for (String url : links.get(i))
+                add(pages.get(i), url);
+    }
+
+    /**
+     *  Returns the number of links in this index.
+     *  @return (see above)
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     *  Returns the number of links to the given domain.
+     *  @param domain a registrable domain
+     *  @return (see above)
+     */
+    public synchronized int count(String domain)
+    {
+        Postings postings = index.get(domain);
+        return postings == null ? 0 : postings.size;
+    }
+
+    /**
+     *  Returns the links to the given domain as { page, URL } pairs, in the
+     *  order they were added.
+     *  @param domain a registrable domain
+     *  @return (see above)
+     */
+    public synchronized List<String[]> getLinks(String domain)
+    {
+        Postings postings = index.get(domain);
+        if (postings == null)
+            return new ArrayList<>();
+        List<String[]> ret = new ArrayList<>(postings.size);
+        for (int i = 0; i < postings.size; i++)
+            ret.add(new String[] { pages.get(postings.pageids[i]), postings.urls[i] });
+        return ret;
+    }
+
+    /**
+     *  Returns the distinct pages linking to the given domain, in the order
+     *  they were first added.
+     *  @param domain a registrable domain
+     *  @return (see above)
+     */
+    public synchronized List<String> getPages(String domain)
+    {
+        Postings postings = index.get(domain);
+        if (postings == null)
+            return new ArrayList<>();
+        BitSet seen = new BitSet(pages.size());
+        List<String> ret = new ArrayList<>();
+        for (int i = 0; i < postings.size; i++)
+        {
+            int pageid = postings.pageids[i];
+            if (!seen.get(pageid))
+            {
+                seen.set(pageid);
+                ret.add(pages.get(pageid));
+            }
+        }
+        return ret;
+    }
+
+    /**
+     *  Returns all domains in this index, sorted alphabetically.
+     *  @return (see above)
+     */
+    public synchronized List<String> domains()
+    {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     *  Returns all domains in this index that start with the given prefix
+     *  together with their link counts, sorted alphabetically.
+     *  @param prefix a prefix, e.g. "example"
+     *  @return a map: domain &#8594; number of links
+     */
+    public synchronized Map<String, Integer> domainsWithPrefix(String prefix)
+    {
+        Map<String, Integer> ret = new LinkedHashMap<>();
+        for (var entry : index.tailMap(prefix, true).entrySet())
+        {
+            if (!entry.getKey().startsWith(prefix))
+                break;
+            ret.put(entry.getKey(), entry.getValue().size);
+        }
+        return ret;
+    }
+
+    /**
+     *  Returns the <var>n</var> domains with the most links, most linked
+     *  first. Ties are broken alphabetically.
+     *  @param n the number of domains to return
+     *  @return a list of (domain, number of links) pairs
+     */
+    public synchronized List<Map.Entry<String, Integer>> topDomains(int n)
+    {
+        if (n < 1)
+            return new ArrayList<>();
+        Comparator<Map.Entry<String, Integer>> cmp = Map.Entry.<String, Integer>comparingByValue()
+            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+        // min-heap of the best n seen so far
+        PriorityQueue<Map.Entry<String, Integer>> heap = new PriorityQueue<>(n + 1, cmp);
+        for (var entry : index.entrySet())
+        {
+            int count = entry.getValue().size;
+            if (heap.size() < n || count > heap.peek().getValue())
+            {
+                heap.add(Map.entry(entry.getKey(), count));
+                if (heap.size() > n)
+                    heap.poll();
+            }
+        }
+        List<Map.Entry<String, Integer>> ret = new ArrayList<>(heap);
+        ret.sort(cmp.reversed());
+        return ret;
+    }
+}
@@ -21,7 +21,12 @@ package org.wikipedia;
 
 import java.io.IOException;
 import java.net.*;
+import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.*;
+import java.util.regex.*;
 
 /**
  *  Utility methods to deal with external links and lists of external links.
@@ -30,11 +35,18 @@ import java.util.*;
  */
 public class ExternalLinks
 {
+    /**
+     *  How long a cached copy of a spam blacklist is used before it is 
+     *  revalidated against the wiki.
+     *  @see #isSpamBlacklisted(String)
+     */
+    public static final Duration BLACKLIST_REFRESH_INTERVAL = Duration.ofMinutes(15);
+    
     private final Wiki wiki;
     private final Pages pageutils;
-    private static final List<String> globalblacklist = new ArrayList<>();
-    private final List<String> localblacklist = new ArrayList<>();
-    private final List<String> blocked_domains = new ArrayList<>();
+    // keyed by domain so that discarded sessions aren't kept alive
+    private static final Map<String, CachedBlacklist> globalblacklists = new ConcurrentHashMap<>();
+    private static final Map<String, CachedBlacklist> localblacklists = new ConcurrentHashMap<>();
     private final WMFWikiFarm sessions = WMFWikiFarm.instance();
 
     private ExternalLinks(Wiki wiki)
@@ -97,6 +109,135 @@ public class ExternalLinks
         }
     }
 
+    /**
+     *  Extracts the registrable domain (the public suffix plus one label) 
+     *  from the given URL, which is the natural level at which to group 
+     *  external links by website. The host name is parsed in place, so this
+     *  method is suitable for processing large numbers of links.
+     * 
+     *  <ul>
+     *  <li>{@code extractRegistrableDomain("https://www.example.com/index.jsp")} 
+     *      returns <samp>example.com</samp>
+     *  <li>{@code extractRegistrableDomain("https://news.example.co.uk")} 
+     *      returns <samp>example.co.uk</samp>
+     *  <li>{@code extractRegistrableDomain("https://example.blogspot.com")} 
+     *      returns <samp>example.blogspot.com</samp>
+     *  <li>{@code extractRegistrableDomain("http://192.0.2.1/")} returns
+     *      <samp>192.0.2.1</samp>
+     *  </ul>
+     * 
+     *  <p>
+     *  Only an embedded subset of the <a href="https://publicsuffix.org">Public
+     *  Suffix List</a> is known, mainly common second level country code 
+     *  domains and hosting providers. Other suffixes are treated as if they 
+     *  were top level domains.
+     * 
+     *  @param url a URL, which may be protocol relative
+     *  @return the registrable domain in lower case or {@code null} if the URL
+     *  does not contain a valid host name
+     *  @see #extractDomain(String) 
+     */
+    public static String extractRegistrableDomain(String url)
+    {
+        int start = url.indexOf("//");
+        if (start < 0)
+            return null;
+        start += 2;
+        int length = url.length();
+        int end = start;
+        int at = -1, colon = -1;
+        boolean numeric = true;
+        for ( ; end < length; end++)
+        {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#')
+                break;
+            else if (c == '@')
+            {
+                // discard user info
+                at = end;
+                colon = -1;
+                numeric = true;
+            }
+            else if (c == ':')
+                colon = end;
+            else if (colon < 0 && c != '.' && c != '-' && c < 128 && !Character.isLetterOrDigit(c))
+                return null;
+            else if (colon < 0 && c != '.')
+                numeric &= (c >= '0' && c <= '9');
+        }
+        if (at >= 0)
+            start = at + 1;
+        if (colon >= 0)
+            end = colon;
+        if (end > start && url.charAt(end - 1) == '.')
+            end--;
+        if (end <= start)
+            return null;
+        // IPv4 addresses have no registrable domain
+        if (!numeric)
+            start = PublicSuffixTrie.instance().registrableDomainStart(url, start, end);
+        return url.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     *  Searches the wiki for many external link patterns at once. The 
+     *  searches run concurrently, subject to {@link 
+     *  Wiki#getMaxConcurrentRequests()}.
+     * 
+     *  @param patterns the patterns to search for (e.g. example.com, 
+     *  *.example.com)
+     *  @param protocol one of the protocols listed in the API documentation or
+     *  null (equivalent to http and https)
+     *  @param limit fetch no more than this many results per pattern, use -1 
+     *  for the {@linkplain Wiki#getQueryLimit() query limit}
+     *  @param ns a list of namespaces to filter by, empty = all namespaces.
+     *  @return a map: pattern &#8594; list of { page, URL } in the same order
+     *  as the input patterns
+     *  @throws IOException if a network error occurs
+     *  @see Wiki#linksearch(String, String, int...) 
+     */
+    public Map<String, List<String[]>> linksearch(SequencedCollection<String> patterns, String protocol, 
+        int limit, int... ns) throws IOException
+    {
+        Map<String, List<String[]>> ret = new LinkedHashMap<>();
+        for (String pattern : patterns)
+            ret.put(pattern, null);
+        List<String> temp = new ArrayList<>(ret.keySet());
+        linksearch(temp, protocol, limit, (index, results) -> ret.put(temp.get(index), results), ns);
+        return ret;
+    }
+    
+    /**
+     *  Searches the wiki for many external link patterns at once, handing the 
+     *  results for each pattern to <var>callback</var> as soon as they are 
+     *  available. The searches run concurrently, subject to {@link 
+     *  Wiki#getMaxConcurrentRequests()}. Callbacks are made one at a time in
+     *  order of completion, so that they may write to the same output.
+     * 
+     *  @param patterns the patterns to search for (e.g. example.com, 
+     *  *.example.com)
+     *  @param protocol one of the protocols listed in the API documentation or
+     *  null (equivalent to http and https)
+     *  @param limit fetch no more than this many results per pattern, use -1 
+     *  for the {@linkplain Wiki#getQueryLimit() query limit}
+     *  @param callback accepts the index of the pattern in <var>patterns</var>
+     *  and the list of { page, URL } found
+     *  @param ns a list of namespaces to filter by, empty = all namespaces.
+     *  @throws IOException if a network error occurs or the callback throws
+     *  an IOException
+     */
+    public void linksearch(SequencedCollection<String> patterns, String protocol, int limit, 
+        ConcurrencyUtils.IndexedCallback<List<String[]>> callback, int... ns) throws IOException
+    {
+        ConcurrencyUtils.forEach(patterns, wiki.getMaxConcurrentRequests(), pattern ->
+        {
+            List<String[]> results = new ArrayList<>();
+            wiki.linksearch(pattern, protocol, limit, (page, url) -> results.add(new String[] { page, url }), ns);
+            return results;
+        }, callback);
+    }
+    
     /**
      *  Renders output of {@link Wiki#linksearch} in wikitext.
      *  @param results the results to render
@@ -151,7 +292,11 @@ public class ExternalLinks
     
     /**
      *  Determines whether a site is on the spam blacklist, modulo Java/PHP 
-     *  regex differences.
+     *  regex differences. The blacklists are cached across all instances of 
+     *  this class. Once loaded, a blacklist that is older than {@link 
+     *  #BLACKLIST_REFRESH_INTERVAL} is revalidated in the background and the
+     *  cached copy is used in the meantime.
+     * 
      *  @param site the site to check
      *  @return whether a site is on the spam blacklist
      *  @throws IOException if a network error occurs
@@ -161,24 +306,18 @@ public class ExternalLinks
      */
     public boolean isSpamBlacklisted(String site) throws IOException
     {
-        if (globalblacklist.isEmpty() || localblacklist.isEmpty())
-            loadSpamBlacklists(globalblacklist.isEmpty(), localblacklist.isEmpty());
-        
+        wiki.requiresExtension("SpamBlacklist");
         // yes, I know about the spam whitelist, but I primarily intend to use
         // this to check entire domains whereas the spam whitelist tends to 
         // contain individual pages on websites
-        for (String entry : globalblacklist)
-            if (site.matches(entry))
-                return true;
-        for (String entry : localblacklist)
-            if (site.matches(entry))
-                return true;
-        return blocked_domains.contains(site);
+        WMFWiki meta = sessions.sharedSession("meta.wikimedia.org");
+        return globalBlacklist().get(meta).matches(site) || localBlacklist().get(wiki).matches(site);
     }
     
     /**
-     *  (Re)loads spam blacklist caches.
-     *  @param global (re)load the global blacklist (shared across instances)
+     *  (Re)loads spam blacklist caches, regardless of whether they have 
+     *  changed. The caches are shared across all instances of this class.
+     *  @param global (re)load the global blacklist
      *  @param local (re)load the local blacklist and blocked external domains
      *  @throws IOException if a network error occurs
      *  @throws UnsupportedOperationException if the SpamBlacklist and 
@@ -188,41 +327,186 @@ public class ExternalLinks
     {
         wiki.requiresExtension("SpamBlacklist");
         if (global)
+            globalBlacklist().reload(sessions.sharedSession("meta.wikimedia.org"));
+        if (local)
+            localBlacklist().reload(wiki);
+    }
+    
+    /**
+     *  Returns the shared cache of the global spam blacklist.
+     *  @return (see above)
+     */
+    private CachedBlacklist globalBlacklist()
+    {
+        return globalblacklists.computeIfAbsent("meta.wikimedia.org", 
+            domain -> new CachedBlacklist(domain, List.of("Spam blacklist")));
+    }
+    
+    /**
+     *  Returns the shared cache of the local spam blacklist and blocked 
+     *  external domains of the wiki this instance is bound to.
+     *  @return (see above)
+     */
+    private CachedBlacklist localBlacklist()
+    {
+        return localblacklists.computeIfAbsent(wiki.getDomain(), 
+            domain -> new CachedBlacklist(domain, List.of("MediaWiki:Spam-blacklist", "MediaWiki:BlockedExternalDomains.json")));
+    }
+    
+    /**
+     *  A compiled copy of some spam blacklist pages.
+     *  @param patterns the compiled blacklist entries
+     *  @param domains blocked external domains
+     *  @param revids the revision ids of the blacklist pages that were 
+     *  compiled, -1 if a page does not exist
+     *  @param checked when the revision ids were last checked against the wiki
+     */
+    private record Blacklist(List<Pattern> patterns, Set<String> domains, List<Long> revids, Instant checked)
+    {
+        /**
+         *  Determines whether the given site matches this blacklist.
+         *  @param site a site
+         *  @return (see above)
+         */
+        public boolean matches(String site)
+        {
+            if (domains.contains(site))
+                return true;
+            for (Pattern entry : patterns)
+                if (entry.matcher(site).matches())
+                    return true;
+            return false;
+        }
+    }
+    
+    /**
+     *  A process-wide, lazily loaded and self-refreshing cache of some spam
+     *  blacklist pages on a wiki. The first page is parsed as a regex 
+     *  blacklist and the second (if present) as a list of blocked external 
+     *  domains. When the cache is stale, it is revalidated in the background
+     *  by comparing the revision ids of the pages and only recompiled if 
+     *  one of the pages has changed. The cache holds no wiki session; the 
+     *  session of the caller is used to load and revalidate it.
+     */
+    private static class CachedBlacklist
+    {
+        private final String domain;
+        private final List<String> pages;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Blacklist current;
+        
+        private CachedBlacklist(String domain, List<String> pages)
         {
-            WMFWiki meta = sessions.sharedSession("meta.wikimedia.org");
-            globalblacklist.clear();
-            String[] gbl = meta.getPageText(List.of("Spam blacklist")).get(0).split("\\n");
-            for (String entry : gbl)
+            this.domain = domain;
+            this.pages = pages;
+        }
+        
+        /**
+         *  Returns the current copy of the blacklist, loading it if necessary.
+         *  Schedules a background revalidation if the copy is stale.
+         *  @param wiki a session of the wiki hosting the blacklist
+         *  @return (see above)
+         *  @throws IOException if a network error occurs on the initial load
+         */
+        public Blacklist get(Wiki wiki) throws IOException
+        {
+            Blacklist temp = current;
+            if (temp == null)
+            {
+                synchronized (this)
+                {
+                    // only one thread does the initial load, others wait for it
+                    if (current == null)
+                        current = load(wiki, null);
+                    return current;
+                }
+            }
+            if (temp.checked().plus(BLACKLIST_REFRESH_INTERVAL).isBefore(Instant.now()) 
+                && refreshing.compareAndSet(false, true))
             {
-                if (entry.contains("#"))
-                    entry = entry.substring(0, entry.indexOf('#'));
-                entry = entry.trim();
-                if (!entry.isEmpty())
-                    globalblacklist.add(entry);
+                Thread.ofVirtual().name("blacklist-refresh-" + domain).start(() ->
+                {
+                    try
+                    {
+                        current = load(wiki, current);
+                    }
+                    catch (IOException | RuntimeException ex)
+                    {
+                        // keep serving the old copy, try again next time
+                        Logger.getLogger("wiki").log(Level.WARNING, "Spam blacklist refresh failed for " 
+                            + domain, ex);
+                    }
+                    finally
+                    {
+                        refreshing.set(false);
+                    }
+                });
             }
+            return temp;
         }
-        if (local)
+        
+        /**
+         *  Unconditionally reloads the blacklist.
+         *  @param wiki a session of the wiki hosting the blacklist
+         *  @throws IOException if a network error occurs
+         */
+        public synchronized void reload(Wiki wiki) throws IOException
         {
-            List<String> pages = wiki.getPageText(List.of("MediaWiki:Spam-blacklist", "MediaWiki:BlockedExternalDomains.json"));
-            localblacklist.clear();
-            for (String entry : pages.get(0).split("\\n"))
+            current = load(wiki, null);
+        }
+        
+        /**
+         *  Fetches the blacklist if it has changed since <var>previous</var> 
+         *  was compiled.
+         *  @param wiki a session of the wiki hosting the blacklist
+         *  @param previous the previous copy of the blacklist, may be null
+         *  @return the up to date blacklist
+         *  @throws IOException if a network error occurs
+         */
+        private Blacklist load(Wiki wiki, Blacklist previous) throws IOException
+        {
+            List<Long> revids = new ArrayList<>();
+            for (Map<String, Object> info : wiki.getPageInfo(pages))
+                revids.add(info == null ? -1L : (Long)info.get("lastrevid"));
+            if (previous != null && previous.revids().equals(revids))
+                return new Blacklist(previous.patterns(), previous.domains(), revids, Instant.now());
+            
+            List<String> text = wiki.getPageText(pages);
+            List<Pattern> patterns = new ArrayList<>();
+            String regexes = text.get(0);
+            if (regexes != null)
             {
-                if (entry.contains("#"))
-                    entry = entry.substring(0, entry.indexOf('#'));
-                entry = entry.trim();
-                if (!entry.isEmpty())
-                    localblacklist.add(entry);
+                for (String entry : regexes.split("\\n"))
+                {
+                    if (entry.contains("#"))
+                        entry = entry.substring(0, entry.indexOf('#'));
+                    entry = entry.trim();
+                    if (entry.isEmpty())
+                        continue;
+                    try
+                    {
+                        patterns.add(Pattern.compile(entry));
+                    }
+                    catch (PatternSyntaxException ex)
+                    {
+                        // PHP regex that isn't valid in Java, skip
+                    }
+                }
             }
-            blocked_domains.clear();
-            for (String entry : pages.get(1).split("\\n"))
+            Set<String> domains = new HashSet<>();
+            if (text.size() > 1 && text.get(1) != null)
             {
-                if (entry.contains("\"domain\":"))
+                for (String entry : text.get(1).split("\\n"))
                 {
-                    int x1 = entry.indexOf("\": \"") + 4;
-                    int x2 = entry.length() - 2;
-                    blocked_domains.add(entry.substring(x1, x2));
+                    if (entry.contains("\"domain\":"))
+                    {
+                        int x1 = entry.indexOf("\": \"") + 4;
+                        int x2 = entry.length() - 2;
+                        domains.add(entry.substring(x1, x2));
+                    }
                 }
             }
+            return new Blacklist(List.copyOf(patterns), Set.copyOf(domains), revids, Instant.now());
         }
     }
 }
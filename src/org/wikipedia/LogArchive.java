@@ -0,0 +1,423 @@
+/**
+ *  @(#)LogArchive.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ *  A local copy of some of the logs of a wiki, kept up to date incrementally.
+ *  Each log (type and action) is archived separately and covers one
+ *  continuous date range. {@link #getLogEntries(String, String,
+ *  OffsetDateTime, OffsetDateTime)} fetches from the wiki only those parts of
+ *  the requested range that are not already on disk, so a job that computes
+ *  statistics every day downloads only the last day's entries:
+ *
+ *  <pre>{@code
+ *  LogArchive archive = new LogArchive(enWiki, Paths.get("logs"));
+ *  OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+ *  List<Wiki.LogEntry> deletions = archive.getLogEntries(Wiki.DELETION_LOG, "delete", now.minusYears(1), now);
+ *  }</pre>
+ *
+ *  <p>
+ *  Log entries are stored in one file per calendar month (UTC), as
+ *  concatenated GZIP members of fixed layout binary records; each update
+ *  appends a new member. A checkpoint file records the range covered and how
+ *  much of each file is complete, so an interrupted update is discarded the
+ *  next time the log is updated. Parsed comments are not stored and are
+ *  always null in archived log entries.
+ *
+ *  <p>
+ *  Instances are thread safe, but an archive directory must not be used by
+ *  more than one instance (or program) at a time.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class LogArchive
+{
+    private static final int FORMAT_VERSION = 1;
+    private static final DateTimeFormatter SEGMENT_NAME = DateTimeFormatter.ofPattern("uuuu-MM");
+    private static final String SEGMENT_SUFFIX = ".log.gz";
+    private static final String CHECKPOINT = "checkpoint.properties";
+
+    // record flags
+    private static final int USER_DELETED = 1, COMMENT_DELETED = 2, CONTENT_DELETED = 4,
+        NO_USER = 8, NO_TITLE = 16, NO_COMMENT = 32, NO_ACTION = 64;
+
+    private final Wiki wiki;
+    private final Path directory;
+
+    /**
+     *  Creates an archive of the logs of the given wiki in the given
+     *  directory. The directory is created when needed.
+     *  @param wiki the wiki to fetch log entries from
+     *  @param directory where to keep the archive, which should not be shared
+     *  with other wikis
+     */
+    public LogArchive(Wiki wiki, Path directory)
+    {
+        this.wiki = Objects.requireNonNull(wiki);
+        this.directory = Objects.requireNonNull(directory);
+    }
+
+    /**
+     *  Returns the wiki whose logs are archived.
+     *  @return (see above)
+     */
+    public Wiki getWiki()
+    {
+        return wiki;
+    }
+
+    /**
+     *  Returns the log entries of the given type and action between the given
+     *  dates, inclusive, after {@linkplain #sync(String, String,
+     *  OffsetDateTime, OffsetDateTime) updating} the archive to cover them.
+     *  @param logtype what log to get (e.g. {@link Wiki#DELETION_LOG})
+     *  @param action what action to get (e.g. delete, undelete, etc.), use
+     *  {@code null} to get all actions
+     *  @param earliest the earliest date to get entries for
+     *  @param latest the latest date to get entries for, use {@code null} for
+     *  now
+     *  @return the log entries, oldest first
+     *  @throws IOException if a network or filesystem error occurs
+     *  @throws IllegalArgumentException if {@code earliest.isAfter(latest)}
+     */
+    public synchronized List<Wiki.LogEntry> getLogEntries(String logtype, String action,
+        OffsetDateTime earliest, OffsetDateTime latest) throws IOException
+    {
+        latest = sync(logtype, action, earliest, latest);
+        return read(logtype, action, earliest, latest);
+    }
+
+    /**
+     *  Updates the archive so that it contains every log entry of the given
+     *  type and action between the given dates, inclusive. Only the parts of
+     *  that range not already archived are fetched from the wiki. Dates in the
+     *  future are treated as now.
+     *  @param logtype what log to get (e.g. {@link Wiki#DELETION_LOG})
+     *  @param action what action to get (e.g. delete, undelete, etc.), use
+     *  {@code null} to get all actions
+     *  @param earliest the earliest date to archive entries for
+     *  @param latest the latest date to archive entries for, use {@code null}
+     *  for now
+     *  @return the latest date actually archived, i.e. <var>latest</var> or
+     *  now, whichever is earlier
+     *  @throws IOException if a network or filesystem error occurs
+     *  @throws IllegalArgumentException if {@code earliest.isAfter(latest)}
+     */
+    public synchronized OffsetDateTime sync(String logtype, String action, OffsetDateTime earliest,
+        OffsetDateTime latest) throws IOException
+    {
+        // timestamps only have a resolution of seconds
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC).withNano(0);
+        if (latest == null || latest.isAfter(now))
+            latest = now;
+        if (earliest.isAfter(latest))
+            throw new IllegalArgumentException("Earliest date must be before latest date!");
+
+        Path logdir = directory.resolve(logDirectoryName(logtype, action));
+        Checkpoint checkpoint = Checkpoint.read(logdir);
+        if (checkpoint.from == null)
+        {
+            store(logdir, checkpoint, fetch(logtype, action, earliest, latest));
+            checkpoint.from = earliest;
+            checkpoint.to = latest;
+            checkpoint.write(logdir);
+            return latest;
+        }
+        // The ends of each range are inclusive, so entries made in the same
+        // second as the previous end may be fetched twice. These are removed
+        // when reading.
+        if (earliest.isBefore(checkpoint.from))
+        {
+            store(logdir, checkpoint, fetch(logtype, action, earliest, checkpoint.from));
+            checkpoint.from = earliest;
+            checkpoint.write(logdir);
+        }
+        if (latest.isAfter(checkpoint.to))
+        {
+            store(logdir, checkpoint, fetch(logtype, action, checkpoint.to, latest));
+            checkpoint.to = latest;
+            checkpoint.write(logdir);
+        }
+        return latest;
+    }
+
+    /**
+     *  Returns the date range covered by the archive of the given log.
+     *  @param logtype a log type (e.g. {@link Wiki#DELETION_LOG})
+     *  @param action an action, or {@code null} for all actions
+     *  @return the earliest and latest dates archived, or an empty list if
+     *  nothing has been archived
+     *  @throws IOException if a filesystem error occurs
+     */
+    public synchronized List<OffsetDateTime> getDateRange(String logtype, String action) throws IOException
+    {
+        Checkpoint checkpoint = Checkpoint.read(directory.resolve(logDirectoryName(logtype, action)));
+        return checkpoint.from == null ? List.of() : List.of(checkpoint.from, checkpoint.to);
+    }
+
+    /**
+     *  Returns the archived log entries of the given type and action between
+     *  the given dates, inclusive, without contacting the wiki. Parts of the
+     *  range that are not archived are silently omitted.
+     *  @param logtype a log type (e.g. {@link Wiki#DELETION_LOG})
+     *  @param action an action, or {@code null} for all actions
+     *  @param earliest the earliest date to get entries for
+     *  @param latest the latest date to get entries for
+     *  @return the log entries, oldest first
+     *  @throws IOException if a filesystem error occurs
+     */
+    public synchronized List<Wiki.LogEntry> read(String logtype, String action, OffsetDateTime earliest,
+        OffsetDateTime latest) throws IOException
+    {
+        Path logdir = directory.resolve(logDirectoryName(logtype, action));
+        Checkpoint checkpoint = Checkpoint.read(logdir);
+        long from = earliest.toEpochSecond(), to = latest.toEpochSecond();
+        List<Wiki.LogEntry> ret = new ArrayList<>();
+        YearMonth last = YearMonth.from(latest.withOffsetSameInstant(ZoneOffset.UTC));
+        for (YearMonth month = YearMonth.from(earliest.withOffsetSameInstant(ZoneOffset.UTC));
+            !month.isAfter(last); month = month.plusMonths(1))
+        {
+            String segment = month.format(SEGMENT_NAME);
+            long size = checkpoint.sizes.getOrDefault(segment, 0L);
+            if (size == 0)
+                continue;
+            List<Wiki.LogEntry> entries = new ArrayList<>();
+            byte[] data = new byte[(int)size];
+            try (InputStream in = Files.newInputStream(logdir.resolve(segment + SEGMENT_SUFFIX)))
+            {
+                if (in.readNBytes(data, 0, data.length) < data.length)
+                    throw new EOFException("Log archive file " + segment + " is shorter than its checkpoint.");
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(data)))))
+            {
+                while (true)
+                {
+                    Wiki.LogEntry entry = readEntry(in);
+                    if (entry == null)
+                        break;
+                    long timestamp = entry.getTimestamp().toEpochSecond();
+                    if (timestamp >= from && timestamp <= to)
+                        entries.add(entry);
+                }
+            }
+            // updates may be appended out of order and overlap at the ends
+            entries.sort(Comparator.comparing(Wiki.LogEntry::getTimestamp).thenComparingLong(Wiki.LogEntry::getID));
+            for (Wiki.LogEntry entry : entries)
+                if (ret.isEmpty() || ret.get(ret.size() - 1).getID() != entry.getID())
+                    ret.add(entry);
+        }
+        return ret;
+    }
+
+    /**
+     *  Fetches log entries from the wiki.
+     */
+    private List<Wiki.LogEntry> fetch(String logtype, String action, OffsetDateTime earliest,
+        OffsetDateTime latest) throws IOException
+    {
+        Wiki.RequestHelper rh = wiki.new RequestHelper()
+            .withinDateRange(earliest, latest);
+        return wiki.getLogEntries(logtype, action, rh);
+    }
+
+    /**
+     *  Appends log entries to the files for the months in which they occurred
+     *  and records the new file sizes in the checkpoint (but does not write
+     *  it). Anything after the size last recorded is overwritten.
+     */
+    private void store(Path logdir, Checkpoint checkpoint, List<Wiki.LogEntry> entries) throws IOException
+    {
+        Map<String, List<Wiki.LogEntry>> bymonth = new TreeMap<>();
+        for (Wiki.LogEntry entry : entries)
+        {
+            String segment = entry.getTimestamp().withOffsetSameInstant(ZoneOffset.UTC).format(SEGMENT_NAME);
+            bymonth.computeIfAbsent(segment, s -> new ArrayList<>()).add(entry);
+        }
+        Files.createDirectories(logdir);
+        for (var month : bymonth.entrySet())
+        {
+            String segment = month.getKey();
+            try (FileChannel channel = FileChannel.open(logdir.resolve(segment + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+            {
+                // discard anything left over from an interrupted update
+                channel.truncate(checkpoint.sizes.getOrDefault(segment, 0L));
+                channel.position(channel.size());
+                GZIPOutputStream gzip = new GZIPOutputStream(Channels.newOutputStream(channel));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip));
+                for (Wiki.LogEntry entry : month.getValue())
+                    writeEntry(out, entry);
+                // finish the GZIP member without closing the channel
+                out.flush();
+                gzip.finish();
+                channel.force(false);
+                checkpoint.sizes.put(segment, channel.size());
+            }
+        }
+    }
+
+    /**
+     *  Writes a log entry as a binary record.
+     */
+    private static void writeEntry(DataOutputStream out, Wiki.LogEntry entry) throws IOException
+    {
+        String user = entry.getUser(), title = entry.getTitle(), comment = entry.getComment(),
+            action = entry.getAction();
+        int flags = (entry.isUserDeleted() ? USER_DELETED : 0)
+            | (entry.isCommentDeleted() ? COMMENT_DELETED : 0)
+            | (entry.isContentDeleted() ? CONTENT_DELETED : 0)
+            | (user == null ? NO_USER : 0)
+            | (title == null ? NO_TITLE : 0)
+            | (comment == null ? NO_COMMENT : 0)
+            | (action == null ? NO_ACTION : 0);
+        out.writeLong(entry.getID());
+        out.writeLong(entry.getTimestamp().toEpochSecond());
+        out.writeByte(flags);
+        out.writeUTF(entry.getType());
+        if (user != null)
+            out.writeUTF(user);
+        if (title != null)
+            out.writeUTF(title);
+        if (comment != null)
+            out.writeUTF(comment);
+        if (action != null)
+            out.writeUTF(action);
+        Map<String, String> details = entry.getDetails();
+        out.writeShort(details == null ? 0 : details.size());
+        if (details != null)
+        {
+            for (var detail : details.entrySet())
+            {
+                out.writeUTF(detail.getKey());
+                out.writeUTF(Objects.requireNonNullElse(detail.getValue(), ""));
+            }
+        }
+        List<String> tags = entry.getTags();
+        out.writeShort(tags == null ? 0 : tags.size());
+        if (tags != null)
+            for (String tag : tags)
+                out.writeUTF(tag);
+    }
+
+    /**
+     *  Reads a log entry written by {@link #writeEntry(DataOutputStream,
+     *  Wiki.LogEntry)}, or returns null at the end of the stream.
+     */
+    private Wiki.LogEntry readEntry(DataInputStream in) throws IOException
+    {
+        long id;
+        try
+        {
+            id = in.readLong();
+        }
+        catch (EOFException ex)
+        {
+            return null;
+        }
+        OffsetDateTime timestamp = OffsetDateTime.ofInstant(Instant.ofEpochSecond(in.readLong()), ZoneOffset.UTC);
+        int flags = in.readByte();
+        String type = in.readUTF();
+        String user = (flags & NO_USER) == 0 ? in.readUTF() : null;
+        String title = (flags & NO_TITLE) == 0 ? in.readUTF() : null;
+        String comment = (flags & NO_COMMENT) == 0 ? in.readUTF() : null;
+        String action = (flags & NO_ACTION) == 0 ? in.readUTF() : null;
+        Map<String, String> details = new HashMap<>();
+        for (int i = in.readUnsignedShort(); i > 0; i--)
+            details.put(in.readUTF(), in.readUTF());
+        List<String> tags = new ArrayList<>();
+        for (int i = in.readUnsignedShort(); i > 0; i--)
+            tags.add(in.readUTF());
+
+        Wiki.LogEntry entry = wiki.new LogEntry(id, timestamp, user, comment, null, type, action, title, details);
+        entry.setUserDeleted((flags & USER_DELETED) != 0);
+        entry.setCommentDeleted((flags & COMMENT_DELETED) != 0);
+        entry.setContentDeleted((flags & CONTENT_DELETED) != 0);
+        entry.setTags(tags);
+        return entry;
+    }
+
+    private static String logDirectoryName(String logtype, String action)
+    {
+        return (logtype.equals(Wiki.ALL_LOGS) ? "all" : logtype) + "." + (action == null ? "all" : action);
+    }
+
+    /**
+     *  The date range archived for a log and the complete length of each of
+     *  its files.
+     */
+    private static class Checkpoint
+    {
+        private OffsetDateTime from, to;
+        private final Map<String, Long> sizes = new TreeMap<>();
+
+        private static Checkpoint read(Path logdir) throws IOException
+        {
+            Checkpoint ret = new Checkpoint();
+            Path file = logdir.resolve(CHECKPOINT);
+            if (!Files.exists(file))
+                return ret;
+            Properties props = new Properties();
+            try (Reader in = Files.newBufferedReader(file))
+            {
+                props.load(in);
+            }
+            if (!String.valueOf(FORMAT_VERSION).equals(props.getProperty("version")))
+                throw new IOException("Unsupported log archive version in " + file);
+            ret.from = OffsetDateTime.parse(props.getProperty("from"));
+            ret.to = OffsetDateTime.parse(props.getProperty("to"));
+            for (String key : props.stringPropertyNames())
+                if (key.startsWith("size."))
+                    ret.sizes.put(key.substring(5), Long.valueOf(props.getProperty(key)));
+            return ret;
+        }
+
+        /**
+         *  Replaces the checkpoint file atomically, so that it always
+         *  describes a consistent archive.
+         */
+        private void write(Path logdir) throws IOException
+        {
+            Properties props = new Properties();
+            props.setProperty("version", String.valueOf(FORMAT_VERSION));
+            props.setProperty("from", from.toString());
+            props.setProperty("to", to.toString());
+            for (var entry : sizes.entrySet())
+                props.setProperty("size." + entry.getKey(), entry.getValue().toString());
+            Files.createDirectories(logdir);
+            Path temp = logdir.resolve(CHECKPOINT + ".tmp");
+            try (Writer out = Files.newBufferedWriter(temp))
+            {
+                props.store(out, null);
+            }
+            Files.move(temp, logdir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/**
+ *  @(#)LogTable.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ *  An immutable, column oriented table of log entries for computing
+ *  statistics over millions of entries quickly. Timestamps are stored as an
+ *  array of longs and strings (users, titles, comments, types and actions)
+ *  as arrays of {@linkplain TitleDictionary dictionary} ids, so each distinct
+ *  string is held once and every string function (normalization,
+ *  classification, namespace lookup) is evaluated once per distinct string
+ *  instead of once per entry. Usage:
+ *
+ *  <pre>{@code
+ *  LogTable table = LogTable.of(enWiki, enWiki.getLogEntries(Wiki.DELETION_LOG, "delete", rh));
+ *  BitSet rows = table.inNamespaces(Wiki.MAIN_NAMESPACE);
+ *  Map<String, Long> reasons = table.countBy(LogTable.Column.COMMENT, rows, String::toLowerCase);
+ *  SortedMap<LocalDate, Long> weekly = table.countByTime(rows, ChronoUnit.WEEKS);
+ *  }</pre>
+ *
+ *  <p>
+ *  Rows are numbered in the order the entries were supplied. Selections of
+ *  rows are {@link BitSet}s, so filters can be combined with {@link
+ *  BitSet#and(BitSet)}, {@link BitSet#or(BitSet)} and so on. RevisionDeleted
+ *  values are null and never match filters or contribute to counts.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class LogTable
+{
+    /**
+     *  The string valued columns of a log table.
+     */
+    public enum Column
+    {
+        /**
+         *  The user who performed the action.
+         *  @see Wiki.Event#getUser()
+         */
+        USER,
+
+        /**
+         *  The target of the action.
+         *  @see Wiki.Event#getTitle()
+         */
+        TITLE,
+
+        /**
+         *  The reason given for the action.
+         *  @see Wiki.Event#getComment()
+         */
+        COMMENT,
+
+        /**
+         *  The type of log.
+         *  @see Wiki.LogEntry#getType()
+         */
+        TYPE,
+
+        /**
+         *  The action performed.
+         *  @see Wiki.LogEntry#getAction()
+         */
+        ACTION;
+    }
+
+    private final Wiki wiki;
+    private final int size;
+    private final long[] timestamps;
+    // one dictionary and array of ids (-1 = null) per column
+    private final TitleDictionary[] dictionaries;
+    private final int[][] columns;
+    // title id -> namespace, computed when first needed
+    private int[] namespaces;
+
+    private LogTable(Wiki wiki, int size)
+    {
+        this.wiki = wiki;
+        this.size = size;
+        timestamps = new long[size];
+        Column[] values = Column.values();
+        dictionaries = new TitleDictionary[values.length];
+        columns = new int[values.length][size];
+        for (int i = 0; i < values.length; i++)
+            dictionaries[i] = new TitleDictionary();
+    }
+
+    /**
+     *  Creates a table containing the given log entries.
+     *  @param wiki the wiki the log entries belong to, used to determine the
+     *  namespace of titles
+     *  @param entries some log entries
+     *  @return a table with one row per entry, in the same order
+     */
+    public static LogTable of(Wiki wiki, Collection<? extends Wiki.LogEntry> entries)
+    {
+        LogTable table = new LogTable(wiki, entries.size());
+        int row = 0;
+        for (Wiki.LogEntry entry : entries)
+            table.timestamps[row++] = entry.getTimestamp().toEpochSecond();
+        table.set(Column.USER, entries, Wiki.Event::getUser);
+        table.set(Column.TITLE, entries, Wiki.Event::getTitle);
+        table.set(Column.COMMENT, entries, Wiki.Event::getComment);
+        table.set(Column.TYPE, entries, Wiki.LogEntry::getType);
+        table.set(Column.ACTION, entries, Wiki.LogEntry::getAction);
+        return table;
+    }
+
+    /**
+     *  Fills in a column, interning all its values at once.
+     */
+    private void set(Column column, Collection<? extends Wiki.LogEntry> entries, Function<Wiki.LogEntry, String> getter)
+    {
+        int c = column.ordinal();
+        List<String> values = new ArrayList<>(size);
+        for (Wiki.LogEntry entry : entries)
+        {
+            String value = getter.apply(entry);
+            if (value != null)
+                values.add(value);
+        }
+        int[] ids = dictionaries[c].intern(values);
+        int i = 0, row = 0;
+        for (Wiki.LogEntry entry : entries)
+            columns[c][row++] = getter.apply(entry) == null ? -1 : ids[i++];
+    }
+
+    /**
+     *  Returns the number of rows in this table.
+     *  @return (see above)
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     *  Returns the number of distinct non-null values in the given column.
+     *  @param column a column
+     *  @return (see above)
+     */
+    public int distinctValues(Column column)
+    {
+        return dictionaries[column.ordinal()].size();
+    }
+
+    /**
+     *  Returns the value of the given column in the given row.
+     *  @param column a column
+     *  @param row a row number
+     *  @return (see above)
+     *  @throws IndexOutOfBoundsException if the row does not exist
+     */
+    public String get(Column column, int row)
+    {
+        int id = columns[column.ordinal()][Objects.checkIndex(row, size)];
+        return id < 0 ? null : dictionaries[column.ordinal()].title(id);
+    }
+
+    /**
+     *  Returns the timestamp of the given row.
+     *  @param row a row number
+     *  @return (see above), in UTC
+     *  @throws IndexOutOfBoundsException if the row does not exist
+     */
+    public OffsetDateTime getTimestamp(int row)
+    {
+        return OffsetDateTime.ofInstant(Instant.ofEpochSecond(timestamps[Objects.checkIndex(row, size)]), ZoneOffset.UTC);
+    }
+
+    /**
+     *  Selects every row of this table.
+     *  @return (see above)
+     */
+    public BitSet all()
+    {
+        BitSet ret = new BitSet(size);
+        ret.set(0, size);
+        return ret;
+    }
+
+    /**
+     *  Selects the rows whose value in the given column satisfies the given
+     *  predicate. The predicate is evaluated once per distinct value.
+     *  @param column a column
+     *  @param predicate a condition on the values of that column
+     *  @return the matching rows
+     */
+    public BitSet where(Column column, Predicate<String> predicate)
+    {
+        int c = column.ordinal();
+        int distinct = dictionaries[c].size();
+        boolean[] matches = new boolean[distinct];
+        for (int id = 0; id < distinct; id++)
+            matches[id] = predicate.test(dictionaries[c].title(id));
+        int[] ids = columns[c];
+        BitSet ret = new BitSet(size);
+        for (int row = 0; row < size; row++)
+            if (ids[row] >= 0 && matches[ids[row]])
+                ret.set(row);
+        return ret;
+    }
+
+    /**
+     *  Selects the rows whose target is in one of the given namespaces.
+     *  @param ns a list of namespaces
+     *  @return the matching rows
+     */
+    public BitSet inNamespaces(int... ns)
+    {
+        int[] titlens = namespaces();
+        int[] sorted = ns.clone();
+        Arrays.sort(sorted);
+        boolean[] matches = new boolean[titlens.length];
+        for (int id = 0; id < titlens.length; id++)
+            matches[id] = Arrays.binarySearch(sorted, titlens[id]) >= 0;
+        int[] ids = columns[Column.TITLE.ordinal()];
+        BitSet ret = new BitSet(size);
+        for (int row = 0; row < size; row++)
+            if (ids[row] >= 0 && matches[ids[row]])
+                ret.set(row);
+        return ret;
+    }
+
+    /**
+     *  Selects the rows with timestamps between the given dates, inclusive.
+     *  @param earliest the earliest date, use {@code null} to not set one
+     *  @param latest the latest date, use {@code null} to not set one
+     *  @return the matching rows
+     */
+    public BitSet between(OffsetDateTime earliest, OffsetDateTime latest)
+    {
+        long from = earliest == null ? Long.MIN_VALUE : earliest.toEpochSecond();
+        long to = latest == null ? Long.MAX_VALUE : latest.toEpochSecond();
+        BitSet ret = new BitSet(size);
+        for (int row = 0; row < size; row++)
+            if (timestamps[row] >= from && timestamps[row] <= to)
+                ret.set(row);
+        return ret;
+    }
+
+    /**
+     *  Counts the selected rows by their value in the given column.
+     *  @param column a column
+     *  @param rows the rows to count
+     *  @return a map: value &#8594; count, sorted by value
+     */
+    public Map<String, Long> countBy(Column column, BitSet rows)
+    {
+        return countBy(column, rows, UnaryOperator.identity());
+    }
+
+    /**
+     *  Counts the selected rows by a key derived from their value in the given
+     *  column, for instance a normalized or classified reason. The key
+     *  function is evaluated once per distinct value.
+     *  @param column a column
+     *  @param rows the rows to count
+     *  @param key computes the key to count a value under, or null to not
+     *  count it
+     *  @return a map: key &#8594; count, sorted by key
+     */
+    public Map<String, Long> countBy(Column column, BitSet rows, Function<String, String> key)
+    {
+        int c = column.ordinal();
+        int[] ids = columns[c];
+        long[] counts = new long[dictionaries[c].size()];
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1))
+            if (ids[row] >= 0)
+                counts[ids[row]]++;
+        Map<String, Long> ret = new TreeMap<>();
+        for (int id = 0; id < counts.length; id++)
+        {
+            if (counts[id] == 0)
+                continue;
+            String k = key.apply(dictionaries[c].title(id));
+            if (k != null)
+                ret.merge(k, counts[id], Long::sum);
+        }
+        return ret;
+    }
+
+    /**
+     *  Counts the selected rows by day or week (UTC). Weeks start on Monday.
+     *  Periods without any rows between the first and last are included with
+     *  a count of zero.
+     *  @param rows the rows to count
+     *  @param unit {@link ChronoUnit#DAYS} or {@link ChronoUnit#WEEKS}
+     *  @return a map: first day of period &#8594; count
+     *  @throws IllegalArgumentException if the unit is not supported
+     */
+    public SortedMap<LocalDate, Long> countByTime(BitSet rows, ChronoUnit unit)
+    {
+        int length = switch (unit)
+        {
+            case DAYS -> 1;
+            case WEEKS -> 7;
+            default -> throw new IllegalArgumentException("Unsupported time unit: " + unit);
+        };
+        // 1970-01-01 was a Thursday, so Monday based weeks start 3 days before
+        int offset = length == 7 ? 3 : 0;
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1))
+        {
+            min = Math.min(min, timestamps[row]);
+            max = Math.max(max, timestamps[row]);
+        }
+        SortedMap<LocalDate, Long> ret = new TreeMap<>();
+        if (min > max)
+            return ret;
+        long first = Math.floorDiv(Math.floorDiv(min, 86400) + offset, length);
+        long last = Math.floorDiv(Math.floorDiv(max, 86400) + offset, length);
+        long[] counts = new long[Math.toIntExact(last - first + 1)];
+        for (int row = rows.nextSetBit(0); row >= 0 && row < size; row = rows.nextSetBit(row + 1))
+            counts[(int)(Math.floorDiv(Math.floorDiv(timestamps[row], 86400) + offset, length) - first)]++;
+        for (int i = 0; i < counts.length; i++)
+            ret.put(LocalDate.ofEpochDay((first + i) * length - offset), counts[i]);
+        return ret;
+    }
+
+    /**
+     *  Returns the namespace of each distinct title.
+     */
+    private synchronized int[] namespaces()
+    {
+        TitleDictionary titles = dictionaries[Column.TITLE.ordinal()];
+        if (namespaces == null)
+        {
+            int[] temp = new int[titles.size()];
+            for (int id = 0; id < temp.length; id++)
+                temp[id] = wiki.namespace(titles.title(id));
+            namespaces = temp;
+        }
+        return namespaces;
+    }
+}
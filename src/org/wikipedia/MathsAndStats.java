@@ -200,38 +200,175 @@ public class MathsAndStats
      *  Computes the Levenshtein distance between the two supplied Strings.
      *  The Levenshtein distance is the number of single-character edits - 
      *  insertions, deletions or substitutions - required to transform one
-     *  String to another.
+     *  String to another. If the shorter String has no more than 64 
+     *  characters, this uses Myers' bit-parallel algorithm which takes time
+     *  proportional to the length of the longer String. Otherwise memory use
+     *  is proportional to the length of the shorter String.
+     * 
      *  @param a a String (must not be null)
      *  @param b another String (must not be null)
      *  @return (see above)
+     *  @see #levenshteinDistance(String, String, int)
      */
     public static int levenshteinDistance(String a, String b)
+    {
+        return levenshteinDistance(a, b, Math.max(a.length(), b.length()));
+    }
+    
+    /**
+     *  Computes the Levenshtein distance between the two supplied Strings if
+     *  it does not exceed <var>max</var>. This is faster than {@link 
+     *  #levenshteinDistance(String, String)} when looking for near matches, 
+     *  as the computation stops as soon as the distance is known to exceed 
+     *  <var>max</var>.
+     * 
+     *  @param a a String (must not be null)
+     *  @param b another String (must not be null)
+     *  @param max the largest distance of interest
+     *  @return the Levenshtein distance, or {@code max + 1} if it exceeds
+     *  <var>max</var>
+     *  @throws IllegalArgumentException if {@code max < 0}
+     */
+    public static int levenshteinDistance(String a, String b, int max)
     {
         Objects.requireNonNull(a);
         Objects.requireNonNull(b);
-        if (a.isEmpty())
-            return b.length();
-        if (b.isEmpty())
-            return a.length();
+        if (max < 0)
+            throw new IllegalArgumentException("Maximum distance must be non-negative.");
+        String shorter = a.length() <= b.length() ? a : b;
+        String longer = shorter == a ? b : a;
+        if (longer.length() - shorter.length() > max)
+            return max + 1;
+        if (shorter.isEmpty())
+            return longer.length();
+        if (shorter.length() <= 64)
+            return new BitParallelLevenshtein(shorter).distance(longer, max);
         
         // https://en.wikipedia.org/w/index.php?title=Wagner%E2%80%93Fischer_algorithm&oldid=904154368
-        int length_a = a.length();
-        int length_b = b.length();
+        // with two rows and only the cells within max of the diagonal
+        int n = shorter.length();
+        int m = longer.length();
+        int inf = max + 1;
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int i = 0; i <= n; i++)
+            previous[i] = Math.min(i, inf);
+        for (int j = 1; j <= m; j++)
+        {
+            int lo = Math.max(1, j - max);
+            int hi = Math.min(n, j + max);
+            current[lo - 1] = lo == 1 ? Math.min(j, inf) : inf;
+            int rowmin = current[lo - 1];
+            char c = longer.charAt(j - 1);
+            for (int i = lo; i <= hi; i++)
+            {
+                int cost = shorter.charAt(i - 1) == c ? 0 : 1;
+                int value = Math.min(Math.min(previous[i] + 1, current[i - 1] + 1), previous[i - 1] + cost);
+                current[i] = Math.min(value, inf);
+                rowmin = Math.min(rowmin, current[i]);
+            }
+            if (hi < n)
+                current[hi + 1] = inf;
+            if (rowmin > max)
+                return inf;
+            int[] temp = previous;
+            previous = current;
+            current = temp;
+        }
+        return previous[n];
+    }
+    
+    /**
+     *  Myers' bit-parallel algorithm for the Levenshtein distance between a 
+     *  fixed String of up to 64 characters and other Strings, in the 
+     *  formulation of Hyyr&ouml;, "Explaining and extending the bit-parallel 
+     *  approximate string matching algorithm of Myers" (2001). Reusing an
+     *  instance for the same String amortizes the preprocessing.
+     */
+    static final class BitParallelLevenshtein
+    {
+        private final int length;
+        private final long last;
+        // match masks for ASCII characters and for the rest, sorted
+        private final long[] ascii = new long[128];
+        private final char[] others;
+        private final long[] othermasks;
         
-        int[][] matrix = new int[length_a + 1][length_b + 1];
-        for (int i = 0; i <= length_a; i++)
-            matrix[i][0] = i;
-        for (int j = 0; j <= length_b; j++)
-            matrix[0][j] = j;
+        /**
+         *  Preprocesses the given String.
+         *  @param pattern a String of at most 64 characters
+         *  @throws IllegalArgumentException if the String is longer than
+         *  that or empty
+         */
+        BitParallelLevenshtein(String pattern)
+        {
+            length = pattern.length();
+            if (length < 1 || length > 64)
+                throw new IllegalArgumentException("Pattern must have 1 to 64 characters.");
+            last = 1L << (length - 1);
+            TreeMap<Character, Long> temp = new TreeMap<>();
+            for (int i = 0; i < length; i++)
+            {
+                char c = pattern.charAt(i);
+                if (c < 128)
+                    ascii[c] |= 1L << i;
+                else
+                    temp.merge(c, 1L << i, (x, y) -> x | y);
+            }
+            others = new char[temp.size()];
+            othermasks = new long[temp.size()];
+            int i = 0;
+            for (var entry : temp.entrySet())
+            {
+                others[i] = entry.getKey();
+                othermasks[i++] = entry.getValue();
+            }
+        }
         
-        for (int j = 1; j <= length_b; j++)
+        /**
+         *  Computes the Levenshtein distance between the preprocessed String
+         *  and the given String if it does not exceed <var>max</var>.
+         *  @param text a String
+         *  @param max the largest distance of interest
+         *  @return the Levenshtein distance, or {@code max + 1} if it exceeds
+         *  <var>max</var>
+         */
+        int distance(String text, int max)
         {
-            for (int i = 1; i <= length_a; i++)
+            int n = text.length();
+            if (Math.abs(n - length) > max)
+                return max + 1;
+            long pv = -1L, mv = 0L;
+            int score = length;
+            for (int j = 0; j < n; j++)
             {
-                int cost = a.charAt(i-1) == b.charAt(j-1) ? 0 : 1;
-                matrix[i][j] = Math.min(Math.min(matrix[i-1][j] + 1, matrix[i][j-1] + 1), matrix[i-1][j-1] + cost);
+                char c = text.charAt(j);
+                long eq;
+                if (c < 128)
+                    eq = ascii[c];
+                else
+                {
+                    int index = Arrays.binarySearch(others, c);
+                    eq = index < 0 ? 0L : othermasks[index];
+                }
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & last) != 0)
+                    score++;
+                else if ((mh & last) != 0)
+                    score--;
+                // each remaining character can reduce the distance by one
+                // at most
+                if (score - (n - j - 1) > max)
+                    return max + 1;
+                ph = (ph << 1) | 1L;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
             }
+            return Math.min(score, max + 1);
         }
-        return matrix[length_a - 1][length_b - 1];
     }
 }
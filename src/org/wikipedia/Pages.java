@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.*;
 import java.util.regex.*;
+import java.util.stream.*;
 
 /**
  *  Utility methods for lists of wiki pages.
@@ -203,34 +204,51 @@ public class Pages
             throw new IllegalArgumentException("There must be at least one page per section.");
         if (pages.isEmpty())
             return Collections.EMPTY_LIST;
-        
-        List<String> ret = new ArrayList<>();
-        StringBuilder out = new StringBuilder(10000);
-        int max = pages.size();
-        int counter = 1;
-        for (String page : pages)
+        return toWikitextPaginatedStream(pages, generator, paginator, pagespersegment, numbered)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+    
+    /**
+     *  Does the same thing as {@link #toWikitextPaginatedList(Collection, 
+     *  Function, BiFunction, int, boolean)}, but generates each segment only 
+     *  when it is needed so that large lists need not be held in memory all at
+     *  once.
+     * 
+     *  @param pages a list of page titles
+     *  @param generator a generator of wikitext given a particular title
+     *  @param paginator a function that takes the index of the first and last
+     *  pages and returns a String to be inserted into the wikitext before the 
+     *  first article
+     *  @param pagespersegment how many pages between instances of the paginator
+     *  text
+     *  @param numbered whether this is a numbered list
+     *  @throws IllegalArgumentException if there is less than one page per insertion
+     *  @return the list of pages, broken up into chunks of pagespersection
+     *  @since ContributionSurveyor 0.10
+     */
+    public static Stream<String> toWikitextPaginatedStream(Collection<String> pages, Function<String, String> generator, 
+        BiFunction<Integer, Integer, String> paginator, int pagespersegment, boolean numbered)
+    {
+        if (pagespersegment < 1)
+            throw new IllegalArgumentException("There must be at least one page per section.");
+        List<String> list = pages instanceof List<String> temp ? temp : new ArrayList<>(pages);
+        int max = list.size();
+        return IntStream.range(0, (max + pagespersegment - 1) / pagespersegment).mapToObj(segment ->
         {
-            // output page header
-            if (counter % pagespersegment == 1)
+            StringBuilder out = new StringBuilder(10000);
+            int start = segment * pagespersegment + 1;
+            int end = Math.min(max, start + pagespersegment - 1);
+            out.append(paginator.apply(start, end));
+            out.append("\n");
+            for (String page : list.subList(start - 1, end))
             {
-                if (counter != 1)
-                {
-                    out.append("\n");
-                    ret.add(out.toString());
-                    out.setLength(0);
-                }
-                int sectionmax = Math.min(max, counter + pagespersegment - 1);
-                out.append(paginator.apply(counter, sectionmax));
+                out.append(numbered ? "#" : "*");
+                out.append(generator.apply(page));
                 out.append("\n");
             }
-            out.append(numbered ? "#" : "*");
-            out.append(generator.apply(page));
             out.append("\n");
-            counter++;
-        }
-        out.append("\n");
-        ret.add(out.toString());
-        return ret;
+            return out.toString();
+        });
     }
 
     /**
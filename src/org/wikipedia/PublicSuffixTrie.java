@@ -0,0 +1,237 @@
+/**
+ *  @(#)PublicSuffixTrie.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.util.*;
+
+/**
+ *  A compact trie of public suffixes (e.g. "com", "co.uk", "github.io")
+ *  used to determine the registrable domain of a host name, that is the
+ *  public suffix plus one label. Lookups walk the host name from right to
+ *  left in place and do not allocate.
+ *
+ *  <p>
+ *  The embedded rule set is a subset of the <a href="https://publicsuffix.org">
+ *  Public Suffix List</a> covering the second level domains and hosting
+ *  providers most commonly seen in external links on Wikimedia projects. Any
+ *  top level domain is implicitly a public suffix. Rules use the same syntax
+ *  as the Public Suffix List, i.e. wildcards (*.ck) and exceptions (!www.ck)
+ *  are supported.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ *  @see ExternalLinks#extractRegistrableDomain(String)
+ */
+class PublicSuffixTrie
+{
+    private static final String RULES = """
+        ac.uk co.uk gov.uk ltd.uk me.uk net.uk nhs.uk org.uk plc.uk police.uk sch.uk
+        asn.au com.au edu.au gov.au id.au net.au org.au
+        ac.nz co.nz geek.nz govt.nz net.nz org.nz school.nz
+        ac.jp co.jp go.jp ne.jp or.jp *.kawasaki.jp !city.kawasaki.jp
+        ac.in co.in edu.in firm.in gen.in gov.in ind.in net.in org.in
+        com.br edu.br gov.br net.br org.br
+        ac.za co.za gov.za org.za web.za
+        com.cn edu.cn gov.cn net.cn org.cn
+        com.hk edu.hk gov.hk org.hk com.tw edu.tw org.tw
+        com.sg edu.sg gov.sg com.my edu.my com.ph com.pk com.bd *.ck !www.ck
+        ac.id co.id or.id ac.th co.th go.th or.th com.vn
+        ac.kr co.kr go.kr or.kr ac.il co.il org.il
+        com.ng com.gh co.ke or.ke co.tz co.ug com.eg com.sa com.ae com.qa com.kw
+        com.mx org.mx com.ar com.co com.pe com.ve com.ec com.uy
+        com.tr org.tr com.ua org.ua co.ua com.pl net.pl org.pl com.ru msk.ru spb.ru
+        co.at or.at com.es org.es com.gr com.cy com.mt
+        appspot.com blogspot.com herokuapp.com github.io gitlab.io netlify.app
+        pages.dev vercel.app web.app firebaseapp.com azurewebsites.net cloudfront.net
+        s3.amazonaws.com wixsite.com neocities.org
+        """;
+
+    private static final PublicSuffixTrie INSTANCE = new PublicSuffixTrie(RULES.split("\\s+"));
+
+    private final Node root = new Node();
+
+    /**
+     *  A node of the trie. Children are held in parallel arrays sorted by
+     *  label so they can be binary searched against a region of a host name.
+     */
+    private static class Node
+    {
+        private String[] labels = new String[0];
+        private Node[] children = new Node[0];
+        private boolean terminal, wildcard, exception;
+
+        private Node child(CharSequence host, int start, int end)
+        {
+            int lo = 0, hi = labels.length - 1;
+            while (lo <= hi)
+            {
+                int mid = (lo + hi) >>> 1;
+                int cmp = compare(labels[mid], host, start, end);
+                if (cmp < 0)
+                    lo = mid + 1;
+                else if (cmp > 0)
+                    hi = mid - 1;
+                else
+                    return children[mid];
+            }
+            return null;
+        }
+
+        private Node addChild(String label)
+        {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0)
+                return children[index];
+            index = -index - 1;
+            Node child = new Node();
+            String[] newlabels = new String[labels.length + 1];
+            Node[] newchildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newlabels, 0, index);
+            System.arraycopy(children, 0, newchildren, 0, index);
+            newlabels[index] = label;
+            newchildren[index] = child;
+            System.arraycopy(labels, index, newlabels, index + 1, labels.length - index);
+            System.arraycopy(children, index, newchildren, index + 1, children.length - index);
+            labels = newlabels;
+            children = newchildren;
+            return child;
+        }
+    }
+
+    /**
+     *  Creates a new trie from the given rules.
+     *  @param rules a list of rules in Public Suffix List syntax
+     */
+    PublicSuffixTrie(String... rules)
+    {
+        for (String rule : rules)
+        {
+            if (rule.isEmpty())
+                continue;
+            boolean exception = rule.startsWith("!");
+            String[] labels = (exception ? rule.substring(1) : rule).toLowerCase(Locale.ROOT).split("\\.");
+            Node node = root;
+            for (int i = labels.length - 1; i >= 0; i--)
+            {
+                if (i == 0 && labels[i].equals("*"))
+                {
+                    node.wildcard = true;
+                    break;
+                }
+                node = node.addChild(labels[i]);
+                if (i == 0)
+                {
+                    node.terminal = !exception;
+                    node.exception = exception;
+                }
+            }
+        }
+    }
+
+    /**
+     *  Returns the shared instance of this class, which contains the embedded
+     *  rule set.
+     *  @return (see above)
+     */
+    static PublicSuffixTrie instance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     *  Determines where the registrable domain of the host name contained in
+     *  {@code host[start, end)} begins. If the host is itself a public suffix
+     *  (or has only one label), <var>start</var> is returned.
+     *
+     *  @param host a character sequence containing a lower or mixed case host
+     *  name without a trailing dot
+     *  @param start the index of the first character of the host name
+     *  @param end the index after the last character of the host name
+     *  @return the index of the first character of the registrable domain
+     */
+    int registrableDomainStart(CharSequence host, int start, int end)
+    {
+        // default rule "*": every TLD is a public suffix
+        int suffixlabels = 1;
+        int depth = 0;
+        Node node = root;
+        int labelend = end;
+        while (node != null && labelend > start)
+        {
+            int labelstart = lastIndexOf(host, '.', start, labelend) + 1;
+            depth++;
+            if (node.wildcard)
+                suffixlabels = Math.max(suffixlabels, depth);
+            node = node.child(host, labelstart, labelend);
+            if (node != null)
+            {
+                if (node.exception)
+                {
+                    suffixlabels = depth - 1;
+                    break;
+                }
+                if (node.terminal)
+                    suffixlabels = Math.max(suffixlabels, depth);
+            }
+            labelend = labelstart - 1;
+        }
+
+        // the registrable domain starts after the (suffixlabels + 1)th dot
+        // from the right
+        int index = end;
+        for (int i = 0; i <= suffixlabels; i++)
+        {
+            index = lastIndexOf(host, '.', start, index);
+            if (index < start)
+                return start;
+        }
+        return index + 1;
+    }
+
+    /**
+     *  Returns the index of the last occurrence of <var>c</var> in {@code
+     *  s[start, end)} or {@code start - 1} if not found.
+     */
+    private static int lastIndexOf(CharSequence s, char c, int start, int end)
+    {
+        for (int i = end - 1; i >= start; i--)
+            if (s.charAt(i) == c)
+                return i;
+        return start - 1;
+    }
+
+    /**
+     *  Compares a trie label with a region of a host name, ignoring the case
+     *  of the host name.
+     */
+    private static int compare(String label, CharSequence host, int start, int end)
+    {
+        int len1 = label.length(), len2 = end - start;
+        int min = Math.min(len1, len2);
+        for (int i = 0; i < min; i++)
+        {
+            char c1 = label.charAt(i);
+            char c2 = Character.toLowerCase(host.charAt(start + i));
+            if (c1 != c2)
+                return c1 - c2;
+        }
+        return len1 - len2;
+    }
+}
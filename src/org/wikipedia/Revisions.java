@@ -60,30 +60,130 @@ public class Revisions
      * 
      *  @param revisions the revisions to remove reverts from
      *  @return a copy of the list of revisions with reverts removed
+     *  @see #removeReverts(Stream)
      */
     public static List<Wiki.Revision> removeReverts(List<Wiki.Revision> revisions)
     {
-        // Group revisions by page, then sort so that the oldest edits are first.
-        Map<String, Set<Wiki.Revision>> stuff = revisions.stream()
-            .collect(Collectors.groupingBy(Wiki.Revision::getTitle, Collectors.toCollection(TreeSet::new)));
-        Set<Wiki.Revision> ret = new LinkedHashSet<>();
-        stuff.forEach((page, listofrevisions) ->
+        Wiki.Revision[] sorted = revisions.toArray(Wiki.Revision[]::new);
+        Arrays.sort(sorted, Comparator.comparing(Wiki.Revision::getTimestamp).thenComparingLong(Wiki.Revision::getID));
+        // duplicates are now adjacent
+        Stream<Wiki.Revision> unique = IntStream.range(0, sorted.length)
+            .filter(i -> i == 0 || !sorted[i].equals(sorted[i - 1]))
+            .mapToObj(i -> sorted[i]);
+        return removeReverts(unique).collect(Collectors.toCollection(ArrayList::new));
+    }
+    
+    /**
+     *  Removes reverts (as defined in {@link #removeReverts(List)}) from a 
+     *  stream of revisions in a single pass. The revisions of each page must 
+     *  be in chronological order with the earliest revision first, e.g. a page
+     *  history fetched in reverse or {@link List#reversed() reversed}, but 
+     *  revisions of different pages may be interleaved. The returned stream is 
+     *  lazy and sequential; only the SHA-1s of revisions already seen are 
+     *  kept, at 20 bytes each. Revisions with no or deleted SHA-1 are never
+     *  reverts.
+     * 
+     *  @param revisions the revisions to remove reverts from
+     *  @return a stream of those revisions with reverts removed
+     */
+    public static Stream<Wiki.Revision> removeReverts(Stream<Wiki.Revision> revisions)
+    {
+        Map<String, HashSet160> seen = new HashMap<>();
+        return revisions.sequential().filter(revision ->
+        {
+            String sha1 = revision.getSha1();
+            if (sha1 == null || sha1.equals(Wiki.Event.CONTENT_DELETED))
+                return true;
+            return seen.computeIfAbsent(revision.getTitle(), title -> new HashSet160()).add(sha1);
+        });
+    }
+    
+    /**
+     *  A set of SHA-1s stored as open addressing hash table of 160-bit values.
+     *  Anything that isn't a 40 digit hexadecimal number goes into a regular
+     *  set.
+     */
+    private static class HashSet160
+    {
+        private long[] high = new long[4], middle = new long[4];
+        private int[] low = new int[4];
+        private boolean[] used = new boolean[4];
+        private int size;
+        private Set<String> other;
+        
+        /**
+         *  Adds a SHA-1 to this set and returns whether it was not already 
+         *  present.
+         */
+        private boolean add(String sha1)
         {
-            // Therefore, if a sha1 matches any previous revisions it is a revert.
-            Set<String> hashes = new HashSet<>();
-            Iterator<Wiki.Revision> iter = listofrevisions.iterator();
-            while (iter.hasNext())
+            long h, m;
+            int l;
+            try
             {
-                String sha1 = iter.next().getSha1();
-                if (sha1 == null || sha1.equals(Wiki.Event.CONTENT_DELETED))
+                if (sha1.length() != 40)
+                    throw new NumberFormatException();
+                h = Long.parseUnsignedLong(sha1, 0, 16, 16);
+                m = Long.parseUnsignedLong(sha1, 16, 32, 16);
+                l = Integer.parseUnsignedInt(sha1, 32, 40, 16);
+            }
+            catch (NumberFormatException ex)
+            {
+                if (other == null)
+                    other = new HashSet<>();
+                return other.add(sha1);
+            }
+            
+            int mask = used.length - 1;
+            int slot = slot(h, m, l) & mask;
+            while (used[slot])
+            {
+                if (high[slot] == h && middle[slot] == m && low[slot] == l)
+                    return false;
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            high[slot] = h;
+            middle[slot] = m;
+            low[slot] = l;
+            if (2 * ++size > used.length)
+                resize();
+            return true;
+        }
+        
+        private void resize()
+        {
+            long[] oldhigh = high, oldmiddle = middle;
+            int[] oldlow = low;
+            boolean[] oldused = used;
+            int capacity = 2 * used.length, mask = capacity - 1;
+            high = new long[capacity];
+            middle = new long[capacity];
+            low = new int[capacity];
+            used = new boolean[capacity];
+            for (int i = 0; i < oldused.length; i++)
+            {
+                if (!oldused[i])
                     continue;
-                if (hashes.contains(sha1))
-                    iter.remove();
-                hashes.add(sha1);
+                int slot = slot(oldhigh[i], oldmiddle[i], oldlow[i]) & mask;
+                while (used[slot])
+                    slot = (slot + 1) & mask;
+                used[slot] = true;
+                high[slot] = oldhigh[i];
+                middle[slot] = oldmiddle[i];
+                low[slot] = oldlow[i];
             }
-            ret.addAll(listofrevisions);
-        });
-        return new ArrayList<>(ret);
+        }
+        
+        /**
+         *  Mixes all the bits, as the SHA-1s might not have been produced by a
+         *  real hash function.
+         */
+        private static int slot(long high, long middle, int low)
+        {
+            int hash = (Long.hashCode(high ^ middle) ^ low) * 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
     }
     
     /**
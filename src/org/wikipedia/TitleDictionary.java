@@ -0,0 +1,193 @@
+/**
+ *  @(#)TitleDictionary.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.util.*;
+
+/**
+ *  An append-only table that assigns each distinct page title a small
+ *  integer id, so that lists of titles can be stored as arrays of ids (see
+ *  {@link TitleSet}) and each title is held in memory only once no matter
+ *  how many lists it appears in. Ids are assigned consecutively from zero in
+ *  the order titles are first seen.
+ *
+ *  <p>
+ *  Titles are never removed from a table, so create one per task (e.g. per
+ *  request in a servlet) and discard it when done. This class is thread 
+ *  safe; {@link #lookup(String)} and {@link #title(int)} do not lock.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class TitleDictionary
+{
+    // id -> title; elements are never modified once written and the array is
+    // only replaced by a larger copy, so it can be read without locking
+    private volatile String[] titles = new String[1024];
+    private int size;
+    // open addressing hash table of id + 1 (0 = empty slot); slots are only
+    // ever filled in and the array is only replaced by a fully built larger
+    // copy, so it can be read without locking
+    private volatile int[] table = new int[2048];
+
+    /**
+     *  Creates a new, empty dictionary.
+     */
+    public TitleDictionary()
+    {
+    }
+
+    /**
+     *  Returns the id of the given title, assigning a new one if the title
+     *  has not been seen before.
+     *  @param title a page title (must not be null)
+     *  @return the id of that title
+     */
+    public synchronized int intern(String title)
+    {
+        int slot = slot(title);
+        if (table[slot] != 0)
+            return table[slot] - 1;
+        return add(title, slot);
+    }
+
+    /**
+     *  Returns the ids of the given titles, assigning new ones to titles that
+     *  have not been seen before. This is faster than calling {@link
+     *  #intern(String)} repeatedly.
+     *  @param titles some page titles (must not contain null)
+     *  @return the ids of those titles, in the same order
+     */
+    public synchronized int[] intern(Collection<String> titles)
+    {
+        int[] ret = new int[titles.size()];
+        int i = 0;
+        for (String title : titles)
+        {
+            int slot = slot(title);
+            ret[i++] = table[slot] != 0 ? table[slot] - 1 : add(title, slot);
+        }
+        return ret;
+    }
+
+    /**
+     *  Returns the id of the given title without assigning one.
+     *  @param title a page title
+     *  @return the id of that title, or -1 if it has not been seen before
+     */
+    public int lookup(String title)
+    {
+        if (title == null)
+            return -1;
+        int[] temptable = table;
+        String[] temptitles = titles;
+        int mask = temptable.length - 1;
+        for (int slot = hash(title) & mask; ; slot = (slot + 1) & mask)
+        {
+            int id = temptable[slot] - 1;
+            if (id < 0)
+                return -1;
+            // the slot may become visible before the title it refers to
+            if (id >= temptitles.length || temptitles[id] == null)
+            {
+                synchronized (this)
+                {
+                    return table[slot(title)] - 1;
+                }
+            }
+            if (temptitles[id].equals(title))
+                return id;
+        }
+    }
+
+    /**
+     *  Returns the title with the given id.
+     *  @param id an id returned by this dictionary
+     *  @return the title with that id
+     *  @throws ArrayIndexOutOfBoundsException if the id was not returned by
+     *  this dictionary
+     */
+    public String title(int id)
+    {
+        String title = titles[id];
+        if (title == null)
+            throw new ArrayIndexOutOfBoundsException(id);
+        return title;
+    }
+
+    /**
+     *  Returns the number of titles in this dictionary.
+     *  @return (see above)
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     *  Returns the slot in the hash table that contains or should contain
+     *  the given title.
+     */
+    private int slot(String title)
+    {
+        int mask = table.length - 1;
+        String[] temp = titles;
+        for (int slot = hash(title) & mask; ; slot = (slot + 1) & mask)
+            if (table[slot] == 0 || temp[table[slot] - 1].equals(title))
+                return slot;
+    }
+
+    /**
+     *  Assigns an id to a new title that belongs in the given (empty) slot.
+     */
+    private int add(String title, int slot)
+    {
+        int id = size;
+        String[] temp = titles;
+        if (id == temp.length)
+            temp = Arrays.copyOf(temp, 2 * id);
+        temp[id] = title;
+        titles = temp;
+        table[slot] = id + 1;
+        size++;
+
+        // keep the load factor below one half
+        if (2 * size > table.length)
+        {
+            int[] newtable = new int[2 * table.length];
+            int mask = newtable.length - 1;
+            for (int i = 0; i < size; i++)
+            {
+                int s = hash(temp[i]) & mask;
+                while (newtable[s] != 0)
+                    s = (s + 1) & mask;
+                newtable[s] = i + 1;
+            }
+            table = newtable;
+        }
+        return id;
+    }
+
+    private static int hash(String title)
+    {
+        int hash = title.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
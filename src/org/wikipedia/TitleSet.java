@@ -0,0 +1,343 @@
+/**
+ *  @(#)TitleSet.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia;
+
+import java.util.*;
+
+/**
+ *  An immutable set of page titles stored compactly as a sorted array of
+ *  {@linkplain TitleDictionary dictionary} ids, i.e. four bytes per title
+ *  plus the title itself once per dictionary. Sets that share a dictionary
+ *  can be combined quickly without looking at the titles at all. Examples
+ *  from the English Wikipedia:
+ *
+ *  <pre>{@code
+ *  TitleDictionary dictionary = new TitleDictionary();
+ *  TitleSet living = TitleSet.of(dictionary, enWiki.getCategoryMembers("Living people", Wiki.MAIN_NAMESPACE));
+ *  TitleSet linked = TitleSet.of(dictionary, enWiki.whatLinksHere(List.of("Barack Obama"), false, false, Wiki.MAIN_NAMESPACE).get(0));
+ *  for (String person : living.intersection(linked))
+ *      System.out.println(person);
+ *  }</pre>
+ *
+ *  <p>
+ *  Titles are iterated over in order of their ids, i.e. the order in which
+ *  the dictionary first saw them. Instances may be passed to the methods of
+ *  {@link ArrayUtils}, which use the operations of this class when all
+ *  inputs are title sets.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class TitleSet extends AbstractSet<String>
+{
+    private final TitleDictionary dictionary;
+    private final int[] ids;
+
+    private TitleSet(TitleDictionary dictionary, int[] ids)
+    {
+        this.dictionary = dictionary;
+        this.ids = ids;
+    }
+
+    /**
+     *  Creates a set of the given titles using the given dictionary.
+     *  @param dictionary the dictionary to encode titles with
+     *  @param titles some page titles, for instance the output of a list
+     *  method of {@link Wiki} (must not contain null)
+     *  @return (see above)
+     */
+    public static TitleSet of(TitleDictionary dictionary, Collection<String> titles)
+    {
+        int[] ids = dictionary.intern(titles);
+        Arrays.sort(ids);
+        // remove duplicates
+        int size = 0;
+        for (int i = 0; i < ids.length; i++)
+            if (size == 0 || ids[size - 1] != ids[i])
+                ids[size++] = ids[i];
+        return new TitleSet(dictionary, size == ids.length ? ids : Arrays.copyOf(ids, size));
+    }
+
+    /**
+     *  Returns the dictionary that the titles in this set are encoded with.
+     *  @return (see above)
+     */
+    public TitleDictionary getDictionary()
+    {
+        return dictionary;
+    }
+
+    /**
+     *  Returns the number of titles in this set.
+     *  @return (see above)
+     */
+    @Override
+    public int size()
+    {
+        return ids.length;
+    }
+
+    /**
+     *  Returns whether this set contains the given title.
+     *  @param o a page title
+     *  @return (see above)
+     */
+    @Override
+    public boolean contains(Object o)
+    {
+        if (!(o instanceof String title))
+            return false;
+        int id = dictionary.lookup(title);
+        return id >= 0 && Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     *  Returns an iterator over the titles in this set, in order of their ids.
+     *  @return (see above)
+     */
+    @Override
+    public Iterator<String> iterator()
+    {
+        return new Iterator<>()
+        {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return index < ids.length;
+            }
+
+            @Override
+            public String next()
+            {
+                if (index >= ids.length)
+                    throw new NoSuchElementException();
+                return dictionary.title(ids[index++]);
+            }
+        };
+    }
+
+    /**
+     *  Returns the titles that are in this set and every one of the others.
+     *  @param others some other sets that share this set's dictionary
+     *  @return the intersection
+     *  @throws IllegalArgumentException if any set has a different dictionary
+     */
+    public TitleSet intersection(TitleSet... others)
+    {
+        int[] ret = ids;
+        for (TitleSet other : sorted(others))
+        {
+            checkDictionary(other);
+            ret = intersect(ret, other.ids);
+        }
+        return new TitleSet(dictionary, ret);
+    }
+
+    /**
+     *  Returns the titles that are in this set but none of the others.
+     *  @param others some other sets that share this set's dictionary
+     *  @return the relative complement
+     *  @throws IllegalArgumentException if any set has a different dictionary
+     */
+    public TitleSet relativeComplement(TitleSet... others)
+    {
+        int[] ret = ids;
+        for (TitleSet other : others)
+        {
+            checkDictionary(other);
+            ret = subtract(ret, other.ids);
+        }
+        return new TitleSet(dictionary, ret);
+    }
+
+    /**
+     *  Returns the titles that are in this set or any of the others.
+     *  @param others some other sets that share this set's dictionary
+     *  @return the union
+     *  @throws IllegalArgumentException if any set has a different dictionary
+     */
+    public TitleSet union(TitleSet... others)
+    {
+        int[] ret = ids;
+        for (TitleSet other : others)
+        {
+            checkDictionary(other);
+            ret = merge(ret, other.ids);
+        }
+        return new TitleSet(dictionary, ret);
+    }
+
+    /**
+     *  Determines whether this set equals another object. This is fast if the
+     *  other object is a title set with the same dictionary.
+     *  @param o another object
+     *  @return (see above)
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        if (o instanceof TitleSet other && other.dictionary == dictionary)
+            return Arrays.equals(ids, other.ids);
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return super.hashCode();
+    }
+
+    private void checkDictionary(TitleSet other)
+    {
+        if (other.dictionary != dictionary)
+            throw new IllegalArgumentException("Title sets must share a dictionary.");
+    }
+
+    /**
+     *  Returns the given sets, smallest first, so that intersections shrink
+     *  as quickly as possible.
+     */
+    private static TitleSet[] sorted(TitleSet[] sets)
+    {
+        TitleSet[] ret = sets.clone();
+        Arrays.sort(ret, Comparator.comparingInt(TitleSet::size));
+        return ret;
+    }
+
+    /**
+     *  Intersects two sorted arrays. If one is much smaller than the other,
+     *  its elements are looked up in the larger one by galloping search.
+     */
+    private static int[] intersect(int[] a, int[] b)
+    {
+        if (a.length > b.length)
+        {
+            int[] temp = a;
+            a = b;
+            b = temp;
+        }
+        int[] ret = new int[a.length];
+        int k = 0;
+        if (a.length * 32L < b.length)
+        {
+            int lo = 0;
+            for (int x : a)
+            {
+                lo = gallop(b, lo, x);
+                if (lo >= b.length)
+                    break;
+                if (b[lo] == x)
+                    ret[k++] = x;
+            }
+        }
+        else
+        {
+            for (int i = 0, j = 0; i < a.length && j < b.length; )
+            {
+                if (a[i] < b[j])
+                    i++;
+                else if (a[i] > b[j])
+                    j++;
+                else
+                {
+                    ret[k++] = a[i++];
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(ret, k);
+    }
+
+    /**
+     *  Returns the elements of sorted array <var>a</var> not in sorted array
+     *  <var>b</var>.
+     */
+    private static int[] subtract(int[] a, int[] b)
+    {
+        int[] ret = new int[a.length];
+        int k = 0;
+        boolean gallop = b.length > a.length * 32L;
+        for (int i = 0, j = 0; i < a.length; i++)
+        {
+            j = gallop ? gallop(b, j, a[i]) : advance(b, j, a[i]);
+            if (j >= b.length || b[j] != a[i])
+                ret[k++] = a[i];
+        }
+        return Arrays.copyOf(ret, k);
+    }
+
+    /**
+     *  Returns the union of two sorted arrays.
+     */
+    private static int[] merge(int[] a, int[] b)
+    {
+        int[] ret = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length)
+        {
+            if (a[i] < b[j])
+                ret[k++] = a[i++];
+            else if (a[i] > b[j])
+                ret[k++] = b[j++];
+            else
+            {
+                ret[k++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length)
+            ret[k++] = a[i++];
+        while (j < b.length)
+            ret[k++] = b[j++];
+        return Arrays.copyOf(ret, k);
+    }
+
+    /**
+     *  Returns the index of the first element of <var>array</var> at or after
+     *  <var>from</var> that is at least <var>x</var>, scanning linearly.
+     */
+    private static int advance(int[] array, int from, int x)
+    {
+        while (from < array.length && array[from] < x)
+            from++;
+        return from;
+    }
+
+    /**
+     *  Returns the index of the first element of <var>array</var> at or after
+     *  <var>from</var> that is at least <var>x</var>, by doubling the step
+     *  size until it is overshot and then binary searching.
+     */
+    private static int gallop(int[] array, int from, int x)
+    {
+        int step = 1, hi = from;
+        while (hi < array.length && array[hi] < x)
+        {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        hi = Math.min(hi + 1, array.length);
+        int index = Arrays.binarySearch(array, from, hi, x);
+        return index >= 0 ? index : -index - 1;
+    }
+}
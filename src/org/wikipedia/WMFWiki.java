@@ -1,5 +1,5 @@
 /**
- *  @(#)WMFWiki.java 0.02 28/08/2021
+ *  @(#)WMFWiki.java 0.03 19/10/2026
  *  Copyright (C) 2011 - 20xx MER-C and contributors
  *
  *  This program is free software; you can redistribute it and/or
@@ -29,7 +29,7 @@ import javax.security.auth.login.*;
 /**
  *  Stuff specific to Wikimedia wikis.
  *  @author MER-C
- *  @version 0.02
+ *  @version 0.03
  */
 public class WMFWiki extends Wiki
 {
@@ -188,8 +188,10 @@ public class WMFWiki extends Wiki
     /**
      *  Renders the ledes of articles (everything in the first section) as plain 
      *  text. Requires extension CirrusSearch. Output order is the same as input
-     *  order, and a missing page will correspond to {@code null}. The returned  
-     *  plain text has the following characteristics:
+     *  order, and a missing page will correspond to {@code null}. The text is
+     *  built from the current revision, so recently created or edited pages 
+     *  are up to date. The returned plain text has the following 
+     *  characteristics:
      *  
      *  <ul>
      *  <li>There are no paragraph breaks or new lines.
@@ -210,28 +212,35 @@ public class WMFWiki extends Wiki
      */
     public List<String> getLedeAsPlainText(SequencedCollection<String> titles) throws IOException
     {
-        requiresExtension("CirrusSearch");
-        Map<String, String> getparams = new HashMap<>();
-        getparams.put("action", "query");
-        getparams.put("prop", "cirrusbuilddoc"); // slightly shorter output than cirrusdoc
-        
-        List<List<String>> temp = makeVectorizedQuery("cb", getparams, titles, 
-            "getLedeAsPlainText", -1, (text, result) -> 
-        {
-            result.add(parseAttribute(text, "opening_text", 0));
-        });
-        // mapping is one to one, so should flatten each entry
-        List<String> ret = new ArrayList<>();
-        for (List<String> item : temp)
-            ret.add(item.get(0));
-        return ret;
+        return getCirrusText(titles, "opening_text", -1, false, "getLedeAsPlainText");
+    }
+    
+    /**
+     *  Renders the ledes of articles as plain text, keeping at most the first 
+     *  <var>maxlength</var> characters of each. Text beyond that is skipped
+     *  without being decoded.
+     *  @param titles a list of pages to get plain text for
+     *  @param maxlength the maximum length of each lede, or -1 for no limit
+     *  @return the first section of those pages, as plain text
+     *  @throws IOException if a network error occurs
+     *  @throws IllegalArgumentException if {@code maxlength < -1}
+     *  @see #getLedeAsPlainText(SequencedCollection)
+     *  @since 0.03
+     */
+    public List<String> getLedeAsPlainText(SequencedCollection<String> titles, int maxlength) throws IOException
+    {
+        return getCirrusText(titles, "opening_text", maxlength, false, "getLedeAsPlainText");
     }
     
     /**
      *  Renders articles as plain text. Requires extension CirrusSearch. Output 
      *  order is the same as input order, and a missing page will correspond to 
-     *  {@code null}.The returned plain text has the following characteristics
-     *  additional to those mentioned in {@link #getLedeAsPlainText(SequencedCollection)}:
+     *  {@code null}. Unlike {@link #getLedeAsPlainText(SequencedCollection)},
+     *  the text comes from the search index, which is much cheaper to fetch 
+     *  but lags behind edits: a page that was created or edited recently may 
+     *  be {@code null} or out of date until it is reindexed. The returned 
+     *  plain text has the following characteristics additional to those 
+     *  mentioned in {@link #getLedeAsPlainText(SequencedCollection)}:
      *  
      *  <ul>
      *  <li>There are no sections or section headers.
@@ -249,23 +258,165 @@ public class WMFWiki extends Wiki
      */
     public List<String> getPlainText(SequencedCollection<String> titles) throws IOException
     {
+        // space is important: not to be confused with "opening_text" etc.
+        return getCirrusText(titles, " text", -1, true, "getPlainText");
+    }
+    
+    /**
+     *  Renders articles as plain text, keeping at most the first 
+     *  <var>maxlength</var> characters of each. Text beyond that is skipped
+     *  without being decoded.
+     *  @param titles a list of pages to get plain text for
+     *  @param maxlength the maximum length of each page's text, or -1 for no
+     *  limit
+     *  @return those pages rendered as plain text
+     *  @throws IOException if a network error occurs
+     *  @throws IllegalArgumentException if {@code maxlength < -1}
+     *  @see #getPlainText(SequencedCollection)
+     *  @since 0.03
+     */
+    public List<String> getPlainText(SequencedCollection<String> titles, int maxlength) throws IOException
+    {
+        return getCirrusText(titles, " text", maxlength, true, "getPlainText");
+    }
+    
+    /**
+     *  Fetches a single field of the CirrusSearch documents of the given pages.
+     *  Batches of titles are fetched concurrently, up to {@link 
+     *  #getMaxConcurrentRequests()} at a time. Each result is decoded in one 
+     *  pass straight out of the API response.
+     *  @param titles a list of pages
+     *  @param attribute the field to fetch, with a leading space if its name 
+     *  is a suffix of another field
+     *  @param maxlength the maximum length of each result, or -1 for no limit
+     *  @param indexed whether to fetch only the requested field from the
+     *  search index (stale for recently edited pages) instead of building
+     *  whole documents from the current revisions
+     *  @param caller the name of the calling method
+     *  @return the field for each page, in the same order as the input, or
+     *  null if the page does not exist
+     *  @throws IOException if a network error occurs
+     */
+    private List<String> getCirrusText(SequencedCollection<String> titles, String attribute, int maxlength, 
+        boolean indexed, String caller) throws IOException
+    {
+        if (maxlength < -1)
+            throw new IllegalArgumentException("Invalid maximum length: " + maxlength);
         requiresExtension("CirrusSearch");
+        boolean resolving = isResolvingRedirects();
         Map<String, String> getparams = new HashMap<>();
         getparams.put("action", "query");
-        getparams.put("prop", "cirrusbuilddoc"); // slightly shorter output than cirrusdoc
+        if (indexed)
+        {
+            getparams.put("prop", "cirrusdoc");
+            getparams.put("cdincludes", attribute.strip());
+        }
+        else
+            getparams.put("prop", "cirrusbuilddoc"); // slightly shorter output than cirrusdoc
         
-        List<List<String>> temp = makeVectorizedQuery("cb", getparams, titles, 
-            "getPlainText", -1, (text, result) -> 
+        String search = attribute + "=\"";
+        List<String> batches = constructTitleString(titles);
+        List<CirrusText> results = ConcurrencyUtils.map(batches, getMaxConcurrentRequests(), batch ->
         {
-            result.add(parseAttribute(text, " text", 0)); // not to be confused with "opening_text" etc.
+            String line = makeApiCall(getparams, Map.of("titles", batch), caller);
+            detectUncheckedErrors(line, null, null);
+            
+            // normalized and redirected titles precede the pages
+            // xml form: <n from="a" to="b" />, <r from="c" to="d" />
+            CirrusText ret = new CirrusText(new HashMap<>(), new HashMap<>(), new HashMap<>());
+            int pages = line.indexOf("<pages>");
+            for (int i = line.indexOf("<n "); i >= 0 && i < pages; i = line.indexOf("<n ", i + 1))
+                ret.normalized().put(parseAttribute(line, "from", i), parseAttribute(line, "to", i));
+            for (int i = line.indexOf("<r "); i >= 0 && i < pages; i = line.indexOf("<r ", i + 1))
+                ret.redirects().put(parseAttribute(line, "from", i), parseAttribute(line, "to", i));
+            
+            // xml form: <page ... title="a"><cirrusdoc><v ...><source opening_text="..." /></v></cirrusdoc></page>
+            // or <page ... title="a"><cirrusbuilddoc ... opening_text="..." ...></page>
+            for (int i = line.indexOf("<page ", pages); i >= 0; )
+            {
+                int next = line.indexOf("<page ", i + 1);
+                int end = next < 0 ? line.length() : next;
+                int a = line.indexOf(search, i);
+                if (a >= 0 && a < end)
+                    ret.text().put(parseAttribute(line, "title", i), decodeAttribute(line, a + search.length(), maxlength));
+                i = next;
+            }
+            return ret;
         });
-        // mapping is one to one, so should flatten each entry
+        
+        CirrusText merged = new CirrusText(new HashMap<>(), new HashMap<>(), new HashMap<>());
+        for (CirrusText result : results)
+        {
+            merged.normalized().putAll(result.normalized());
+            merged.redirects().putAll(result.redirects());
+            merged.text().putAll(result.text());
+        }
         List<String> ret = new ArrayList<>();
-        for (List<String> item : temp)
-            ret.add(item.get(0));
+        for (String title : titles)
+        {
+            if (title == null)
+            {
+                ret.add(null);
+                continue;
+            }
+            title = merged.normalized().getOrDefault(title, title);
+            if (resolving)
+                title = merged.redirects().getOrDefault(title, title);
+            ret.add(merged.text().get(title));
+        }
+        log(Level.INFO, caller, "Successfully retrieved plain text for " + titles.size() + " pages.");
         return ret;
     }
     
+    /**
+     *  Decodes an XML attribute value in one pass, stopping at the closing 
+     *  quote or after <var>maxlength</var> characters of output, whichever 
+     *  comes first. Handles the same entities as {@link #decode(String)}.
+     *  @param xml some XML
+     *  @param start the index of the first character of the attribute value
+     *  @param maxlength the maximum length of the output, or -1 for no limit
+     *  @return the decoded value
+     */
+    private static String decodeAttribute(String xml, int start, int maxlength)
+    {
+        int end = xml.indexOf('"', start);
+        if (maxlength < 0)
+            maxlength = end - start;
+        StringBuilder sb = new StringBuilder(Math.min(maxlength, end - start));
+        for (int i = start; i < end && sb.length() < maxlength; i++)
+        {
+            char c = xml.charAt(i);
+            if (c == '&')
+            {
+                if (xml.startsWith("&lt;", i))
+                    c = '<';
+                else if (xml.startsWith("&gt;", i))
+                    c = '>';
+                else if (xml.startsWith("&quot;", i))
+                    c = '"';
+                else if (xml.startsWith("&#039;", i))
+                    c = '\'';
+                else if (xml.startsWith("&amp;", i))
+                    c = '&';
+                if (c != '&' || xml.startsWith("&amp;", i))
+                    i = xml.indexOf(';', i);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+    
+    /**
+     *  The parsed output of one batch of {@link #getCirrusText(SequencedCollection, 
+     *  String, int, boolean, String)}.
+     *  @param normalized map: title as given &#8594; normalized title
+     *  @param redirects map: redirect &#8594; target
+     *  @param text map: normalized title &#8594; field value
+     */
+    private record CirrusText(Map<String, String> normalized, Map<String, String> redirects, Map<String, String> text)
+    {
+    }
+    
     /**
      *  Patrols or unpatrols new pages using the PageTriage extension. If a page
      *  is not in the queue, then this method adds the page to the PageTriage
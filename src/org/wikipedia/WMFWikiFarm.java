@@ -1,5 +1,5 @@
 /**
- *  @(#)WMFWikiFarm.java 0.01 28/08/2021
+ *  @(#)WMFWikiFarm.java 0.02 19/10/2026
  *  Copyright (C) 2021-20XX MER-C and contributors
  *
  *  This program is free software; you can redistribute it and/or
@@ -20,12 +20,12 @@
 
 package org.wikipedia;
 
-import java.io.IOException;
-import java.time.OffsetDateTime;
+import java.io.*;
+import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 import java.util.logging.*;
-import java.util.stream.*;
 
 /**
  *  Manages shared WMFWiki sessions and contains methods for dealing with WMF
@@ -38,6 +38,38 @@ public class WMFWikiFarm
     private final HashMap<String, WMFWiki> sessions = new HashMap<>();
     private static final WMFWikiFarm SHARED_INSTANCE = new WMFWikiFarm();
     private Consumer<WMFWiki> setupfn;
+    private final Map<String, CachedUserInfo> guicache = new ConcurrentHashMap<>();
+    private Duration guicachettl = Duration.ofMinutes(10);
+    // this object is shared by servlets, so bound the size of the cache
+    private static final int GUICACHE_MAX_SIZE = 10000;
+    
+    /**
+     *  How much global user information to fetch with {@link 
+     *  #getGlobalUserInfo(SequencedCollection, GlobalUserDetail)}. Less 
+     *  information means less data transferred. 
+     *  @since 0.02
+     */
+    public enum GlobalUserDetail
+    {
+        /**
+         *  Home wiki, registration date and lock status only.
+         */
+        LOCK_STATUS,
+        
+        /**
+         *  The above plus the wikis the user has accounts on and edit counts.
+         */
+        WIKIS,
+        
+        /**
+         *  Everything, including global groups and rights.
+         */
+        ALL;
+    }
+    
+    private record CachedUserInfo(Map<String, Object> info, GlobalUserDetail detail, long expiry)
+    {
+    }
     
     /**
      *  List of Wikimedia domains. I am surprised this is not available by some 
@@ -207,14 +239,132 @@ public class WMFWikiFarm
      */
     public Map<String, Object> getGlobalUserInfo(String username) throws IOException
     {
-        // FIXME: throws UnknownError ("invaliduser" if user is an IP or is otherwise invalid
-        // note: lock reason is not available, see https://phabricator.wikimedia.org/T331237
         WMFWiki wiki = sharedSession("meta.wikimedia.org");
         wiki.requiresExtension("CentralAuth");
+        return getGlobalUserInfo(wiki, username, GlobalUserDetail.ALL);
+    }
+    
+    /**
+     *  Fetches global user info for many users at once, with as many requests
+     *  in flight as the shared Meta session {@linkplain 
+     *  Wiki#getMaxConcurrentRequests() permits}. Results are cached for a 
+     *  while (see {@link #setGlobalUserInfoCacheTTL(Duration)}), so repeated 
+     *  lookups of the same users are cheap. Expired results are removed at
+     *  the start of each call and no more than {@value #GUICACHE_MAX_SIZE} 
+     *  are kept. A lookup that fails (e.g. because the username is an IP 
+     *  address) is logged and omitted from the results instead of failing 
+     *  the others.
+     * 
+     *  @param usernames a list of usernames
+     *  @param detail how much information to fetch; {@link 
+     *  GlobalUserDetail#LOCK_STATUS} is enough to find unlocked socks and 
+     *  {@link GlobalUserDetail#WIKIS} to find where they edited
+     *  @return a map: username &#8594; user info as described in {@link 
+     *  #getGlobalUserInfo(String)} (with only those keys that the requested 
+     *  detail covers) or null if the user does not exist, in the same order as
+     *  the input. Users whose lookup failed are absent.
+     *  @throws IOException if a network error occurs and no lookup succeeded
+     *  @since 0.02
+     */
+    public Map<String, Map<String, Object>> getGlobalUserInfo(SequencedCollection<String> usernames, 
+        GlobalUserDetail detail) throws IOException
+    {
+        WMFWiki wiki = sharedSession("meta.wikimedia.org");
+        wiki.requiresExtension("CentralAuth");
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(usernames));
+        sweepGlobalUserInfoCache(GUICACHE_MAX_SIZE - distinct.size());
+        List<Object> results = new ArrayList<>(Collections.nCopies(distinct.size(), null));
+        ConcurrencyUtils.forEach(distinct, wiki.getMaxConcurrentRequests(), username ->
+        {
+            String key = wiki.normalize(username);
+            CachedUserInfo cached = guicache.get(key);
+            if (cached != null && cached.expiry() - System.nanoTime() <= 0)
+                guicache.remove(key, cached);
+            else if (cached != null && cached.detail().compareTo(detail) >= 0)
+                return cached;
+            try
+            {
+                Map<String, Object> info = getGlobalUserInfo(wiki, username, detail);
+                cached = new CachedUserInfo(info, detail, System.nanoTime() + guicachettl.toNanos());
+                if (!guicachettl.isZero())
+                    guicache.put(key, cached);
+                return cached;
+            }
+            catch (IOException | UnknownError ex)
+            {
+                // UnknownError = invalid username, e.g. an IP address
+                wiki.log(Level.WARNING, "WMFWikiFarm.getGlobalUserInfo", "Lookup of " + username + " failed: " + ex);
+                return ex;
+            }
+        }, (index, result) -> results.set(index, result));
+        
+        Map<String, Map<String, Object>> ret = new LinkedHashMap<>();
+        Throwable failure = null;
+        for (int i = 0; i < distinct.size(); i++)
+        {
+            if (results.get(i) instanceof CachedUserInfo cached)
+                ret.put(distinct.get(i), cached.info());
+            else
+                failure = (Throwable)results.get(i);
+        }
+        if (ret.isEmpty() && failure != null)
+        {
+            if (failure instanceof IOException ioe)
+                throw ioe;
+            throw (Error)failure;
+        }
+        return ret;
+    }
+    
+    /**
+     *  Sets how long global user info fetched by {@link 
+     *  #getGlobalUserInfo(SequencedCollection, GlobalUserDetail)} is reused 
+     *  for. The default is ten minutes.
+     *  @param ttl how long to keep results, or {@link Duration#ZERO} to not
+     *  cache them
+     *  @since 0.02
+     */
+    public void setGlobalUserInfoCacheTTL(Duration ttl)
+    {
+        guicachettl = Objects.requireNonNull(ttl);
+        if (ttl.isZero())
+            guicache.clear();
+    }
+    
+    /**
+     *  Removes expired global user info from the cache, then the entries
+     *  closest to expiry until no more than <var>maxsize</var> remain.
+     */
+    private void sweepGlobalUserInfoCache(int maxsize)
+    {
+        long now = System.nanoTime();
+        guicache.values().removeIf(cached -> cached.expiry() - now <= 0);
+        int excess = guicache.size() - Math.max(maxsize, 0);
+        if (excess <= 0)
+            return;
+        guicache.entrySet().stream()
+            .sorted(Comparator.comparingLong(entry -> entry.getValue().expiry() - now))
+            .limit(excess)
+            .toList()
+            .forEach(entry -> guicache.remove(entry.getKey(), entry.getValue()));
+    }
+    
+    /**
+     *  Fetches and parses global user info at the given level of detail.
+     */
+    private Map<String, Object> getGlobalUserInfo(WMFWiki wiki, String username, GlobalUserDetail detail) throws IOException
+    {
+        // FIXME: throws UnknownError ("invaliduser" if user is an IP or is otherwise invalid
+        // note: lock reason is not available, see https://phabricator.wikimedia.org/T331237
         Map<String, String> getparams = new HashMap<>();
         getparams.put("action", "query");
         getparams.put("meta", "globaluserinfo");
-        getparams.put("guiprop", "groups|merged|unattached|rights");
+        switch (detail)
+        {
+            case WIKIS -> getparams.put("guiprop", "merged");
+            case ALL -> getparams.put("guiprop", "groups|merged|unattached|rights");
+            default -> {} // home, registration and locked are always returned
+        }
         getparams.put("guiuser", wiki.normalize(username));
         String line = wiki.makeApiCall(getparams, null, "WMFWiki.getGlobalUserInfo");
         wiki.detectUncheckedErrors(line, null, null);
@@ -227,33 +377,38 @@ public class WMFWikiFarm
         String registrationdate = wiki.parseAttribute(line, "registration", 0);
         ret.put("registration", OffsetDateTime.parse(registrationdate));
         ret.put("locked", line.contains("locked=\"\""));
+        if (detail == GlobalUserDetail.LOCK_STATUS)
+            return ret;
         int globaledits = 0;
         int wikicount = 0;
         
         // global groups/rights
         int mergedindex = line.indexOf("<merged>");
-        List<String> globalgroups = new ArrayList<>();        
-        int groupindex = line.indexOf("<groups");
-        if (groupindex > 0 && groupindex < mergedindex)
+        if (detail == GlobalUserDetail.ALL)
         {
-            for (int x = line.indexOf("<g>"); x > 0; x = line.indexOf("<g>", ++x))
+            List<String> globalgroups = new ArrayList<>();        
+            int groupindex = line.indexOf("<groups");
+            if (groupindex > 0 && groupindex < mergedindex)
             {
-                int y = line.indexOf("</g>", x);
-                globalgroups.add(line.substring(x + 3, y));
-            }        
-        }
-        ret.put("groups", globalgroups);
-        List<String> globalrights = new ArrayList<>();
-        int rightsindex = line.indexOf("<rights");
-        if (rightsindex > 0 && rightsindex < mergedindex)
-        {
-            for (int x = line.indexOf("<r>"); x > 0; x = line.indexOf("<r>", ++x))
+                for (int x = line.indexOf("<g>"); x > 0; x = line.indexOf("<g>", ++x))
+                {
+                    int y = line.indexOf("</g>", x);
+                    globalgroups.add(line.substring(x + 3, y));
+                }        
+            }
+            ret.put("groups", globalgroups);
+            List<String> globalrights = new ArrayList<>();
+            int rightsindex = line.indexOf("<rights");
+            if (rightsindex > 0 && rightsindex < mergedindex)
             {
-                int y = line.indexOf("</r>", x);
-                globalrights.add(line.substring(x + 3, y));
-            }        
+                for (int x = line.indexOf("<r>"); x > 0; x = line.indexOf("<r>", ++x))
+                {
+                    int y = line.indexOf("</r>", x);
+                    globalrights.add(line.substring(x + 3, y));
+                }        
+            }
+            ret.put("rights", globalrights);
         }
-        ret.put("rights", globalrights);
         
         // individual wikis
         int mergedend = line.indexOf("</merged>");
@@ -378,27 +533,36 @@ public class WMFWikiFarm
 
     /**
      *  Runs the given function on a set of wikis with specified concurrency 
-     *  and query limit.
+     *  and query limit. No more than <var>threads</var> applications of 
+     *  <var>fn</var> run at once.
      *  @param <W> a Wiki type
      *  @param <R> the type of the function output
      *  @param wikis the collection of wikis to apply the function to
      *  @param fn a function to apply to each wiki, returning some results
      *  @param threads number of threads to use
      *  @return a sorted map: wiki &#8594; function output for that wiki
+     *  @throws IllegalArgumentException if {@code threads < 1}
+     *  @throws UncheckedIOException if interrupted or if <var>fn</var> throws one
      */
     public <W extends Wiki, R> Map<W, R> forAllWikis(Collection<W> wikis, Function<W, R> fn, int threads)
     {
-        Stream<W> stream = wikis.stream();
-        // set concurrency if desired (FIXME: the thread count is ignored)
-        if (threads > 1)
+        List<W> temp = new ArrayList<>(wikis);
+        Map<W, R> ret = new TreeMap<>();
+        try
         {
-            System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "" + threads);
-            stream = stream.parallel();
+            // callbacks are made one at a time, so the map needs no locking
+            ConcurrencyUtils.forEach(temp, threads, fn::apply, (index, result) ->
+            {
+                if (ret.containsKey(temp.get(index)))
+                    throw new RuntimeException("Duplicate wikis!");
+                ret.put(temp.get(index), result);
+            });
         }
-        Map<W, R> ret = stream.collect(Collectors.toMap(Function.identity(), wiki ->
+        catch (IOException ex)
         {
-            return fn.apply(wiki);
-        }, (wiki1, wiki2) -> { throw new RuntimeException("Duplicate wikis!"); }, TreeMap::new));
+            // fn can't throw checked exceptions
+            throw new UncheckedIOException(ex);
+        }
         return ret;
     }
 }
@@ -29,6 +29,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.UncheckedIOException;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
@@ -74,9 +75,15 @@ import java.util.SequencedCollection;
 import java.util.StringJoiner;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -521,6 +528,8 @@ public class Wiki implements Comparable<Wiki>
     private int assertion = ASSERT_NONE; // assertion mode
     private int statusinterval = 100; // status check
     private int querylimit = Integer.MAX_VALUE;
+    private volatile Semaphore requestpermits = new Semaphore(4, true);
+    private int maxconcurrency = 4;
     private String useragent = "Wiki.java/" + version + " (https://github.com/MER-C/wiki-java/)";
     private boolean markminor = false, markbot = false;
     private boolean resolveredirect = false;
@@ -1139,6 +1148,38 @@ public class Wiki implements Comparable<Wiki>
         querylimit = limit;
     }
 
+    /**
+     *  Returns the maximum number of API requests this session makes to the
+     *  wiki at the same time. Default = 4.
+     *  @return see above
+     *  @see #setMaxConcurrentRequests(int) 
+     *  @since 0.39
+     */
+    public int getMaxConcurrentRequests()
+    {
+        return maxconcurrency;
+    }
+
+    /**
+     *  Sets the maximum number of API requests this session makes to the wiki
+     *  at the same time. Additional requests made by other threads sharing 
+     *  this session wait until a request finishes. Requests already in flight
+     *  are unaffected.
+     *
+     *  @param concurrency the maximum number of simultaneous requests
+     *  @throws IllegalArgumentException if <var>concurrency</var> is not a 
+     *  positive integer
+     *  @see <a href="https://mediawiki.org/wiki/API:Etiquette">API etiquette</a>
+     *  @since 0.39
+     */
+    public void setMaxConcurrentRequests(int concurrency)
+    {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be a positive integer.");
+        maxconcurrency = concurrency;
+        requestpermits = new Semaphore(concurrency, true);
+    }
+
     /**
      *   Returns a string representation of this Wiki.
      *   @return a string representation of this Wiki.
@@ -3008,6 +3049,30 @@ public class Wiki implements Comparable<Wiki>
         return parseRevision(line.substring(a, b), title);
     }
 
+    /**
+     *  Gets the first revision of each of the given pages. The API does not 
+     *  permit <kbd>rvdir=newer</kbd> with more than one page per request, so 
+     *  one request is made per distinct page, up to {@link 
+     *  #getMaxConcurrentRequests()} at a time.
+     * 
+     *  @param titles a list of pages
+     *  @return the oldest revision of each page, in the same order as the 
+     *  input, or {@code null} for pages that do not exist
+     *  @throws IOException or UncheckedIOException if a network error occurs
+     *  @throws UnsupportedOperationException if any title is a Special or 
+     *  Media page
+     *  @see #getFirstRevision(String)
+     *  @since 0.39
+     */
+    public List<Revision> getFirstRevisions(SequencedCollection<String> titles) throws IOException
+    {
+        for (String title : titles)
+            if (namespace(title) < 0)
+                throw new UnsupportedOperationException("Special and Media pages do not have histories!");
+        
+        return forEachDistinct(titles, this::getFirstRevision);
+    }
+
     /**
      *  Gets the newest page name or the name of a page where the asked pages
      *  redirect.
@@ -5182,6 +5247,71 @@ public class Wiki implements Comparable<Wiki>
         }
     }
 
+    /**
+     *  Determines when each of the given users was last active. The API
+     *  cannot limit the number of results per user, so one request (fetching
+     *  the most recent edit and most recent log entry, timestamps only) is
+     *  made per distinct user, up to {@link #getMaxConcurrentRequests()} at a
+     *  time. Deleted edits and log entries are not counted.
+     *
+     *  @param users a list of users or IP addresses
+     *  @return for each user, in the same order as the input, a map with keys
+     *  "lastedit" and "lastlog" whose values are the timestamps of the most
+     *  recent edit and log entry performed by that user respectively, or
+     *  {@code null} if there are none. A user that is not registered locally
+     *  has no log entries.
+     *  @throws IOException or UncheckedIOException if a network error occurs
+     *  @see #contribs(SequencedCollection, String, Wiki.RequestHelper)
+     *  @see #getLogEntries(String, String, Wiki.RequestHelper)
+     *  @since 0.39
+     */
+    public List<Map<String, OffsetDateTime>> getLastActivity(SequencedCollection<String> users) throws IOException
+    {
+        List<String> normusers = new ArrayList<>();
+        for (String user : users)
+            normusers.add(normalize(user));
+        List<Map<String, OffsetDateTime>> ret = forEachDistinct(normusers, this::getLastActivity);
+        log(Level.INFO, "getLastActivity", "Successfully retrieved last activity for " + normusers.stream().distinct().count() + " users.");
+        return ret;
+    }
+
+    /**
+     *  Fetches the timestamps of the most recent edit and log entry of a
+     *  single user.
+     *  @param user a normalized username or IP address
+     *  @return see {@link #getLastActivity(SequencedCollection)}
+     *  @throws IOException if a network error occurs
+     */
+    private Map<String, OffsetDateTime> getLastActivity(String user) throws IOException
+    {
+        Map<String, String> getparams = new HashMap<>();
+        getparams.put("action", "query");
+        getparams.put("list", "usercontribs|logevents");
+        getparams.put("ucuser", user);
+        getparams.put("uclimit", "1");
+        getparams.put("ucprop", "timestamp");
+        getparams.put("leuser", user);
+        getparams.put("lelimit", "1");
+        getparams.put("leprop", "timestamp");
+        String line = makeApiCall(getparams, null, "getLastActivity");
+        detectUncheckedErrors(line, null, null);
+
+        Map<String, OffsetDateTime> ret = new HashMap<>();
+        for (String[] list : new String[][] { { "usercontribs", "lastedit" }, { "logevents", "lastlog" } })
+        {
+            // xml form: <usercontribs><item ... timestamp="..." /></usercontribs>
+            // or <usercontribs /> if empty
+            int a = line.indexOf("<" + list[0] + ">");
+            int b = line.indexOf("</" + list[0] + ">", a);
+            int c = line.indexOf("<item ", a);
+            OffsetDateTime timestamp = null;
+            if (a >= 0 && c >= 0 && c < b)
+                timestamp = OffsetDateTime.parse(parseAttribute(line, "timestamp", c));
+            ret.put(list[1], timestamp);
+        }
+        return ret;
+    }
+
     /**
      *  Sends an email message to a user in a similar manner to [[Special:Emailuser]].
      *  You and the target user must have a confirmed email address and the
@@ -6030,28 +6160,65 @@ public class Wiki implements Comparable<Wiki>
     {
         // I'm still not happy with the return type, but I think this is as good
         // as it gets in vanilla JDK.
+        List<String[]> links = new ArrayList<>();
+        linksearch(pattern, protocol, -1, (pagename, link) -> links.add(new String[] { pagename, link }), ns);
+        return links;
+    }
+
+    /**
+     *  Searches the wiki for external links without storing the results. 
+     *  Equivalent to [[Special:Linksearch]]. Each result is passed to 
+     *  <var>consumer</var> as (page, URL) as it arrives. Wildcards (*) are 
+     *  only permitted at the start of the search string. The query limit 
+     *  is specified per call, so this method is safe to use on sessions that
+     *  are shared between threads.
+     *
+     *  <pre>{@code
+     *  // count the number of links to example.com, stopping at 1000 
+     *  int count = wiki.linksearch("*.example.com", null, 1000, null);
+     *  }</pre>
+     *
+     *  @param pattern the pattern (String) to search for (e.g. example.com,
+     *  *.example.com)
+     *  @param protocol one of the protocols listed in the API documentation or
+     *  null (equivalent to http and https)
+     *  @param limit fetch no more than this many results, use -1 for the 
+     *  {@linkplain #getQueryLimit() query limit}
+     *  @param consumer accepts each { page, URL } pair found, may be null if
+     *  only the number of links is wanted
+     *  @param ns a list of namespaces to filter by, empty = all namespaces.
+     *  @return the number of results found
+     *  @throws IOException if a network error occurs
+     *  @see #linksearch(String, String, int...) 
+     *  @since 0.39
+     */
+    public int linksearch(String pattern, String protocol, int limit, BiConsumer<String, String> consumer, 
+        int... ns) throws IOException
+    {
         Map<String, String> getparams = new HashMap<>();
         getparams.put("list", "exturlusage");
-        getparams.put("euprop", "title|url");
+        getparams.put("euprop", consumer == null ? "ids" : "title|url");
         getparams.put("euquery", pattern);
         if (protocol != null)
             getparams.put("euprotocol", protocol);
         if (ns.length > 0)
             getparams.put("eunamespace", constructNamespaceString(ns));
 
-        List<String[]> links = makeListQuery("eu", getparams, null, "linksearch", -1, (line, results) ->
+        int count = makeStreamingListQuery("eu", getparams, null, "linksearch", limit, line ->
         {
             // xml form: <eu ns="0" title="Main Page" url="http://example.com" />
-            for (int x = line.indexOf("<eu"); x > 0; x = line.indexOf("<eu ", ++x))
+            int found = 0;
+            for (int x = line.indexOf("<eu "); x > 0; x = line.indexOf("<eu ", ++x))
             {
-                String link = parseAttribute(line, "url", x);
-                String pagename = parseAttribute(line, "title", x);
-                results.add(new String[] { pagename, link });
+                found++;
+                if (consumer != null)
+                    consumer.accept(parseAttribute(line, "title", x), parseAttribute(line, "url", x));
             }
+            return found;
         });
 
-        log(Level.INFO, "linksearch", "Successfully returned instances of external link " + pattern + " (" + links.size() + " links)");
-        return links;
+        log(Level.INFO, "linksearch", "Successfully returned instances of external link " + pattern + " (" + count + " links)");
+        return count;
     }
 
     /**
@@ -8267,6 +8434,53 @@ public class Wiki implements Comparable<Wiki>
 
     // INTERNALS
 
+    /**
+     *  Applies the given function once to each distinct input, one request
+     *  per input, on virtual threads. The number of requests in flight is
+     *  bounded by {@link #getMaxConcurrentRequests()}. For queries where the 
+     *  API does not allow more than one input per request.
+     *  @param <T> the return type
+     *  @param inputs a list of inputs, which may contain duplicates
+     *  @param fn the function to apply to each input
+     *  @return the outputs, in the same order as the inputs
+     *  @throws IOException if any application of <var>fn</var> throws one or
+     *  if this thread is interrupted
+     *  @since 0.39
+     */
+    private <T> List<T> forEachDistinct(SequencedCollection<String> inputs, ThrowingFunction<String, T> fn) throws IOException
+    {
+        Map<String, Future<T>> requests = new HashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            for (String input : inputs)
+                requests.computeIfAbsent(input, i -> executor.submit(() -> fn.applyThrows(i)));
+            try
+            {
+                List<T> ret = new ArrayList<>();
+                for (String input : inputs)
+                    ret.add(requests.get(input).get());
+                return ret;
+            }
+            catch (InterruptedException ex)
+            {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for results.");
+            }
+            catch (ExecutionException ex)
+            {
+                executor.shutdownNow();
+                switch (ex.getCause())
+                {
+                    case IOException ioe -> throw ioe;
+                    case RuntimeException re -> throw re;
+                    case Error err -> throw err;
+                    default -> throw new IOException(ex.getCause());
+                }
+            }
+        }
+    }
+
     /**
      *  Performs a vectorized <samp>action=query&amp;prop=X</samp> type API query 
      *  over titles.
@@ -8353,16 +8567,50 @@ public class Wiki implements Comparable<Wiki>
      */
     protected <T> List<T> makeListQuery(String queryPrefix, Map<String, String> getparams,
         Map<String, Object> postparams, String caller, int limit, BiConsumer<String, List<T>> parser) throws IOException
+    {
+        List<T> results = new ArrayList<>(1333);
+        makeStreamingListQuery(queryPrefix, getparams, postparams, caller, limit, line ->
+        {
+            int size = results.size();
+            parser.accept(line, results);
+            return results.size() - size;
+        });
+        return results;
+    }
+
+    /**
+     *  Fetches list-type results from the MediaWiki API without retaining 
+     *  them. Each chunk of results is handed to <var>parser</var> as soon as
+     *  it is received, which is responsible for doing something useful with 
+     *  them.
+     *
+     *  @param queryPrefix the request type prefix (e.g. "pl" for prop=links)
+     *  @param getparams a bunch of parameters to send via HTTP GET
+     *  @param postparams if not null, send these parameters via POST (see
+     *  {@link #makeApiCall(Map, Map, String) }).
+     *  @param caller the name of the calling method
+     *  @param limit fetch no more than this many results, use -1 for the 
+     *  {@linkplain #getQueryLimit() query limit}
+     *  @param parser a function that parses the XML returned by the MediaWiki
+     *  API and returns the number of results in it
+     *  @return the number of results processed
+     *  @throws IOException if a network error occurs
+     *  @throws SecurityException if we don't have the credentials to perform a
+     *  privileged action (mostly avoidable)
+     *  @since 0.39
+     */
+    protected int makeStreamingListQuery(String queryPrefix, Map<String, String> getparams,
+        Map<String, Object> postparams, String caller, int limit, ToIntFunction<String> parser) throws IOException
     {
         if (limit < 0)
             limit = querylimit;
         getparams = new HashMap<>(getparams); // ensure this map is mutable
         getparams.put("action", "query");
-        List<T> results = new ArrayList<>(1333);
+        int count = 0;
         String limitstring = queryPrefix + "limit";
         do
         {
-            getparams.put(limitstring, String.valueOf(Math.min(limit - results.size(), max)));
+            getparams.put(limitstring, String.valueOf(Math.min(limit - count, max)));
             String line = makeApiCall(getparams, postparams, caller);
             detectUncheckedErrors(line, null, null);
             getparams.keySet().removeIf(param -> param.endsWith("continue"));
@@ -8382,10 +8630,10 @@ public class Wiki implements Comparable<Wiki>
                 }
             }
 
-            parser.accept(line, results);
+            count += parser.applyAsInt(line);
         }
-        while (getparams.containsKey("continue") && results.size() < limit);
-        return results;
+        while (getparams.containsKey("continue") && count < limit);
+        return count;
     }
     
     /**
@@ -8553,18 +8801,36 @@ public class Wiki implements Comparable<Wiki>
                             .header("Content-Type", "application/x-www-form-urlencoded");
                 }
 
-                HttpResponse<InputStream> hr = client.send(connection.build(), HttpResponse.BodyHandlers.ofInputStream());
-                boolean zipped = hr.headers().firstValue("Content-Encoding").orElse("").equals("gzip");
-                if (checkLag(hr))
+                Semaphore permits = requestpermits;
+                try
+                {
+                    permits.acquire();
+                }
+                catch (InterruptedException ex)
                 {
-                    tries++;
-                    throw new HttpRetryException("Database lagged.", 503);
+                    // the caller is cancelling this request, don't retry
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to make a request.");
                 }
+                try
+                {
+                    HttpResponse<InputStream> hr = client.send(connection.build(), HttpResponse.BodyHandlers.ofInputStream());
+                    boolean zipped = hr.headers().firstValue("Content-Encoding").orElse("").equals("gzip");
+                    if (checkLag(hr))
+                    {
+                        tries++;
+                        throw new HttpRetryException("Database lagged.", 503);
+                    }
 
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(
-                    zipped ? new GZIPInputStream(hr.body()) : hr.body(), "UTF-8")))
+                    try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                        zipped ? new GZIPInputStream(hr.body()) : hr.body(), "UTF-8")))
+                    {
+                        response = in.lines().collect(Collectors.joining("\n"));
+                    }
+                }
+                finally
                 {
-                    response = in.lines().collect(Collectors.joining("\n"));
+                    permits.release();
                 }
 
                 // Check for rate limit (though might be a long one e.g. email)
@@ -8589,8 +8855,9 @@ public class Wiki implements Comparable<Wiki>
             }
             catch (IOException ex)
             {
-                // Exception deliberately ignored until retries are depleted.
-                if (tries == 0)
+                // Exception deliberately ignored until retries are depleted,
+                // unless the request was cancelled.
+                if (tries == 0 || Thread.currentThread().isInterrupted())
                     throw ex;
             }
             catch (InterruptedException ignored)
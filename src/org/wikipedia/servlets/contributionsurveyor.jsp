@@ -1,6 +1,6 @@
 <%--
-    @(#)contributionsurveyor.jsp 0.02 05/07/2021
-    Copyright (C) 2011 - 2022 MER-C
+    @(#)contributionsurveyor.jsp 0.03 19/10/2026
+    Copyright (C) 2011 - 2026 MER-C
 
     This program is free software: you can redistribute it and/or modify
     it under the terms of the GNU Affero General Public License as
@@ -49,7 +49,6 @@
     }
 
     // get results
-    List<String> survey = Collections.emptyList();
     if (request.getAttribute("error") == null && !users.isEmpty())
     {
         ContributionSurveyor surveyor = new ContributionSurveyor(wiki);
@@ -63,25 +62,29 @@
         
         // ns 118 = draft namespace on en.wikipedia
         int[] ns = nodrafts ? new int[] { Wiki.MAIN_NAMESPACE } : new int[] { Wiki.MAIN_NAMESPACE, Wiki.USER_NAMESPACE, 118 };
-        survey = surveyor.outputContributionSurvey(users, true, false, false, ns);
-        if (survey.isEmpty())
-            request.setAttribute("error", "No edits found!");
-        else
-            request.setAttribute("contenttype", "text");
-    }
-%>
-<%@ include file="header.jspf" %>
-<%  
-    if (!survey.isEmpty())
-    {
+        // stream the survey straight to the client, nothing is written if 
+        // there are no results
         String fname = user == null ? category : user;
-        response.setHeader("Content-Disposition", "attachment; filename="
-            + URLEncoder.encode(fname, StandardCharsets.UTF_8) + ".txt");
+        Writer writer = out;
+        int pages = surveyor.outputContributionSurvey(users, true, false, false, pagenum ->
+        {
+            if (pagenum == 0)
+            {
+                response.setContentType("text/plain;charset=UTF-8");
+                response.setHeader("Content-Disposition", "attachment; filename="
+                    + URLEncoder.encode(fname, StandardCharsets.UTF_8) + ".txt");
+            }
+            else
+                writer.write("\n");
+            return writer;
+        }, ns);
         // TODO: output as ZIP (not straightforward: requires rewrite as Java Servlet)
-        out.print(String.join("\n", survey));
-        return;
+        if (pages > 0)
+            return;
+        request.setAttribute("error", "No edits found!");
     }
- %>
+%>
+<%@ include file="header.jspf" %>
 
 <p>
 This tool generates a listing of a user's edits for use at <a
@@ -1,6 +1,6 @@
 <!--
-    @(#)masslinksearch.jsp 0.02 06/07/2023
-    Copyright (C) 2016 - 2023 MER-C
+    @(#)masslinksearch.jsp 0.03 19/10/2026
+    Copyright (C) 2016 - 2026 MER-C
   
     This is free software: you are free to change and redistribute it under the 
     Affero GNU GPL version 3 or later, see <https://www.gnu.org/licenses/agpl.html> 
@@ -31,9 +31,9 @@
 <p>
 This tool searches a single project for a large collection of links. Enter 
 domain names (example.com, *{{LinkSummary|example.com}} and \\bexample\\.com\\b
-are all acceptable) below, one per line. A timeout is more likely when searching
-for more domains. For performance reasons, results are limited to <%= limit %> 
-links per domain.
+are all acceptable) below, one per line. Domains are searched concurrently and 
+results are displayed as they arrive, so they may not be in the order entered.
+For performance reasons, results are limited to <%= limit %> links per domain.
 
 <p>
 <form action="./masslinksearch.jsp" method=POST>
@@ -56,29 +56,40 @@ links per domain.
     if (!inputdomains.isEmpty() && !wiki.isEmpty())
     {
         out.println("<hr>");
-        String[] domains = inputdomains.split("\r\n");
+        List<String> domains = new ArrayList<>();
+        for (String domain : inputdomains.split("\r\n"))
+        {
+            domain = domain.trim();
+            if (!domain.isEmpty())
+                domains.add(domain);
+        }
         Wiki w = sessions.sharedSession(wiki);
-        w.setQueryLimit(limit);
 
         StringBuilder regex = new StringBuilder();
         StringBuilder linksummary = new StringBuilder();
         ExternalLinks el = ExternalLinks.of(w);
+        
+        // search concurrently, output each domain as soon as it is done
+        List<String> patterns = domains.stream().map(domain -> "*." + domain).toList();
+        // out is not effectively final
+        Writer writer = out;
+        el.linksearch(patterns, null, limit, (index, results) ->
+        {
+            String domain = domains.get(index);
+            writer.write("<h3>Results for " + domain + "</h3>\n");
+            writer.write(el.linksearchResultsToHTML(results, domain) + "\n");
+            writer.flush();
+        });
 
+        // reformat domain list to regex and linksummary
         for (String domain : domains)
         {
-            domain = domain.trim();
-            List<String[]> temp = w.linksearch("*." + domain);
-
-            // reformat domain list to regex and linksummary
             regex.append("\\b");
             regex.append(domain.replace(".", "\\."));
             regex.append("\\b\n");
             linksummary.append("*{{LinkSummary|");
             linksummary.append(domain);
             linksummary.append("}}\n");
-
-            out.println("<h3>Results for " + domain + "</h3>");
-            out.println(el.linksearchResultsToHTML(temp, domain));
         }
 %>
 <hr>
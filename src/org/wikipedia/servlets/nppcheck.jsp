@@ -1,6 +1,6 @@
 <!--
-    @(#)nppcheck.jsp 0.01 26/05/2019
-    Copyright (C) 2019 - MER-C
+    @(#)nppcheck.jsp 0.02 19/10/2026
+    Copyright (C) 2019 - 2026 MER-C
   
     This is free software: you are free to change and redistribute it under the 
     Affero GNU GPL version 3 or later, see <https://www.gnu.org/licenses/agpl.html> 
@@ -78,15 +78,11 @@ main space for a given user (or for all users) and page metadata. A query limit
     List<Duration> dt_patrol = Events.timeBetweenEvents(logsub);
     dt_patrol.add(Duration.ofSeconds(-1));
     if (logsub.size() == 51)
-        logsub.remove(50);
-    List<Map<String, Object>> pageinfo = check.fetchMetadata(logsub);
-    pageinfo = check.fetchCreatorMetadata(pageinfo);
-    List<String> snippets = check.fetchSnippets(logsub);
-    List<Wiki.User> reviewerdata = check.fetchReviewerMetadata(logsub);
-    List<String> drafts = new ArrayList<>();
+        logsub = logsub.subList(0, 50);
     List<Map<String, Object>> draftinfo = null;
     if (mode.requiresDrafts())
     {
+        List<String> drafts = new ArrayList<>();
         for (Wiki.Event event : logsub)
             drafts.add(event.getTitle());
         draftinfo = enWiki.getPageInfo(drafts);    
@@ -131,73 +127,78 @@ main space for a given user (or for all users) and page metadata. A query limit
     }
     out.println("<th>Snippet");
 
-    for (int i = 0; i < pageinfo.size(); i++)
+    // Rows are written and flushed a few at a time as their data arrives. If
+    // the client goes away, flushing fails and fetching stops.
+    var writer = out;
+    List<Map<String, Object>> draftinfo2 = draftinfo;
+    check.fetchReports(logsub, 10, (chunkoffset, report) ->
     {
-        Map<String, Object> info = pageinfo.get(i);
-        Wiki.Revision first = (Wiki.Revision)info.get("firstrevision");
-        Wiki.LogEntry entry = (Wiki.LogEntry)info.get("logentry");
-        Wiki.User creator = (Wiki.User)info.get("creator");
-        String title = (String)info.get("pagename");
-        OffsetDateTime patroldate = entry.getTimestamp();
-        int size = (Integer)info.get("size");
+        List<Map<String, Object>> pageinfo = report.metadata();
+        for (int i = 0; i < pageinfo.size(); i++)
+        {
+            Map<String, Object> info = pageinfo.get(i);
+            Wiki.Revision first = (Wiki.Revision)info.get("firstrevision");
+            Wiki.LogEntry entry = (Wiki.LogEntry)info.get("logentry");
+            Wiki.User creator = (Wiki.User)info.get("creator");
+            String title = (String)info.get("pagename");
+            OffsetDateTime patroldate = entry.getTimestamp();
+            int size = (Integer)info.get("size");
 
-        OffsetDateTime createdate = null;
-        OffsetDateTime registrationdate = null;
-        int editcount = -1;
-        String creatorname = "null";
-        boolean blocked = false;
+            OffsetDateTime createdate = null;
+            OffsetDateTime registrationdate = null;
+            int editcount = -1;
+            String creatorname = "null";
+            boolean blocked = false;
 
-        Duration dt_article = Duration.ofDays(-999999);
-        Duration dt_user = Duration.ofDays(-999999);
+            Duration dt_article = Duration.ofDays(-999999);
+            Duration dt_user = Duration.ofDays(-999999);
 
-        if (first != null)
-        {
-            creatorname = first.getUser();
-            createdate = first.getTimestamp();
-            dt_article = Duration.between(createdate, patroldate);
-            if (creator != null)
+            if (first != null)
             {
-                editcount = creator.countEdits();
-                registrationdate = creator.getRegistrationDate();
-                blocked = creator.getBlockDetails() != null;
-                if (registrationdate != null)
-                    dt_user = Duration.between(registrationdate, createdate);
+                creatorname = first.getUser();
+                createdate = first.getTimestamp();
+                dt_article = Duration.between(createdate, patroldate);
+                if (creator != null)
+                {
+                    editcount = creator.countEdits();
+                    registrationdate = creator.getRegistrationDate();
+                    blocked = creator.getBlockDetails() != null;
+                    if (registrationdate != null)
+                        dt_user = Duration.between(registrationdate, createdate);
+                }
             }
+
+            writer.println("<tr class=\"revision\">");
+            if (mode.requiresDrafts())
+            {
+                String draft = entry.getTitle();
+                writer.println("  <td class=\"title\">" + pageutils.generatePageLink(draft, (Boolean)draftinfo2.get(chunkoffset + i).get("exists")));
+            }
+            writer.println("  <td class=\"title\">" + pageutils.generatePageLink(title, (Boolean)info.get("exists")));
+            writer.println("  <td class=\"date\">" + createdate);
+            if (mode.requiresReviews())
+            {
+                writer.println("  <td class=\"date\">" + patroldate);
+                writer.println("  <td class=\"revsize\">" + MathsAndStats.formatDuration(dt_article));
+                if (!username.isEmpty())
+                    writer.println("  <td class=\"revsize\">" + MathsAndStats.formatDuration(dt_patrol.get(chunkoffset + i)));
+            }
+            writer.println("  <td class=\"revsize\">" + size);
+            writer.println("  <td class=\"user\">" + users.generateHTMLSummaryLinksShort(creatorname));
+            writer.println("  <td class=\"date\">" + registrationdate);
+            writer.println("  <td class=\"revsize\">" + editcount);
+            writer.println("  <td class=\"revsize\">" + MathsAndStats.formatDuration(dt_user));
+            writer.println("  <td class=\"boolean\">" + blocked);
+            if (mode.requiresReviews() && username.isEmpty())
+            {
+                String reviewer = entry.getUser();
+                writer.println("  <td class=\"user\">" + users.generateHTMLSummaryLinksShort(reviewer));
+                writer.println("  <td class=\"revsize\">" + report.reviewers().get(i).countEdits());
+            }
+            writer.println("  <td>" + report.snippets().get(i));
         }
-        
-        out.println("<tr class=\"revision\">");
-        if (mode.requiresDrafts())
-        {
-            String draft = entry.getTitle();
-            out.println("  <td class=\"title\">" + pageutils.generatePageLink(draft, (Boolean)draftinfo.get(i).get("exists")));
-        }
-%>
-  <td class="title"><%= pageutils.generatePageLink(title, (Boolean)pageinfo.get(i).get("exists")) %>
-  <td class="date"><%= createdate %>
-<%
-        if (mode.requiresReviews())
-        {
-            out.println("  <td class=\"date\">" + patroldate);
-            out.println("  <td class=\"revsize\">" + MathsAndStats.formatDuration(dt_article));
-            if (!username.isEmpty())
-                out.println("  <td class=\"revsize\">" + MathsAndStats.formatDuration(dt_patrol.get(i)));
-        }
-%>
-  <td class="revsize"><%= size %>
-  <td class="user"><%= users.generateHTMLSummaryLinksShort(creatorname) %>
-  <td class="date"><%= registrationdate %>
-  <td class="revsize"><%= editcount %>
-  <td class="revsize"><%= MathsAndStats.formatDuration(dt_user) %>
-  <td class="boolean"><%= blocked %>
-<%
-        if (mode.requiresReviews() && username.isEmpty())
-        {
-            String reviewer = entry.getUser();
-            out.println("  <td class=\"user\">" + users.generateHTMLSummaryLinksShort(reviewer));
-            out.println("  <td class=\"revsize\">" + reviewerdata.get(i).countEdits());
-        }
-        out.println("  <td>" + snippets.get(i));
-    }
+        writer.flush();
+    });
     out.println("</table>");
 
     // output pagination
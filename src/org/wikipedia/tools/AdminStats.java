@@ -24,14 +24,13 @@ import java.io.IOException;
 import java.nio.file.*;
 import java.time.OffsetDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 import org.wikipedia.*;
 
 /**
  *  Outputs admin action reason stats for the English Wikipedia and global lock
  *  reason stats for all Wikimedia wikis.
  *  @author MER-C
- *  @version 0.02
+ *  @version 0.03
  */
 public class AdminStats
 {
@@ -39,6 +38,9 @@ public class AdminStats
     private final Wiki wiki;
     private OffsetDateTime start, end;
     private List<Wiki.LogEntry> deletions, blocks, locks, protections, gblocks;
+    private LogTable deletiontable, blocktable, locktable, protectiontable, gblocktable;
+    private LogArchive archive, metaArchive;
+    private final Map<String, ReasonClassifier> classifiers = new HashMap<>();
 
     static
     {
@@ -64,6 +66,7 @@ public class AdminStats
             .addBooleanFlag("--protections", "Fetch statistics for protections")
             .addBooleanFlag("--globalblocks", "Fetch statistics for global blocks")
             .addBooleanFlag("--login", "Adds a login prompt to access high limits")
+            .addSingleArgumentFlag("--archive", "dir", "Keep a local copy of the logs in this directory and only fetch new entries")
             .requireAll("--start", "--end")
             .parse(args);
         List<OffsetDateTime> daterange = CommandLineParser.parseDateRange(options, "--start", "--end");
@@ -75,6 +78,8 @@ public class AdminStats
         
         AdminStats stats = new AdminStats(enWiki);
         stats.setDateRange(daterange.get(0), daterange.get(1));
+        if (options.containsKey("--archive"))
+            stats.setArchiveDirectory(Paths.get(options.get("--archive")));
 
         if (options.containsKey("--locks"))
         {
@@ -178,6 +183,11 @@ public class AdminStats
         locks = new ArrayList<>();
         protections = new ArrayList<>();
         gblocks = new ArrayList<>();
+        classifiers.put(Wiki.DELETION_LOG, deleteReasonClassifier());
+        classifiers.put(Wiki.BLOCK_LOG, blockReasonClassifier());
+        classifiers.put(Wiki.PROTECTION_LOG, protectionReasonClassifier());
+        classifiers.put(WMFWiki.GLOBAL_AUTH_LOG, lockReasonClassifier());
+        classifiers.put(WMFWiki.GLOBAL_BLOCK_LOG, globalBlockReasonClassifier());
     }
 
     /**
@@ -196,6 +206,51 @@ public class AdminStats
         protections.clear();
     }
 
+    /**
+     *  Fetches log entries from a local {@link LogArchive} in the given
+     *  directory, which is updated with only those entries that it does not
+     *  already contain, instead of fetching all of them from the wiki. This
+     *  makes repeated statistics over overlapping periods (e.g. a daily job
+     *  computing statistics for the last year) much faster.
+     *  @param directory where to keep the archive, or {@code null} to fetch
+     *  everything from the wiki
+     *  @since 0.03
+     */
+    public void setArchiveDirectory(Path directory)
+    {
+        if (directory == null)
+        {
+            archive = null;
+            metaArchive = null;
+        }
+        else
+        {
+            archive = new LogArchive(wiki, directory.resolve(wiki.getDomain()));
+            metaArchive = new LogArchive(metaWiki, directory.resolve(metaWiki.getDomain()));
+        }
+    }
+
+    /**
+     *  Fetches the log entries with the given type and action in the date
+     *  range of interest, with a title and comment, from the archive if one
+     *  is in use and otherwise from the wiki.
+     */
+    private List<Wiki.LogEntry> fetchLog(Wiki w, String logtype, String action) throws IOException
+    {
+        LogArchive la = (w == metaWiki) ? metaArchive : archive;
+        List<Wiki.LogEntry> ret;
+        if (la == null)
+        {
+            Wiki.RequestHelper rh = w.new RequestHelper()
+                .withinDateRange(start, end);
+            ret = w.getLogEntries(logtype, action, rh);
+        }
+        else
+            ret = la.getLogEntries(logtype, action, start, end);
+        ret.removeIf(log -> log.getTitle() == null || log.getComment() == null);
+        return ret;
+    }
+
     /**
      *  Computes a histogram of page deletions by reason. The total number of
      *  deletions is available under a special TOTAL key.
@@ -208,36 +263,21 @@ public class AdminStats
     {
         if (deletions.isEmpty())
         {
-            Wiki.RequestHelper rh = wiki.new RequestHelper()
-                .withinDateRange(start, end);
-            List<Wiki.LogEntry> temp = wiki.getLogEntries(Wiki.DELETION_LOG, "delete", rh);
-            for (Wiki.LogEntry log : temp)
-                if (log.getTitle() != null && log.getComment() != null)
-                    deletions.add(log);
+            deletions = fetchLog(wiki, Wiki.DELETION_LOG, "delete");
+            deletiontable = LogTable.of(wiki, deletions);
         }
         
-        List<Wiki.LogEntry> lelocal = new ArrayList<>(deletions);
-        if (namespaces.length > 0)
-        {
-            lelocal.removeIf(log ->
-            {
-                int ns = wiki.namespace(log.getTitle());
-                for (int ns2 : namespaces)
-                    if (ns2 == ns)
-                        return false;
-                return true;
-            });
-        }
-        Map<String, Long> ret = new TreeMap<>();
-        ret.putAll(lelocal.stream().collect(Collectors.groupingBy(
-                log -> log.getComment().replace("_", " ").toLowerCase(), Collectors.counting())));
-        ret.put("TOTAL", Long.valueOf(lelocal.size()));
+        BitSet rows = namespaces.length > 0 ? deletiontable.inNamespaces(namespaces) : deletiontable.all();
+        Map<String, Long> ret = deletiontable.countBy(LogTable.Column.COMMENT, rows,
+            comment -> comment.replace("_", " ").toLowerCase());
+        ret.put("TOTAL", Long.valueOf(rows.cardinality()));
         return ret;
     }
 
     /**
      *  Bundles similar deletion reasons together. Deletion reasons include
-     *  most CSDs, PRODs and deletion debates.
+     *  most CSDs, PRODs and deletion debates. A reason is counted in every
+     *  group it belongs to.
      *
      *  @see <a href="https://en.wikipedia.org/wiki/WP:CSD">Criteria for speedy
      *  deletion</a>
@@ -245,100 +285,109 @@ public class AdminStats
      *  @see <a href="https://en.wikipedia.org/wiki/WP:XFD">Deletion debates</a>
      *  @param raw the list of raw deletion reasons
      *  @return the grouped deletion reasons
+     *  @see #getReasonClassifier(String)
      */
     public Map<String, Long> groupDeleteReasons(Map<String, Long> raw)
     {
-        Map<String, Long> cleanhist = new TreeMap<>();
-        for (var entry : raw.entrySet())
-        {
-            String reason = entry.getKey();
-            long count = entry.getValue();
-            if (reason.equals("TOTAL"))
-                continue;
-            boolean unclassified = true;
-            
+        return group(raw, Wiki.DELETION_LOG, false);
+    }
+
+    /**
+     *  Returns the rules used to group reasons for the given log, which may be
+     *  modified to change the groups.
+     *  @param logtype one of {@link Wiki#DELETION_LOG}, {@link Wiki#BLOCK_LOG},
+     *  {@link Wiki#PROTECTION_LOG}, {@link WMFWiki#GLOBAL_AUTH_LOG} or {@link
+     *  WMFWiki#GLOBAL_BLOCK_LOG}
+     *  @return (see above)
+     *  @throws IllegalArgumentException if there are no rules for that log
+     *  @since 0.03
+     */
+    public ReasonClassifier getReasonClassifier(String logtype)
+    {
+        ReasonClassifier ret = classifiers.get(logtype);
+        if (ret == null)
+            throw new IllegalArgumentException("No reason classifier for log " + logtype);
+        return ret;
+    }
+
+    /**
+     *  Groups the given histogram of reasons, ignoring the TOTAL key.
+     */
+    private Map<String, Long> group(Map<String, Long> raw, String logtype, boolean exclusive)
+    {
+        Map<String, Long> temp = new HashMap<>(raw);
+        temp.remove("TOTAL");
+        return getReasonClassifier(logtype).group(temp, exclusive);
+    }
+
+    /**
+     *  Returns the default deletion reason groups. These are not mutually
+     *  exclusive.
+     */
+    private static ReasonClassifier deleteReasonClassifier()
+    {
+        ReasonClassifier classifier = new ReasonClassifier()
+            .setEmptyCategory("''No reason given''")
             // consume copyright problems
-            if (reason.contains(":copyright problems"))
-            {
-                cleanhist.merge("Copyright problems", count, Long::sum);
-                unclassified = false;
-            }
+            .addCategory("Copyright problems", ":copyright problems")
 
             // general CSDs
-            unclassified &= classifyReason(cleanhist, entry, "Patent nonsense", "|g1]]");
-            unclassified &= classifyReason(cleanhist, entry, "Test page", "|g2]]");
-            unclassified &= classifyReason(cleanhist, entry, "Vandalism", "|g3]]");
-            unclassified &= classifyReason(cleanhist, entry, "Created by block/ban evading sockpuppet", "|g5]]", "csd g5");
-            unclassified &= classifyReason(cleanhist, entry, "Maintenance", "|g6]]", "history merge", "history-merge");
-            unclassified &= classifyReason(cleanhist, entry, "Author/user request", "g7]]", "|u1]]", "user request", "csd u1", "author request");
-            unclassified &= classifyReason(cleanhist, entry, "Dependent on deleted page", "g8]]", "delete redirect: ", "#g8");
-            unclassified &= classifyReason(cleanhist, entry, "Attack page", "g10");
-            unclassified &= classifyReason(cleanhist, entry, "Spam", "g11", "spam", "advert");
-            unclassified &= classifyReason(cleanhist, entry, "Copyright violations", "g12", "|f9]]", ":copyright violations");
-            unclassified &= classifyReason(cleanhist, entry, "Abandoned draft", "g13");
-            unclassified &= classifyReason(cleanhist, entry, "Unnecessary disambiguation", "|g14]]");
+            .addCategory("Patent nonsense", "|g1]]")
+            .addCategory("Test page", "|g2]]")
+            .addCategory("Vandalism", "|g3]]")
+            .addCategory("Created by block/ban evading sockpuppet", "|g5]]", "csd g5")
+            .addCategory("Maintenance", "|g6]]", "history merge", "history-merge")
+            .addCategory("Author/user request", "g7]]", "|u1]]", "user request", "csd u1", "author request")
+            .addCategory("Dependent on deleted page", "g8]]", "delete redirect: ", "#g8")
+            .addCategory("Attack page", "g10")
+            .addCategory("Spam", "g11", "spam", "advert")
+            .addCategory("Copyright violations", "g12", "|f9]]", ":copyright violations")
+            .addCategory("Abandoned draft", "g13")
+            .addCategory("Unnecessary disambiguation", "|g14]]")
 
             // article CSDs
-            unclassified &= classifyReason(cleanhist, entry, "No content or context", "|a1]]", "|a3]]");
-            unclassified &= classifyReason(cleanhist, entry, "Foreign language", "|a2]]");
-            unclassified &= classifyReason(cleanhist, entry, "Fails to give reason for inclusion", "|a7]]", "|a9]]");
-            unclassified &= classifyReason(cleanhist, entry, "Redundant", "|a10]]", "t3]]", "|f1]]");
-            unclassified &= classifyReason(cleanhist, entry, "Made up one day", "|a11]]");
+            .addCategory("No content or context", "|a1]]", "|a3]]")
+            .addCategory("Foreign language", "|a2]]")
+            .addCategory("Fails to give reason for inclusion", "|a7]]", "|a9]]")
+            .addCategory("Redundant", "|a10]]", "t3]]", "|f1]]")
+            .addCategory("Made up one day", "|a11]]")
 
             // user CSDs
-            unclassified &= classifyReason(cleanhist, entry, "User page where user does not exist", "u2]]");
-            unclassified &= classifyReason(cleanhist, entry, "Misuse of Wikipedia as a webhost", "u5]]");
+            .addCategory("User page where user does not exist", "u2]]")
+            .addCategory("Misuse of Wikipedia as a webhost", "u5]]")
 
             // redirect CSDs
-            unclassified &= classifyReason(cleanhist, entry, "Cross-namespace redirect", "|r2]]");
-            unclassified &= classifyReason(cleanhist, entry, "Implausible redirect", "|r3]]");
-            unclassified &= classifyReason(cleanhist, entry, "File redirect to Commons", "|r4]]");
+            .addCategory("Cross-namespace redirect", "|r2]]")
+            .addCategory("Implausible redirect", "|r3]]")
+            .addCategory("File redirect to Commons", "|r4]]")
 
             // category CSDs
-            unclassified &= classifyReason(cleanhist, entry, "Empty category", "|c1]]");
-            unclassified &= classifyReason(cleanhist, entry, "Category renaming or merger", "|c2]]", "[[wp:cfds");
+            .addCategory("Empty category", "|c1]]")
+            .addCategory("Category renaming or merger", "|c2]]", "[[wp:cfds")
 
             // file CSDs
-            unclassified &= classifyReason(cleanhist, entry, "Corrupt file", "|f2]]");
-            unclassified &= classifyReason(cleanhist, entry, "Lack of copyright information (files)", "|f3]]", "|f4]]", "|f11]]");
-            unclassified &= classifyReason(cleanhist, entry, "Problems with non-free files", "|f5]]", "|f6]]", "|f7]]");
-            unclassified &= classifyReason(cleanhist, entry, "File moved to Commons", "|f8]]", "nowcommons", 
-                "now on commons", "now on wikimedia commons");
+            .addCategory("Corrupt file", "|f2]]")
+            .addCategory("Lack of copyright information (files)", "|f3]]", "|f4]]", "|f11]]")
+            .addCategory("Problems with non-free files", "|f5]]", "|f6]]", "|f7]]")
+            .addCategory("File moved to Commons", "|f8]]", "nowcommons", "now on commons", "now on wikimedia commons")
 
             // PROD
-            unclassified &= classifyReason(cleanhist, entry, "Expired PROD", "[[wp:prod|", "proposed deletion");
-            unclassified &= classifyReason(cleanhist, entry, "Expired BLP PROD", "[[wp:blpprod");
+            .addCategory("Expired PROD", "[[wp:prod|", "proposed deletion")
+            .addCategory("Expired BLP PROD", "[[wp:blpprod")
 
-            // reposts need special treatment
-            if (reason.contains("|g4]]"))
-            {
-                cleanhist.merge("Repost of deleted content", count, Long::sum);
-                unclassified = false;
-            }
             // XFD
-            else
-            {
-                unclassified &= classifyReason(cleanhist, entry, "Deletion debate (MFD)", ":miscellany for deletion/");
-                unclassified &= classifyReason(cleanhist, entry, "Deletion debate (AFD)", ":articles for deletion/");
-                unclassified &= classifyReason(cleanhist, entry, "Deletion debate (TFD)", ":templates for discussion/");
-                unclassified &= classifyReason(cleanhist, entry, "Deletion debate (RFD)", ":redirects for discussion/");
-                unclassified &= classifyReason(cleanhist, entry, "Deletion debate (FFD)", ":files for discussion/");
-                unclassified &= classifyReason(cleanhist, entry, "Deletion debate (CFD)", ":categories for discussion/");
-            }
-
-            unclassified &= classifyReason(cleanhist, entry, "Unclassified nukes", "mass deletion of pages added by");
-            if (reason.isEmpty())
-            {
-                cleanhist.merge("''No reason given''", count, Long::sum);
-                unclassified = false;
-            }
-            if (unclassified)
-            {
-//                System.out.println(reason + ": " + count);
-                cleanhist.merge("Unclassified", count, Long::sum);
-            }
-        }
-        return cleanhist;
+            .addCategory("Deletion debate (MFD)", ":miscellany for deletion/")
+            .addCategory("Deletion debate (AFD)", ":articles for deletion/")
+            .addCategory("Deletion debate (TFD)", ":templates for discussion/")
+            .addCategory("Deletion debate (RFD)", ":redirects for discussion/")
+            .addCategory("Deletion debate (FFD)", ":files for discussion/")
+            .addCategory("Deletion debate (CFD)", ":categories for discussion/")
+            .addCategory("Unclassified nukes", "mass deletion of pages added by")
+
+            // reposts need special treatment: they link to the debate
+            .addCategory("Repost of deleted content", "|g4]]");
+        return classifier.suppress("Repost of deleted content", "Deletion debate (MFD)", "Deletion debate (AFD)",
+            "Deletion debate (TFD)", "Deletion debate (RFD)", "Deletion debate (FFD)", "Deletion debate (CFD)");
     }
 
     /**
@@ -350,7 +399,10 @@ public class AdminStats
      *  @param description the reason that is the classification
      *  @param tolookfor the list of key words to look for
      *  @return whether the reason was NOT classified
+     *  @deprecated use a {@link ReasonClassifier}, which looks for all
+     *  keywords of all groups at once
      */
+    @Deprecated
     public boolean classifyReason(Map<String, Long> clean, Map.Entry<String, Long> entry, String description, String... tolookfor)
     {
         String reason = entry.getKey();
@@ -380,15 +432,11 @@ public class AdminStats
     {
         if (locks.isEmpty())
         {
-            Wiki.RequestHelper rh = metaWiki.new RequestHelper()
-                .withinDateRange(start, end);
-            locks = metaWiki.getLogEntries(WMFWiki.GLOBAL_AUTH_LOG, null, rh);
-            locks.removeIf(log -> log.getTitle() == null || log.getComment() == null);
+            locks = fetchLog(metaWiki, WMFWiki.GLOBAL_AUTH_LOG, null);
+            locktable = LogTable.of(metaWiki, locks);
         }
-        Map<String, Long> ret = new TreeMap<>();
-        ret.putAll(locks.stream()
-            .collect(Collectors.groupingBy(log -> log.getComment().toLowerCase(), Collectors.counting())));
-        ret.put("TOTAL", Long.valueOf(locks.size()));
+        Map<String, Long> ret = locktable.countBy(LogTable.Column.COMMENT, locktable.all(), String::toLowerCase);
+        ret.put("TOTAL", Long.valueOf(locktable.size()));
         return ret;
     }
 
@@ -397,38 +445,26 @@ public class AdminStats
      *  exclusive.
      *  @param lockhist the histogram of lock reasons to group 
      *  @return a map: lock reason &#8594; count
+     *  @see #getReasonClassifier(String)
      */
     public Map<String, Long> groupLockReasons(Map<String, Long> lockhist)
     {
-        Map<String, Long> cleanlockhist = new TreeMap<>();
-        for (var entry : lockhist.entrySet())
-        {
-            String reason = entry.getKey();
-            long count = entry.getValue();
-            if (reason.equals("TOTAL"))
-                continue;
-
-            String key = "Unclassified";
-            if (reason.equals(""))
-                key = "(no reason given)";
-            else if (reason.contains("spam"))
-                key = "Spamming";
-            else if (reason.contains("long-term abuse") || reason.contains("banned") || reason.contains("lock evasion"))
-                key = "Long term abuse";
-            else if (reason.contains("cross-wiki abuse") || reason.contains("crosswiki abuse"))
-                key = "Cross wiki abuse";
-            else if (reason.contains("user name") || reason.contains("username") || reason.contains("impersonation"))
-                key = "Inappropriate username";
-            else if (reason.contains("compromised"))
-                key = "Compromised";
-            else if (reason.contains("vandalism"))
-                key = "Vandalism";
-//            else
-//                System.out.println(reason + ": " + count);
-            
-            cleanlockhist.merge(key, count, Long::sum);
-        }
-        return cleanlockhist;
+        return group(lockhist, WMFWiki.GLOBAL_AUTH_LOG, true);
+    }
+
+    /**
+     *  Returns the default lock reason groups, highest priority first.
+     */
+    private static ReasonClassifier lockReasonClassifier()
+    {
+        return new ReasonClassifier()
+            .setEmptyCategory("(no reason given)")
+            .addCategory("Spamming", "spam")
+            .addCategory("Long term abuse", "long-term abuse", "banned", "lock evasion")
+            .addCategory("Cross wiki abuse", "cross-wiki abuse", "crosswiki abuse")
+            .addCategory("Inappropriate username", "user name", "username", "impersonation")
+            .addCategory("Compromised", "compromised")
+            .addCategory("Vandalism", "vandalism");
     }
 
     /**
@@ -443,55 +479,42 @@ public class AdminStats
      */
     public Map<String, Long> blockStats(Boolean accounts, Boolean indefs) throws IOException
     {
+        // Special:Blocklist contains current blocks only
         if (blocks.isEmpty())
         {
-            Wiki.RequestHelper rh = wiki.new RequestHelper()
-                .withinDateRange(start, end);
-            // Special:Blocklist contains current blocks only
-            List<Wiki.LogEntry> lelocal = wiki.getLogEntries(Wiki.BLOCK_LOG, "block", rh);
-            for (Wiki.LogEntry log : lelocal)
-                if (log.getTitle() != null && log.getComment() != null)
-                    blocks.add(log);
+            blocks = fetchLog(wiki, Wiki.BLOCK_LOG, "block");
+            blocktable = LogTable.of(wiki, blocks);
         }
         
-        // filter expiry
-        List<Wiki.LogEntry> lelocal = new ArrayList<>(blocks);
+        // filter expiry (not a column, so use the log entries directly)
+        BitSet rows = blocktable.all();
         if (indefs != null)
         {
-            lelocal.removeIf(log ->
+            for (int i = 0; i < blocks.size(); i++)
             {
-                String expiry = log.getDetails().get("expiry");
+                String expiry = blocks.get(i).getDetails().get("expiry");
                 boolean indefinite = expiry.equals("infinity");
-                if (indefs && indefinite)
-                    return false;
-                if (!indefs && !indefinite)
-                    return false;
-                return true;
-            });
+                if (indefs != indefinite)
+                    rows.clear(i);
+            }
         }
         
         // filter accounts
         if (accounts != null)
         {
-            lelocal.removeIf(log ->
-            {
-                String user = log.getTitle();
+            BitSet ips = blocktable.where(LogTable.Column.TITLE, user ->
                 // quick and dirty
-                boolean ip = user.matches("User:\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}")
+                user.matches("User:\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}")
                     || user.matches("User:([0-9a-f]{0,4}:){1,}[0-9a-f]{0,4}")
-                    || user.contains("/"); // rangeblocks, forbidden character in usernames
-                if (accounts && !ip)
-                    return false;
-                if (!accounts && ip)
-                    return false;
-                return true;
-            });
+                    || user.contains("/")); // rangeblocks, forbidden character in usernames
+            if (accounts)
+                rows.andNot(ips);
+            else
+                rows.and(ips);
         }
         
-        Map<String, Long> ret = new TreeMap<>();
-        ret.putAll(lelocal.stream()
-            .collect(Collectors.groupingBy(log -> log.getComment().toLowerCase(), Collectors.counting())));
-        ret.put("TOTAL", Long.valueOf(lelocal.size()));
+        Map<String, Long> ret = blocktable.countBy(LogTable.Column.COMMENT, rows, String::toLowerCase);
+        ret.put("TOTAL", Long.valueOf(rows.cardinality()));
         return ret;
     }
 
@@ -500,81 +523,54 @@ public class AdminStats
      *  exclusive.
      *  @param blockhist the block reason histogram to group
      *  @return a histogram with grouped block reasons
+     *  @see #getReasonClassifier(String)
      */
     public Map<String, Long> groupBlockReasons(Map<String, Long> blockhist)
     {
-        Map<String, Long> cleanblockhist = new TreeMap<>();
-        for (var entry : blockhist.entrySet())
-        {
-            String reason = entry.getKey();
-            long count = entry.getValue();
-            if (reason.equals("TOTAL"))
-                continue;
+        return group(blockhist, Wiki.BLOCK_LOG, true);
+    }
 
-            String key = "Unclassified";
+    /**
+     *  Returns the default block reason groups, highest priority first.
+     */
+    private static ReasonClassifier blockReasonClassifier()
+    {
+        return new ReasonClassifier()
             // spamming
-            if (reason.contains("spam") || reason.contains("advertising") ||
-                reason.contains("promotion") || reason.contains("[[wp:paid"))
-                key = "Spamming";
+            .addCategory("Spamming", "spam", "advertising", "promotion", "[[wp:paid")
             // possible spamming
-            else if (reason.contains("{{uw-softerblock}}") || reason.contains("{{uw-causeblock}}"))
-                key = "Promotional username soft blocks";
+            .addCategory("Promotional username soft blocks", "{{uw-softerblock}}", "{{uw-causeblock}}")
             // copyright problems
-            else if (reason.contains("copyright"))
-                key = "Copyright violations";
+            .addCategory("Copyright violations", "copyright")
             // vandals
-            else if (reason.contains("vandalism") || reason.contains("{{uw-vaublock}}")
-                || reason.contains("{{school block}}"))
-                key = "Vandalism";
-            else if (reason.contains("edit filter"))
-                key = "Triggering the edit filter";
+            .addCategory("Vandalism", "vandalism", "{{uw-vaublock}}", "{{school block}}")
+            .addCategory("Triggering the edit filter", "edit filter")
             // unauthorized or other bot problems
-            else if (reason.matches("\\sbot\\s") || reason.contains("{{uw-botublock"))
-                key = "Unauthorized, malfunctioning bot or bot username";
+            .addCategory("Unauthorized, malfunctioning bot or bot username", " bot ", "{{uw-botublock")
             // other bad usernames
-            else if (reason.contains("<!-- username ") || reason.contains("{{uw-ublock") || reason.contains("{{uw-uhblock"))
-                key = "Other inappropriate username";
+            .addCategory("Other inappropriate username", "<!-- username ", "{{uw-ublock", "{{uw-uhblock")
             // NOTHERE
-            else if (reason.contains("nothere") || reason.contains("not here"))
-                key = "Not here to build the encyclopedia";
+            .addCategory("Not here to build the encyclopedia", "nothere", "not here")
             // BLP
-            else if (reason.contains("[[wp:biographies") || reason.contains("blp"))
-                key = "BLP violations";
+            .addCategory("BLP violations", "[[wp:biographies", "blp")
             // tendentious editing
-            else if (reason.contains("[[wp:disruptive"))
-                key = "Disruptive editing";
-            else if (reason.contains("[[wp:edit warring"))
-                key = "Edit warring";
+            .addCategory("Disruptive editing", "[[wp:disruptive")
+            .addCategory("Edit warring", "[[wp:edit warring")
             // harassment
-            else if (reason.contains("harass") || reason.contains("[[wp:no personal")
-                || reason.contains("{{oversight") || reason.contains("trolling")
-                || reason.contains("attack page"))
-                key = "Harassment";
+            .addCategory("Harassment", "harass", "[[wp:no personal", "{{oversight", "trolling", "attack page")
             // addition of unsourced material
-            else if (reason.contains("unsourced content") || reason.contains("citing sources"))
-                key = "Addition of unsourced material";
+            .addCategory("Addition of unsourced material", "unsourced content", "citing sources")
             // proxies
-            else if (reason.contains("{{colocation") || reason.contains("{{webhost") || reason.contains(" proxy}}"))
-                key = "Open proxy/webhost";
+            .addCategory("Open proxy/webhost", "{{colocation", "{{webhost", " proxy}}")
             // sockpuppetry
             // deliberately low down to capture as many underlying block reasons as possible
             // must be after proxies because some proxies use the SOCKS protocol and this is cited
             // in block summaries
-            else if (reason.contains("{{checkuserblock-account}}") || reason.contains("sock") ||
-                reason.contains("block evasion") || reason.contains("term abuse") || reason.contains("banned"))
-                key = "Sockpuppetry and long term abuse";
+            .addCategory("Sockpuppetry and long term abuse", "{{checkuserblock-account}}", "sock",
+                "block evasion", "term abuse", "banned")
             // anon block
-            else if (reason.contains("{{rangeblock") || reason.contains("{{checkuser"))
-                key = "Range blocks";
-            else if (reason.contains("{{anonblock"))
-                key = "Anonymous blocks";
-//            else
-//                System.out.println(reason + ": " + count);
-
-
-            cleanblockhist.merge(key, count, Long::sum);
-        }
-        return cleanblockhist;
+            .addCategory("Range blocks", "{{rangeblock", "{{checkuser")
+            .addCategory("Anonymous blocks", "{{anonblock");
     }
     
     /**
@@ -590,32 +586,14 @@ public class AdminStats
     {
         if (protections.isEmpty())
         {
-            Wiki.RequestHelper rh = wiki.new RequestHelper()
-                .withinDateRange(start, end);
-            List<Wiki.LogEntry> lelocal = wiki.getLogEntries(Wiki.PROTECTION_LOG, "protect", rh);
-            for (Wiki.LogEntry log : lelocal)
-                if (log.getTitle() != null && log.getComment() != null)
-                    protections.add(log);
+            protections = fetchLog(wiki, Wiki.PROTECTION_LOG, "protect");
+            protectiontable = LogTable.of(wiki, protections);
         }
         
         // namespace filter
-        List<Wiki.LogEntry> lelocal = new ArrayList<>(protections);
-        if (namespaces.length > 0)
-        {
-            lelocal.removeIf(log ->
-            {
-                int ns = wiki.namespace(log.getTitle());
-                for (int ns2 : namespaces)
-                    if (ns2 == ns)
-                        return false;
-                return true;
-            });
-        }
-        
-        Map<String, Long> ret = new TreeMap<>();
-        ret.putAll(lelocal.stream()
-            .collect(Collectors.groupingBy(log -> log.getComment().toLowerCase(), Collectors.counting())));
-        ret.put("TOTAL", Long.valueOf(lelocal.size()));
+        BitSet rows = namespaces.length > 0 ? protectiontable.inNamespaces(namespaces) : protectiontable.all();
+        Map<String, Long> ret = protectiontable.countBy(LogTable.Column.COMMENT, rows, String::toLowerCase);
+        ret.put("TOTAL", Long.valueOf(rows.cardinality()));
         return ret;
     }
     
@@ -624,57 +602,37 @@ public class AdminStats
      *  exclusive.
      *  @param prothist the protection reason histogram to group
      *  @return a histogram with grouped protection reasons
+     *  @see #getReasonClassifier(String)
      */
     public Map<String, Long> groupProtectionReasons(Map<String, Long> prothist)
     {
         // TODO: add protection level, type and expiry
-        Map<String, Long> cleanprothist = new TreeMap<>();
-        for (var entry : prothist.entrySet())
-        {
-            String reason = entry.getKey();
-            long count = entry.getValue();
-            if (reason.equals("TOTAL"))
-                continue;
-
-            String key = "Unclassified";
-            if (reason.equals(""))
-                key = "(no reason given)";
+        return group(prothist, Wiki.PROTECTION_LOG, true);
+    }
+
+    /**
+     *  Returns the default protection reason groups, highest priority first.
+     */
+    private static ReasonClassifier protectionReasonClassifier()
+    {
+        return new ReasonClassifier()
+            .setEmptyCategory("(no reason given)")
             // deliberately high up
-            else if (reason.contains("arbitration enforcement") || reason.contains("wp:a/i/pia"))
-                key = "Arbitration enforcement";
-            else if (reason.contains("[[wp:gs/"))
-                key = "General sanctions enforcement";
+            .addCategory("Arbitration enforcement", "arbitration enforcement", "wp:a/i/pia")
+            .addCategory("General sanctions enforcement", "[[wp:gs/")
             // remaining content based reasons
-            else if (reason.contains("[[wp:blp"))
-                key = "BLP violations";
-            else if (reason.contains("spam"))
-                key = "Spamming";
-            else if (reason.contains("copyright") || reason.contains("copyvio"))
-                key = "Copyright violations";
-            else if (reason.contains("[[wp:pp#content dispute") || reason.contains("edit war") || reason.contains("move war"))
-                key = "Edit warring/content dispute";
-            else if (reason.contains("verifiability") || reason.contains("[[wp:intref"))
-                key = "Addition of unsourced material";
-            else if (reason.contains("vandal"))
-                key = "Vandalism";
-            else if (reason.contains("wp:pp#user pages"))
-                key = "User request";
-            else if (reason.contains("high-risk") || reason.contains("highly visible") || reason.contains("upcoming tfa"))
-                key = "High risk page";
-            
+            .addCategory("BLP violations", "[[wp:blp")
+            .addCategory("Spamming", "spam")
+            .addCategory("Copyright violations", "copyright", "copyvio")
+            .addCategory("Edit warring/content dispute", "[[wp:pp#content dispute", "edit war", "move war")
+            .addCategory("Addition of unsourced material", "verifiability", "[[wp:intref")
+            .addCategory("Vandalism", "vandal")
+            .addCategory("User request", "wp:pp#user pages")
+            .addCategory("High risk page", "high-risk", "highly visible", "upcoming tfa")
             // deliberately low down to capture as many underlying reasons as possible
-            else if (reason.contains("sock") || reason.contains("block evasion") || reason.contains("lta"))
-                key = "Sock puppetry";
-            else if (reason.contains("[[wp:disruptive editing"))
-                key = "Unclassified disruptive editing";
-            else if (reason.contains("[[wp:salt"))
-                key = "Unclassified salting";
-//            else
-//                System.out.println(reason + ": " + count);
-
-            cleanprothist.merge(key, count, Long::sum);
-        }
-        return cleanprothist;
+            .addCategory("Sock puppetry", "sock", "block evasion", "lta")
+            .addCategory("Unclassified disruptive editing", "[[wp:disruptive editing")
+            .addCategory("Unclassified salting", "[[wp:salt");
     }
     
     /**
@@ -691,15 +649,11 @@ public class AdminStats
     {
         if (gblocks.isEmpty())
         {
-            Wiki.RequestHelper rh = metaWiki.new RequestHelper()
-                .withinDateRange(start, end);
-            gblocks = metaWiki.getLogEntries(WMFWiki.GLOBAL_BLOCK_LOG, "gblock2", rh);
-            gblocks.removeIf(log -> log.getTitle() == null || log.getComment() == null);
+            gblocks = fetchLog(metaWiki, WMFWiki.GLOBAL_BLOCK_LOG, "gblock2");
+            gblocktable = LogTable.of(metaWiki, gblocks);
         }
-        Map<String, Long> ret = new TreeMap<>();
-        ret.putAll(gblocks.stream()
-            .collect(Collectors.groupingBy(log -> log.getComment().toLowerCase(), Collectors.counting())));
-        ret.put("TOTAL", Long.valueOf(gblocks.size()));
+        Map<String, Long> ret = gblocktable.countBy(LogTable.Column.COMMENT, gblocktable.all(), String::toLowerCase);
+        ret.put("TOTAL", Long.valueOf(gblocktable.size()));
         return ret;
     }
     
@@ -708,38 +662,26 @@ public class AdminStats
      *  exclusive.
      *  @param blockhist the block reason histogram to group
      *  @return a histogram with grouped block reasons
+     *  @see #getReasonClassifier(String)
      *  @since 0.02
      */
     public Map<String, Long> groupGlobalBlockReasons(Map<String, Long> blockhist)
     {
-        Map<String, Long> cleanblockhist = new TreeMap<>();
-        for (var entry : blockhist.entrySet())
-        {
-            String reason = entry.getKey();
-            long count = entry.getValue();
-            if (reason.equals("TOTAL"))
-                continue;
+        return group(blockhist, WMFWiki.GLOBAL_BLOCK_LOG, true);
+    }
 
-            String key = "Unclassified";
-            // spamming
-            if (reason.equals(""))
-                key = "(no reason given)";
-            else if (reason.contains("spam"))
-                key = "Spamming";
-            else if (reason.contains("long-term abuse") || reason.contains("banned") || reason.contains("lock evasion"))
-                key = "Long term abuse";
-            else if (reason.contains("cross-wiki abuse") || reason.contains("crosswiki abuse") || reason.contains("cross wiki abuse"))
-                key = "Cross wiki abuse";
-            else if (reason.contains("open prox"))
-                key = "Open proxy/webhost";
-            else if (reason.contains("vandalism"))
-                key = "Vandalism";
-//            else
-//                System.out.println(reason + ": " + count);
-
-            cleanblockhist.merge(key, count, Long::sum);
-        }
-        return cleanblockhist;
+    /**
+     *  Returns the default global block reason groups, highest priority first.
+     */
+    private static ReasonClassifier globalBlockReasonClassifier()
+    {
+        return new ReasonClassifier()
+            .setEmptyCategory("(no reason given)")
+            .addCategory("Spamming", "spam")
+            .addCategory("Long term abuse", "long-term abuse", "banned", "lock evasion")
+            .addCategory("Cross wiki abuse", "cross-wiki abuse", "crosswiki abuse", "cross wiki abuse")
+            .addCategory("Open proxy/webhost", "open prox")
+            .addCategory("Vandalism", "vandalism");
     }
 
     /**
@@ -301,15 +301,19 @@ public class ArticleEditorIntersector
      *  between {@link #getEarliestDateTime()} and {@link #getLatestDateTime()}.
      *  Includes deleted edits if {@link #isUsingAdminPrivileges()} is 
      *  {@code true} and ignores minor edits if {@link #isIgnoringMinorEdits()}
-     *  is {@code true}.
+     *  is {@code true}. Histories are fetched concurrently, up to {@link 
+     *  Wiki#getMaxConcurrentRequests()} at a time. Each history is kept as an
+     *  array of revisions and an array of user indices until the common 
+     *  editors are known.
      * 
      *  @param articles a list of at least two unique pages to analyze for 
      *  common editors
      *  @param noadmin exclude admins from the analysis
      *  @param nobot exclude flagged bots from the analysis
      *  @param noanon exclude IPs from the analysis
-     *  @return a map with user &#8594; list of revisions made. If the total
-     *  number of pages does not exceed one after applying all exclusions and 
+     *  @return a map with user &#8594; list of revisions made, grouped by
+     *  page in the order supplied and with the latest revision on each page
+     *  first. If the total number of pages does not exceed one after applying all exclusions and 
      *  removing revisions with deleted/suppressed usernames and pages with no
      *  (deleted) history or there is no intersection, return an empty map.
      *  @throws IOException if a network error occurs
@@ -323,87 +327,105 @@ public class ArticleEditorIntersector
             .withinDateRange(earliestdate, latestdate);
                 
         // remove duplicates and fail quickly if less than two pages
-        Set<String> pageset = new HashSet<>();
+        Set<String> pageset = new LinkedHashSet<>();
         for (String article : articles)
             if (wiki.namespace(article) >= 0) // remove Special: and Media: pages
                 pageset.add(article);
         if (pageset.size() < 2)
             throw new IllegalArgumentException("At least two articles are needed to derive a meaningful intersection.");
+        List<String> pagelist = new ArrayList<>(pageset);
         
-        // fetch histories and group by user
+        // fetch histories concurrently
         // If a network error occurs when fetching the live history, that page 
         // will be skipped. If a network or privilege error occurs when fetching 
         // deleted history, that will be skipped with the live history returned.
-        ThrowingFunction<String, Stream<Wiki.Revision>> tf = article ->
+        ThrowingFunction<String, List<Wiki.Revision>> tf = article ->
         {
             Stream<Wiki.Revision> str = wiki.getPageHistory(article, rh).stream();
             if (adminmode)
-                str = Stream.concat(str, wiki.getDeletedHistory(article, rh).stream());
-            return str;
+            {
+                try
+                {
+                    str = Stream.concat(str, wiki.getDeletedHistory(article, rh).stream());
+                }
+                catch (IOException | SecurityException ex)
+                {
+                }
+            }
+            str = str.filter(rev -> rev.getUser() != null); // remove deleted/suppressed usernames
+            if (nominor)
+                str = str.filter(rev -> !rev.isMinor());
+            // revert detection needs the earliest revision first, then 
+            // restore the latest revision first
+            if (noreverts)
+                return Revisions.removeReverts(str.toList()).reversed();
+            return str.toList();
         };
-        Stream<Wiki.Revision> revstream = pageset.stream()
-            .flatMap(tf)
-            .filter(rev -> rev.getUser() != null); // remove deleted/suppressed usernames
-        if (nominor)
-            revstream = revstream.filter(rev -> !rev.isMinor());
-        if (noreverts)
-            revstream = Revisions.removeReverts(revstream.collect(Collectors.toList())).stream();
-        Map<String, List<Wiki.Revision>> results = revstream.collect(Collectors.groupingBy(Wiki.Revision::getUser));
         
-        Iterator<Map.Entry<String, List<Wiki.Revision>>> iter = results.entrySet().iterator();
-        while (iter.hasNext())
+        // Record which articles each user edited and keep each history in 
+        // compact arrays, to be pruned once the intersection is known.
+        Wiki.Revision[][] histories = new Wiki.Revision[pagelist.size()][];
+        int[][] historyusers = new int[pagelist.size()][];
+        Map<String, Integer> userids = new HashMap<>();
+        List<String> usernames = new ArrayList<>();
+        List<BitSet> userpages = new ArrayList<>();
+        ConcurrencyUtils.forEach(pagelist, wiki.getMaxConcurrentRequests(), tf::apply, (index, history) ->
         {
-            Map.Entry<String, List<Wiki.Revision>> item = iter.next();
-            List<Wiki.Revision> list = item.getValue();
-            // throw out any account that appears in only one revision
-            if (list.size() < 2)
+            if (history == null)
+                return;
+            int[] users = new int[history.size()];
+            for (int i = 0; i < users.length; i++)
             {
-                iter.remove();
-                continue;
+                int id = userids.computeIfAbsent(history.get(i).getUser(), username ->
+                {
+                    usernames.add(username);
+                    userpages.add(new BitSet());
+                    return usernames.size() - 1;
+                });
+                userpages.get(id).set(index);
+                users[i] = id;
             }
-            // throw out any account that appears in only one article
-            Set<String> allpages = list.stream()
-                .map(Wiki.Revision::getTitle)
-                .collect(Collectors.toCollection(HashSet::new));
-            if (allpages.size() < 2)
-                iter.remove();
-        } 
+            histories[index] = history.toArray(Wiki.Revision[]::new);
+            historyusers[index] = users;
+        });
+        
+        // throw out any account that appears in only one article (and hence
+        // in only one revision)
+        List<String> survivors = new ArrayList<>();
+        for (int i = 0; i < usernames.size(); i++)
+            if (userpages.get(i).cardinality() > 1)
+                survivors.add(usernames.get(i));
 
         // remove admins, bots and anons if necessary
-        if (results.isEmpty())
-            return results;
-        Set<String> keyset = results.keySet();
-        if (noadmin || nobot || noanon)
+        if (!survivors.isEmpty() && (noadmin || nobot || noanon))
         {
-            List<String> usernames = new ArrayList<>(keyset);
-            List<Wiki.User> userinfo = wiki.getUsers(usernames);
-            for (int i = 0; i < userinfo.size(); i++)
+            List<Wiki.User> userinfo = wiki.getUsers(survivors);
+            Iterator<String> iter = survivors.iterator();
+            for (Wiki.User user : userinfo)
             {
-                // skip IPs because getUsers returns null
-                Wiki.User user = userinfo.get(i);
-                if (user == null)
-                {
-                    if (noanon)
-                        keyset.remove(usernames.get(i));
-                    continue;
-                }
-                
-                for (String group : user.getGroups())
-                {
-                    if (group.equals("sysop") && noadmin)
-                    {
-                        keyset.remove(usernames.get(i));
-                        continue;
-                    }
-                    if (group.equals("bot") && nobot)
-                    {
-                        keyset.remove(usernames.get(i));
-                        continue;
-                    }
-                }
+                iter.next();
+                // IPs have no user info
+                if (user == null ? noanon : noadmin && user.isA("sysop") || nobot && user.isA("bot"))
+                    iter.remove();
             }
         }
         
+        // build the revision lists of the remaining users, in the same order
+        // as the histories
+        boolean[] keep = new boolean[usernames.size()];
+        for (String survivor : survivors)
+            keep[userids.get(survivor)] = true;
+        Map<String, List<Wiki.Revision>> results = new HashMap<>();
+        for (int i = 0; i < pagelist.size(); i++)
+        {
+            if (histories[i] == null)
+                continue;
+            for (int j = 0; j < histories[i].length; j++)
+                if (keep[historyusers[i][j]])
+                    results.computeIfAbsent(usernames.get(historyusers[i][j]), username -> new ArrayList<>()).add(histories[i][j]);
+            // allow the rest of this history to be collected
+            histories[i] = null;
+        }
         return results;
     }
     
@@ -58,16 +58,13 @@ public class BlockLockStuff
         WMFWiki meta = sessions.sharedSession("meta.wikimedia.org");
         System.out.println("Not locked:");
         System.out.println("*{{MultiLock");
-        for (String sock : socks)
-        {
-            // TODO: this is an inefficient way of determining whether an account
-            // is locked - there is an additional API call that is still one user = one call
-            // but less data transfer. Also, as usual, the W?F can't be arsed doing this
-            // properly: https://phabricator.wikimedia.org/T261752
-            Map<String, Object> ginfo = sessions.getGlobalUserInfo(sock);
-            if (ginfo != null && !(Boolean)ginfo.get("locked"))
-                System.out.print("|" + meta.removeNamespace(sock));
-        }
+        // still one user = one call, but concurrent and with as little data 
+        // transfer as possible. As usual, the W?F can't be arsed doing this
+        // properly: https://phabricator.wikimedia.org/T261752
+        var ginfo = sessions.getGlobalUserInfo(socks, WMFWikiFarm.GlobalUserDetail.LOCK_STATUS);
+        for (var entry : ginfo.entrySet())
+            if (entry.getValue() != null && !(Boolean)entry.getValue().get("locked"))
+                System.out.print("|" + meta.removeNamespace(entry.getKey()));
         System.out.println("}}\n\n");
     }
     
@@ -77,29 +74,23 @@ public class BlockLockStuff
         List<String> notstale = new ArrayList<>();
         List<String> stale = new ArrayList<>();
         List<String> unregistered = new ArrayList<>();
-        List<List<Wiki.Revision>> contribs = wiki.contribs(socks, null, null);
+        // one request per user, but only two timestamps each and concurrent
+        List<Map<String, OffsetDateTime>> activity = wiki.getLastActivity(socks);
         OffsetDateTime staledate = OffsetDateTime.now().minusDays(91);
         for (int i = 0; i < socks.size(); i++)
         {
-            String sock = socks.get(i);
-            String sock2 = wiki.removeNamespace(sock);
-            Wiki.RequestHelper rh = wiki.new RequestHelper().byUser(sock);
-            List<Wiki.LogEntry> socklogs = wiki.getLogEntries(Wiki.ALL_LOGS, null, rh);
-            if (socklogs.isEmpty())
+            String sock2 = wiki.removeNamespace(socks.get(i));
+            OffsetDateTime lastlog = activity.get(i).get("lastlog");
+            if (lastlog == null)
             {
                 unregistered.add("*{{checkuser|" + sock2 + "}}");
                 continue;
             }
             
-            List<Wiki.Revision> sockcontribs = contribs.get(i);
-            OffsetDateTime lastlog = socklogs.get(0).getTimestamp();
             OffsetDateTime lastactive = lastlog;
-            if (!sockcontribs.isEmpty())
-            {
-                OffsetDateTime lastedit = sockcontribs.get(0).getTimestamp();
-                if (lastedit.isAfter(lastlog))
-                    lastactive = lastedit;
-            }
+            OffsetDateTime lastedit = activity.get(i).get("lastedit");
+            if (lastedit != null && lastedit.isAfter(lastlog))
+                lastactive = lastedit;
             if (lastactive.isAfter(staledate))
                 notstale.add("*{{checkuser|" + sock2 + "}}");
             else
@@ -119,7 +110,7 @@ public class BlockLockStuff
     public static void blockFinder(Wiki wiki, List<String> socks) throws Exception
     {
         List<Wiki.LogEntry> blocklist = wiki.getBlockList(socks, null);
-        List<String> unblocked = new ArrayList<>(socks);
+        Set<String> unblocked = new LinkedHashSet<>(socks);
         
         // TODO: add locks - not possible currently due to:
         // 1. T261752
@@ -20,11 +20,14 @@
 package org.wikipedia.tools;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.util.function.*;
 import java.util.logging.*;
 import java.util.regex.*;
+import java.util.stream.*;
+import java.util.zip.*;
 import org.wikipedia.*;
 
 /**
@@ -41,7 +44,7 @@ import org.wikipedia.*;
  *  </pre>
  * 
  *  @author MER-C
- *  @version 0.06
+ *  @version 0.07
  */
 public class CCIAnalyzer
 {
@@ -49,12 +52,34 @@ public class CCIAnalyzer
     private Predicate<String> cullingfn;
     private Function<String, String> filterfn;
     private Predicate<String> titlefn;
+    private Path diffstore;
+    private int maxretries = 3;
+    private volatile boolean nscached;
     
     // Default size addition limit for CCIs
     private static int MAX_EDIT_SIZE = 150;
     
-    // lazy initialized stuff
-    private static Pattern targs_pattern, quoterefs_pattern, cite_template_pattern;
+    private static final Pattern targs_pattern = Pattern.compile("\\|\\s*(" + 
+        // citation templates
+        "archiveurl|archive-url|url|title|date|accessdate|access-date|archivedate|" +
+        "archive-date|last|first|work|author|publisher)\\s*=\\s*.{0," + MAX_EDIT_SIZE + "}?(\\||$|\\})");
+    private static final Pattern quoterefs_pattern = Pattern.compile("\\|\\s*quote\\s*=\\s*");
+    private static final Pattern cite_template_pattern = 
+        Pattern.compile("^\\*\\s*\\{\\{\\s*cite (web|book|news|journal)\\s*\\|.{0,200}\\}\\}\\s*$");
+    
+    // character classes for wordCountCull, indexed by ASCII code
+    private static final int WORD_SEPARATOR = 1, TOKEN_SEPARATOR = 2, PUNCTUATION = 4;
+    private static final byte[] char_classes = new byte[128];
+    static
+    {
+        // as in the regexes \s and \p{Punct}
+        for (char c : " \t\n\u000B\f\r".toCharArray())
+            char_classes[c] |= WORD_SEPARATOR;
+        for (char c : "<>{}|=".toCharArray())
+            char_classes[c] |= TOKEN_SEPARATOR;
+        for (char c : "!\"#$%&'()*+,-./:;<=>?@[\\]^_`{|}~".toCharArray())
+            char_classes[c] |= PUNCTUATION;
+    }
        
     /**
      *  Runs this program.
@@ -77,11 +102,15 @@ public class CCIAnalyzer
             .addSingleArgumentFlag("--numwords", "int", "Strings with more than this number of consecutive words are major edits.")
             .addSingleArgumentFlag("--infile", "example.txt", "Read in the CCI from a file.")
             .addSingleArgumentFlag("--outfile", "example.txt", "Write output to example.txt, example.txt.001, example.txt.002, ...")
-            .addVersion("CCIAnalyzer v0.06\n" + CommandLineParser.GPL_VERSION_STRING)
+            .addSingleArgumentFlag("--diffstore", "directory", "Store fetched diffs in this directory and reuse them on subsequent runs.")
+            .addVersion("CCIAnalyzer v0.07\n" + CommandLineParser.GPL_VERSION_STRING)
             .addHelp()
             .parse(args);
         
         CCIAnalyzer analyzer = new CCIAnalyzer();
+        String diffstore = parsedargs.get("--diffstore");
+        if (diffstore != null)
+            analyzer.setDiffStore(Paths.get(diffstore));
         int wordcount = Integer.parseInt(parsedargs.getOrDefault("--numwords", "10"));
 
         // load CCIs
@@ -173,7 +202,8 @@ public class CCIAnalyzer
     /**
      *  Sets the function used by this analyzer that determines whether edits
      *  are major or minor. This class defines several static functions that may
-     *  be useful. Culling functions should expect entirely lower case strings only.
+     *  be useful. Culling functions should expect entirely lower case strings only
+     *  and must be thread safe (see {@link #analyzeDiffs(CCIPage)}).
      * 
      *  @param culler a function String &#8594; boolean, that indicates whether 
      *  a block of text added should be counted as major; must not be null
@@ -188,7 +218,7 @@ public class CCIAnalyzer
      *  Sets the function used by this analyzer that removes text from changes
      *  before determining whether they are major or minor. This class defines 
      *  several static functions that may be useful. Filtering functions should
-     *  expect entirely lower case strings only.
+     *  expect entirely lower case strings only and must be thread safe.
      * 
      *  <p>
      *  {@link org.wikipedia.WikitextUtils} defines a function {@link 
@@ -229,6 +259,7 @@ public class CCIAnalyzer
     public List<CCIPage> loadWikiPages(Wiki wiki, List<String> pages) throws IOException
     {
         this.wiki = wiki;
+        nscached = false;
         List<CCIPage> ccis = new ArrayList<>();
         List<String> text = wiki.getPageText(pages);
         for (int i = 0; i < text.size(); i++)
@@ -250,6 +281,7 @@ public class CCIAnalyzer
     public CCIPage loadString(Wiki wiki, String cci)
     {
         this.wiki = wiki;
+        nscached = false;
         CCIPage page = new CCIPage("[Loaded String]", cci);
         filterPage(page);
         return page;
@@ -288,12 +320,53 @@ public class CCIAnalyzer
         page.cci = sb.toString();
     }
     
+    /**
+     *  Sets a directory in which fetched diffs are stored, one file per oldid
+     *  in a subdirectory per wiki (oldids are only unique within a wiki).
+     *  Diffs that are already stored there are not fetched again, so an 
+     *  interrupted run can be resumed and the same diffs can be reused for
+     *  different CCI pages and culling functions. The directory is created if
+     *  it does not exist.
+     *  @param dir a directory, or null to disable storing diffs
+     *  @throws IOException if the directory cannot be created
+     *  @since 0.07
+     */
+    public void setDiffStore(Path dir) throws IOException
+    {
+        if (dir != null)
+            Files.createDirectories(dir);
+        diffstore = dir;
+    }
+    
+    /**
+     *  Sets the number of times the fetching of a diff is retried after a 
+     *  network error before giving up on it. Retries back off exponentially
+     *  starting at one second. Diffs that could not be fetched are skipped 
+     *  (and, if a {@linkplain #setDiffStore(Path) diff store} is set, are 
+     *  fetched again the next time diffs are loaded). The default is 3.
+     *  @param retries the number of retries
+     *  @throws IllegalArgumentException if {@code retries < 0}
+     *  @since 0.07
+     */
+    public void setMaxRetries(int retries)
+    {
+        if (retries < 0)
+            throw new IllegalArgumentException("Retries must be non-negative.");
+        maxretries = retries;
+    }
+    
     /**
      *  Loads and parses diffs from a loaded CCI. Diffs must be of the format 
-     *  [[Special:Diff/123456]].
+     *  [[Special:Diff/123456]]. Diffs are fetched concurrently, subject to
+     *  {@link Wiki#getMaxConcurrentRequests()}, and appear in the same order 
+     *  as in the CCI.
      *  @param ccipage the CCI page containing the diffs to be loaded
      *  @throws IllegalArgumentException if the CCI is not loaded
+     *  @throws UncheckedIOException if the diff store cannot be read or 
+     *  written
      *  @since 0.02
+     *  @see #setDiffStore(Path) 
+     *  @see #setMaxRetries(int) 
      */
     public void loadDiffs(CCIPage ccipage)
     {
@@ -305,60 +378,123 @@ public class CCIAnalyzer
         ccipage.diffshort.clear();
         
         // parse the list of diffs
-        int parsed = 0;
-        long start = System.currentTimeMillis();
-        boolean exception = false;
+        List<String> edits = new ArrayList<>();
+        List<Long> oldids = new ArrayList<>();
         for (int i = cci.indexOf("[[Special:Diff/"); i >= 0; i = cci.indexOf("[[Special:Diff/", ++i))
         {
             int xx = cci.indexOf("/", i);
             int yy = cci.indexOf("|", xx);
             int zz = cci.indexOf("]]", xx) + 2;
-            String edit = cci.substring(i, zz);
-            long oldid = Long.parseLong(cci.substring(xx + 1, yy));
-
-            // Fetch diff. No plain text diffs for performance reasons, see
-            // https://phabricator.wikimedia.org/T15209. 
+            edits.add(cci.substring(i, zz));
+            oldids.add(Long.parseLong(cci.substring(xx + 1, yy)));
+        }
+        
+        // fetch diffs concurrently, then reassemble in order
+        String[] fetched = new String[oldids.size()];
+        int[] progress = new int[2]; // { parsed, failed }
+        long start = System.currentTimeMillis();
+        int total = oldids.size();
+        try
+        {
+            ConcurrencyUtils.forEach(oldids, wiki.getMaxConcurrentRequests(), this::fetchDiff, (index, diff) ->
+            {
+                fetched[index] = diff;
+                progress[0]++;
+                if (diff == null)
+                {
+                    progress[1]++;
+                    System.err.printf("\r\033[K\033[31;1mSkipping oldid %s\033[0m\n", oldids.get(index));
+                }
+                long now = System.currentTimeMillis();
+                double percent = 100.0 * progress[0] / total;
+                int elapsed = (int)((now - start) / 1000.0);
+                int projected = elapsed * total / progress[0];
+                int eta = projected - elapsed;
+                System.err.printf("\r\033[K%d of %d diffs loaded (%2.2f%%, %d:%02d remaining)", 
+                    progress[0], total, percent, eta / 60, eta % 60);
+            });
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+        for (int i = 0; i < fetched.length; i++)
+        {
+            // RevisionDeleted revisions, dummy edits and failures
+            if (fetched[i] == null || fetched[i].isEmpty())
+                continue;
+            ccipage.diffshort.add(edits.get(i));
+            ccipage.diffs.add(fetched[i]);
+        }
+        System.err.println();
+        if (progress[1] > 0)
+            System.err.printf("\033[31;1m%d diffs could not be loaded.\033[0m\n", progress[1]);
+    }
+    
+    /**
+     *  Fetches a single lower cased diff, either from the diff store or the 
+     *  wiki, retrying on network errors.
+     *  @param oldid the oldid of the diff to fetch
+     *  @return the diff, the empty string for RevisionDeleted revisions and
+     *  dummy edits or null if the diff could not be fetched
+     *  @throws IOException if the diff store cannot be read or written
+     */
+    private String fetchDiff(long oldid) throws IOException
+    {
+        Path dir = diffstore == null ? null : diffstore.resolve(wiki.getDomain());
+        Path stored = dir == null ? null : dir.resolve(oldid + ".diff.gz");
+        if (stored != null && Files.exists(stored))
+        {
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(stored)))
+            {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        
+        String diff = null;
+        for (int i = 0; i <= maxretries && diff == null; i++)
+        {
             try 
             {
-                String diff = wiki.diff(Map.of("revid", oldid), Map.of("revid", Wiki.PREVIOUS_REVISION), "inline");
-                parsed++;
-                if (diff == null || diff.isEmpty()) // RevisionDeleted revisions and dummy edits
-                    continue;
-                ccipage.diffshort.add(edit);
-                ccipage.diffs.add(diff.toLowerCase(wiki.locale()));
-                exception = false;
+                // No plain text diffs for performance reasons, see
+                // https://phabricator.wikimedia.org/T15209. 
+                diff = wiki.diff(Map.of("revid", oldid), Map.of("revid", Wiki.PREVIOUS_REVISION), "inline");
+                diff = (diff == null) ? "" : diff.toLowerCase(wiki.locale());
             }
             catch (IOException ex)
             {
-                System.err.println();
-                System.out.flush();
-                ex.printStackTrace();
-                
-                // bail if two IOExceptions are thrown consecutively
-                if (exception)
+                if (i == maxretries)
+                    return null;
+                try
                 {
-                    System.err.printf("\033[31;1mBailing due to consecutive IOExceptions!\033[0m\n");
-                    break;
+                    Thread.sleep(1000L << i);
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
                 }
-                System.err.printf("\033[31;1mSkipping oldid %s\033[0m\n", oldid);
-                exception = true;
-                continue;
             }
             catch (UnknownError err)
             {
                 // HACK: RevisionDeleted revision or deleted article.
-                continue;
+                diff = "";
             }
-            
-            long now = System.currentTimeMillis();
-            double percent = 100.0 * parsed / ccipage.diffcount;
-            int elapsed = (int)((now - start) / 1000.0);
-            int projected = elapsed * ccipage.diffcount / parsed;
-            int eta = projected - elapsed;
-            System.err.printf("\r\033[K%d of %d diffs loaded (%2.2f%%, %d:%02d remaining)", 
-                parsed, ccipage.diffcount - ccipage.baseremoveddiffs, percent, eta / 60, eta % 60);
         }
-        System.err.println();
+        
+        // write to a temporary file first so that a crash can't leave a 
+        // truncated diff in the store
+        if (stored != null)
+        {
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, oldid + "-", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp)))
+            {
+                out.write(diff.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.move(temp, stored, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return diff;
     }
     
     /**
@@ -367,52 +503,130 @@ public class CCIAnalyzer
      *  culling functions may be experimented with to see which works best. 
      *  Culling is not cumulative unless you save the wikipage in between and 
      *  reload the diffs.
+     * 
+     *  <p>
+     *  Diffs are culled in parallel on the common fork-join pool, so the 
+     *  culling and filtering functions must be thread safe. All functions in
+     *  this class are.
      *  @param page the CCI page to analyze diffs for
      *  @since 0.02
      */
     public void analyzeDiffs(CCIPage page)
     {
         page.minoredits.clear();
+        // diffs are independent, so cull them in parallel then collect the 
+        // minor edits in CCI order
+        boolean[] major = new boolean[page.diffs.size()];
+        IntStream.range(0, major.length).parallel()
+            .forEach(i -> major[i] = isMajorEdit(page.diffs.get(i)));
+        for (int i = 0; i < major.length; i++)
+            if (!major[i])
+                page.minoredits.add(page.diffshort.get(i));
+    }
+    
+    /**
+     *  Extracts the wikitext added by each line of an inline diff and 
+     *  determines whether any of it is a major edit.
+     *  @param diff a lower cased inline diff
+     *  @return whether the diff is a major edit
+     */
+    private boolean isMajorEdit(String diff)
+    {
         // some HTML strings we are looking for
         // see https://en.wikipedia.org/w/api.php?action=compare&fromrev=77350972&torelative=prev
-        Pattern ins = Pattern.compile("<ins .+?>(.+?)</ins>");
-
-        for (int i = 0; i < page.diffs.size(); i++)
+        StringBuilder change = new StringBuilder();
+        int length = diff.length();
+        for (int start = 0, end; start < length; start = end + 1)
         {
-            String[] lines = page.diffs.get(i).split("\\n");
-            boolean major = false;
-            for (String line : lines)
+            end = diff.indexOf('\n', start);
+            if (end < 0)
+                end = length;
+            
+            // classify the line in a single pass over its classes
+            boolean added = false, changed = false, empty = false;
+            for (int i = indexOf(diff, "mw-diff-", start, end); i >= 0; i = indexOf(diff, "mw-diff-", i + 8, end))
+            {
+                if (diff.startsWith("inline-added", i + 8))
+                    added = true;
+                else if (diff.startsWith("inline-moved", i + 8) || diff.startsWith("inline-changed", i + 8))
+                    changed = true;
+                else if (diff.startsWith("empty-line", i + 8))
+                    empty = true;
+            }
+            
+            // extract the wikitext additions from the diff HTML
+            change.setLength(0);
+            if (added && !empty)
+            {
+                if (!appendInsertions(diff, start, end, change, false))
+                    continue;
+            }
+            else if (changed)
+                // Condense deltas to avoid problems like https://en.wikipedia.org/w/index.php?title=&diff=prev&oldid=486611734
+                appendInsertions(diff, start, end, change, true);
+            else
+                continue;
+            if (cullingfn.test(filterfn.apply(change.toString())))
+                return true;
+        }
+        return false;
+    }
+    
+    /**
+     *  Appends the contents of the {@code <ins>} elements in {@code 
+     *  diff[start, end)} to <var>sb</var>, decoding {@code &lt;} and {@code
+     *  &gt;} on the way.
+     *  @param all whether to append all elements followed by a space or only
+     *  the first
+     *  @return whether any element was found
+     */
+    private static boolean appendInsertions(String diff, int start, int end, StringBuilder sb, boolean all)
+    {
+        boolean found = false;
+        for (int i = indexOf(diff, "<ins ", start, end); i >= 0; i = indexOf(diff, "<ins ", i, end))
+        {
+            int gt = diff.indexOf('>', i + 6);
+            if (gt < 0 || gt >= end)
+                break;
+            int close = indexOf(diff, "</ins>", gt + 2, end);
+            if (close < 0)
+                break;
+            for (int j = gt + 1; j < close; j++)
             {
-                // extract the wikitext additions from the diff HTML
-                String change;
-                if (line.contains("mw-diff-inline-added") && !line.contains("mw-diff-empty-line"))
+                char c = diff.charAt(j);
+                if (c == '&' && diff.startsWith("&lt;", j))
                 {
-                    Matcher m = ins.matcher(line);
-                    m.find();
-                    change = m.group(1);
+                    sb.append('<');
+                    j += 3;
                 }
-                else if (line.contains("mw-diff-inline-moved") || line.contains("mw-diff-inline-changed"))
+                else if (c == '&' && diff.startsWith("&gt;", j))
                 {
-                    // Condense deltas to avoid problems like https://en.wikipedia.org/w/index.php?title=&diff=prev&oldid=486611734
-                    StringBuilder sb = new StringBuilder();
-                    Matcher m = ins.matcher(line);
-                    while (m.find())
-                    {
-                        sb.append(m.group(1));
-                        sb.append(" ");
-                    }
-                    change = sb.toString();
+                    sb.append('>');
+                    j += 3;
                 }
                 else
-                    continue;
-                change = change.replace("&lt;", "<").replace("&gt;", ">");
-                major = cullingfn.test(filterfn.apply(change));
-                if (major)
-                    break;
+                    sb.append(c);
             }
-            if (!major)
-                page.minoredits.add(page.diffshort.get(i));
+            found = true;
+            if (!all)
+                break;
+            sb.append(' ');
+            i = close + 6;
         }
+        return found;
+    }
+    
+    /**
+     *  Returns the index of the first occurrence of <var>needle</var> that 
+     *  lies entirely within {@code s[from, to)}, or -1 if there is none.
+     */
+    private static int indexOf(String s, String needle, int from, int to)
+    {
+        char first = needle.charAt(0);
+        for (int i = from, max = to - needle.length(); i <= max; i++)
+            if (s.charAt(i) == first && s.startsWith(needle, i))
+                return i;
+        return -1;
     }
     
     /**
@@ -552,13 +766,10 @@ public class CCIAnalyzer
      */
     public static boolean whitelistCull(String delta)
     {
-        for (String commonality : whitelist)
-            if (delta.contains(commonality))
-                return false;
-        return true;
+        return !whitelist.containsAny(delta);
     }
     
-    private static final List<String> whitelist = List.of(
+    private static final AhoCorasick whitelist = new AhoCorasick(List.of(
         // AFD
         "{{article for deletion/dated|",
         "please do not remove or change this afd message",
@@ -569,7 +780,7 @@ public class CCIAnalyzer
         "don't add anything after this line unless you're drafting",
         "{{proposed deletion/dated|", // {{subst:prod}}
         "{{prod blp/dated|", // {{subst:prod blp}}
-        "{{infobox ");
+        "{{infobox "), false);
     
     /**
      *  Determines whether a given delta is a major edit. A "major edit" is
@@ -600,29 +811,59 @@ public class CCIAnalyzer
             if (parsedlink.get(0).length() > 100)
                 // something has gone wrong here
                 break;
-            else if (wiki.namespace(parsedlink.get(0)) == Wiki.CATEGORY_NAMESPACE)
+            else if (namespace(parsedlink.get(0)) == Wiki.CATEGORY_NAMESPACE)
                 // I'm not interested in the category sortkey
                 temp.delete(i, j + 2);
             else
                 temp.replace(i, j + 2, parsedlink.get(1));
         }
         
-        StringTokenizer tk = new StringTokenizer(temp.toString(), "<>{}|=");
-        while (tk.hasMoreTokens())
+        // count the words in each segment delimited by <>{}|=. Mop up some 
+        // non-words such as dashes and stray bits of wiki markup e.g. ''' Test '''
+        // by only counting words that contain something other than punctuation.
+        int count = 0;
+        boolean counted = false;
+        for (int i = 0; i < temp.length(); i++)
         {
-            String token =  tk.nextToken();
-            String[] words = token.split("\\s");
-            int count = 0;
-            // mop up some non-words such as dashes and stray bits of wiki markup e.g. ''' Test '''
-            for (String word : words)
-                if (!word.matches("^\\p{Punct}*$"))
-                    count++;
-            if (count > wordcount)
-                return true;
+            char c = temp.charAt(i);
+            int cc = c < 128 ? char_classes[c] : 0;
+            if ((cc & TOKEN_SEPARATOR) != 0)
+            {
+                count = 0;
+                counted = false;
+            }
+            else if ((cc & WORD_SEPARATOR) != 0)
+                counted = false;
+            else if ((cc & PUNCTUATION) == 0 && !counted)
+            {
+                counted = true;
+                if (++count > wordcount)
+                    return true;
+            }
         }
         return false;
     }
     
+    /**
+     *  Calls {@link Wiki#namespace(String)}, populating the namespace cache 
+     *  while holding a lock so that this is safe to call from culling 
+     *  functions running in parallel.
+     *  @param title a page title
+     *  @return the namespace of that page
+     */
+    private int namespace(String title)
+    {
+        if (!nscached)
+        {
+            synchronized (this)
+            {
+                wiki.namespace(title);
+                nscached = true;
+            }
+        }
+        return wiki.namespace(title);
+    }
+    
     /**
      *  Removes references from the given wikitext. The use of reference removal
      *  is an aggressive filtering option that should not be used unless it has
@@ -636,10 +877,6 @@ public class CCIAnalyzer
      */
     public static String removeReferences(String wikitext)
     {
-        if (quoterefs_pattern == null)
-            quoterefs_pattern = Pattern.compile("\\|\\s*quote\\s*=\\s*");
-        if (cite_template_pattern == null)
-            cite_template_pattern = Pattern.compile("^\\*\\s*\\{\\{\\s*cite (web|book|news|journal)\\s*\\|.{0,200}\\}\\}\\s*$");
         if (!quoterefs_pattern.matcher(wikitext).find())
         {
             // Requires extension Cite, and therefore not in WikitextUtils
@@ -674,13 +911,6 @@ public class CCIAnalyzer
      */
     public static String removeTemplateArguments(String wikitext)
     {
-        if (targs_pattern == null)
-        {
-            targs_pattern = Pattern.compile("\\|\\s*(" + 
-                // citation templates
-                "archiveurl|archive-url|url|title|date|accessdate|access-date|archivedate|" +
-                "archive-date|last|first|work|author|publisher)\\s*=\\s*.{0," + MAX_EDIT_SIZE + "}?(\\||$|\\})");
-        }
         Matcher matcher = targs_pattern.matcher(wikitext);
         while (matcher.find())
         {
@@ -1,6 +1,6 @@
 /**
- *  @(#)ContributionSurveyor.java 0.09 10/02/2024
- *  Copyright (C) 2011-2024 MER-C
+ *  @(#)ContributionSurveyor.java 0.10 19/10/2026
+ *  Copyright (C) 2011-2026 MER-C
  *
  *  This program is free software: you can redistribute it and/or modify
  *  it under the terms of the GNU Affero General Public License as
@@ -19,12 +19,14 @@
 package org.wikipedia.tools;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.nio.file.*;
 import java.util.*;
 import java.util.zip.*;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.*;
 import javax.security.auth.login.*;
 
 import org.wikipedia.*;
@@ -121,37 +123,40 @@ public class ContributionSurveyor
         temp.append("</kbd>");
         surveyor.setFooter(temp.toString());
        
-        List<String> output = surveyor.outputContributionSurvey(users, !parsedargs.containsKey("--skiplive"),
-            parsedargs.containsKey("--deleted"), parsedargs.containsKey("--images"), ns);
-
         String outfile = parsedargs.get("--outfile");
         Path path = CommandLineParser.parseFileOption(parsedargs, "--outfile", "Select output file", 
             "Error: No output file selected.", true);
+        boolean live = !parsedargs.containsKey("--skiplive");
+        boolean deleted = parsedargs.containsKey("--deleted");
+        boolean images = parsedargs.containsKey("--images");
         if (parsedargs.containsKey("--zip"))
         {
-            String fname = outfile.replace(".zip", ".txt");
-            Map<String, byte[]> zip = new LinkedHashMap<>();
-            for (int i = 0; i < output.size(); i++)
-                zip.put(fname + (i == 0 ? "" : ".%03d".formatted(i)), output.get(i).getBytes());
             try (ZipOutputStream zout = new ZipOutputStream(new FileOutputStream(path.toFile())))
             {
-                ContributionSurveyor.outputZipFile(zout, zip);
+                surveyor.outputContributionSurvey(users, live, deleted, images, 
+                    SurveySink.of(zout, outfile.replace(".zip", ".txt")), ns);
             }
         }
         else
         {
-            try (BufferedWriter outwriter = Files.newBufferedWriter(path))
-            {
-                outwriter.write(output.get(0));
-            }
-            for (int i = 1; i < output.size(); i++)
+            Path first = path;
+            surveyor.outputContributionSurvey(users, live, deleted, images, new SurveySink()
             {
-                path = path.resolveSibling("%s.%03d".formatted(outfile, i));
-                try (BufferedWriter outwriter = Files.newBufferedWriter(path))
+                private Writer out;
+                
+                @Override
+                public Writer startPage(int page) throws IOException
                 {
-                    outwriter.write(output.get(i));
+                    out = Files.newBufferedWriter(page == 0 ? first : first.resolveSibling("%s.%03d".formatted(outfile, page)));
+                    return out;
                 }
-            }
+                
+                @Override
+                public void endPage(int page) throws IOException
+                {
+                    out.close();
+                }
+            }, ns);
         }
     }
     
@@ -456,6 +461,8 @@ public class ContributionSurveyor
             List<Wiki.Revision> useredits = edits.get(i);
             // RevisionDelete... should check for content AND no access, but with no SHA-1 that is impossible
             useredits.removeIf(rev -> rev.isContentDeleted() || rev.getSizeDiff() < minsizediff);
+            // Revisions.removeReverts is no use here, as list=usercontribs
+            // does not provide SHA-1s
             if (noreverts)
             {
                 useredits.removeIf(edit -> 
@@ -463,7 +470,6 @@ public class ContributionSurveyor
                     List<String> tags = edit.getTags();
                     return tags.contains("mw-rollback") || tags.contains("mw-manual-revert");
                 });
-                // useredits = Revisions.removeReverts(useredits);
             }
             if (comingle)
                 comingled.addAll(useredits);
@@ -511,8 +517,13 @@ public class ContributionSurveyor
         {
             List<Wiki.Revision> delcontribs = wiki.deletedContribs(username, rh);
             if (noreverts)
+            {
                 delcontribs.removeIf(edit -> edit.getTags().contains("mw-rollback"));
-                // delcontribs = Revisions.removeReverts(delcontribs);
+                // oldest first for revert detection, then back again
+                delcontribs = Revisions.removeReverts(delcontribs.reversed().stream())
+                    .collect(Collectors.toCollection(ArrayList::new))
+                    .reversed();
+            }
             LinkedHashMap<String, List<Wiki.Revision>> imap = new LinkedHashMap<>();
 
             // group contributions by page
@@ -649,12 +660,55 @@ public class ContributionSurveyor
      *  @throws IOException if a network error occurs
      *  @throws SecurityException if fetching deleted edits without admin
      *  privileges 
+     *  @see #outputContributionSurvey(List, boolean, boolean, boolean, SurveySink, int...)
      *  @since 0.02
      */
     public List<String> outputContributionSurvey(List<String> usernames, boolean contribs, 
         boolean deleted, boolean images, int... ns) throws IOException, SecurityException
     {
-        List<String> sections = new ArrayList<>();
+        List<String> ret = new ArrayList<>();
+        outputContributionSurvey(usernames, contribs, deleted, images, new SurveySink()
+        {
+            private StringWriter out;
+            
+            @Override
+            public Writer startPage(int page)
+            {
+                out = new StringWriter(100000);
+                return out;
+            }
+            
+            @Override
+            public void endPage(int page)
+            {
+                ret.add(out.toString());
+            }
+        }, ns);
+        return ret;
+    }
+    
+    /**
+     *  Performs a mass contribution survey and writes wikitext output to the 
+     *  given sink as it is generated, one page at a time. The output is the 
+     *  same as {@link #outputContributionSurvey(List, boolean, boolean, 
+     *  boolean, int...)}, but only one section of it is in memory at once.
+     *  Nothing is written if there are no results.
+     * 
+     *  @param usernames the users to survey
+     *  @param contribs include live edits
+     *  @param deleted include deleted edits (requires admin login)
+     *  @param images whether to survey images (searches Commons as well)
+     *  @param sink where to write the pages of output
+     *  @param ns the namespaces to survey
+     *  @return the number of pages written
+     *  @throws IOException if a network error occurs or the sink throws one
+     *  @throws SecurityException if fetching deleted edits without admin
+     *  privileges 
+     *  @since 0.10
+     */
+    public int outputContributionSurvey(List<String> usernames, boolean contribs, 
+        boolean deleted, boolean images, SurveySink sink, int... ns) throws IOException, SecurityException
+    {
         int sectionsperpage = articlesperpage / articlespersection;  
         Map<String, Map<String, List<Wiki.Revision>>> results = null, delresults = null;
         Map<String, Map<String, List<String>>> imagesurvey = null;
@@ -679,16 +733,18 @@ public class ContributionSurveyor
             usernames = List.of("");
         int count = usernames.size();
         
+        int sections = 0, pages = 0;
+        Writer out = null;
         for (String username : usernames)
         {
-            // output text results
-            int sizebefore = sections.size();
+            List<Stream<String>> usersections = new ArrayList<>();
             String username_hdr = count == 1 ? "" : (username + ":");
 
+            // output text results
             if (results != null)
             {
                 Map<String, List<Wiki.Revision>> user_survey = results.get(username);
-                sections.addAll(Pages.toWikitextPaginatedList(user_survey.keySet(), page -> outputNextPage(user_survey, page), 
+                usersections.add(Pages.toWikitextPaginatedStream(user_survey.keySet(), page -> outputNextPage(user_survey, page), 
                     (start, end) -> "===" + username_hdr + " Pages " + start + " to " + end + "===", 
                     articlespersection, false));
             }
@@ -697,7 +753,7 @@ public class ContributionSurveyor
             if (delresults != null)
             {
                 Map<String, List<Wiki.Revision>> user_survey = delresults.get(username);
-                sections.addAll(Pages.toWikitextPaginatedList(user_survey.keySet(), page -> outputNextPage(user_survey, page), 
+                usersections.add(Pages.toWikitextPaginatedStream(user_survey.keySet(), page -> outputNextPage(user_survey, page), 
                     (start, end) -> "===" + username_hdr + " Deleted pages " + start + " to " + end + "===", 
                     articlespersection, false));
             }
@@ -706,13 +762,13 @@ public class ContributionSurveyor
             if (imagesurvey != null && imagesurvey.containsKey(username))
             {
                 Map<String, List<String>> imagesurvey2 = imagesurvey.get(username);
-                sections.addAll(Pages.toWikitextPaginatedList(imagesurvey2.get("local"), Pages.LIST_OF_LINKS, 
+                usersections.add(Pages.toWikitextPaginatedStream(imagesurvey2.get("local"), Pages.LIST_OF_LINKS, 
                     (start, end) -> "===" + username_hdr + " Local files " + start + " to " + end + "===", 
                     articlespersection, false));
-                sections.addAll(Pages.toWikitextPaginatedList(imagesurvey2.get("commons"), Pages.LIST_OF_LINKS, 
+                usersections.add(Pages.toWikitextPaginatedStream(imagesurvey2.get("commons"), Pages.LIST_OF_LINKS, 
                     (start, end) -> "===" + username_hdr + " Commons files " + start + " to " + end + "===", 
                     articlespersection, false));
-                sections.addAll(Pages.toWikitextPaginatedList(imagesurvey2.get("transferred"), Pages.LIST_OF_LINKS, 
+                usersections.add(Pages.toWikitextPaginatedStream(imagesurvey2.get("transferred"), Pages.LIST_OF_LINKS, 
                     (start, end) -> "===" + username_hdr + " Transferred files " + start + " to " + end + "===", 
                     articlespersection, false));
             }
@@ -723,30 +779,30 @@ public class ContributionSurveyor
             if (!comingle)
                 header = "== " + username + " ==\n" + 
                     Users.generateWikitextSummaryLinks(username) + "\n";
-            for (int i = sizebefore; i < sections.size(); i++)
+            Iterator<String> iter = usersections.stream().flatMap(Function.identity()).iterator();
+            for (boolean first = true; iter.hasNext(); first = false, sections++)
             {
-                if (i == sizebefore || i % sectionsperpage == 0)
+                // segment sections into pages
+                if (sections % sectionsperpage == 0)
                 {
-                    String toreplace = sections.get(i);
-                    sections.set(i, header + toreplace);
+                    if (out != null)
+                    {
+                        out.write(generateWikitextFooter());
+                        sink.endPage(pages - 1);
+                    }
+                    out = sink.startPage(pages++);
                 }
+                if (first || sections % sectionsperpage == 0)
+                    out.write(header);
+                out.write(iter.next());
             }
         }
-        
-        // segment sections into pages
-        StringBuilder out = new StringBuilder();
-        List<String> ret = new ArrayList<>();
-        for (int i = 0; i < sections.size(); i++)
+        if (out != null)
         {
-            out.append(sections.get(i));
-            if (i == sections.size() - 1 || i % sectionsperpage == sectionsperpage - 1)
-            {
-                out.append(generateWikitextFooter());
-                ret.add(out.toString());
-                out.setLength(0);
-            }
+            out.write(generateWikitextFooter());
+            sink.endPage(pages - 1);
         }
-        return ret;
+        return pages;
     }
     
     /**
@@ -768,6 +824,65 @@ public class ContributionSurveyor
         }
     }
 
+    /**
+     *  Receives the output of {@link #outputContributionSurvey(List, boolean, 
+     *  boolean, boolean, SurveySink, int...)} one page at a time.
+     *  @since 0.10
+     */
+    @FunctionalInterface
+    public interface SurveySink
+    {
+        /**
+         *  Returns a Writer for the given page of output. The previous page, 
+         *  if any, has already been {@linkplain #endPage(int) ended}.
+         *  @param page the index of the page, starting at zero
+         *  @return where to write that page
+         *  @throws IOException if an I/O error occurs
+         */
+        public Writer startPage(int page) throws IOException;
+        
+        /**
+         *  Called when the given page is complete. Does nothing by default.
+         *  @param page the index of the page
+         *  @throws IOException if an I/O error occurs
+         */
+        public default void endPage(int page) throws IOException
+        {
+        }
+        
+        /**
+         *  Returns a sink that writes each page to a new entry of the given zip
+         *  archive, in the same format as {@link #outputZipFile(ZipOutputStream, 
+         *  Map)}. The first page is named <var>filename</var> and subsequent
+         *  pages <var>filename</var>.001, <var>filename</var>.002 and so on.
+         *  The archive is left open.
+         *  @param zipper a zip output stream
+         *  @param filename the name of the first entry
+         *  @return (see above)
+         */
+        public static SurveySink of(ZipOutputStream zipper, String filename)
+        {
+            // don't close this, it would close the archive
+            Writer out = new OutputStreamWriter(zipper, Charset.defaultCharset());
+            return new SurveySink()
+            {
+                @Override
+                public Writer startPage(int page) throws IOException
+                {
+                    zipper.putNextEntry(new ZipEntry(filename + (page == 0 ? "" : ".%03d".formatted(page))));
+                    return out;
+                }
+                
+                @Override
+                public void endPage(int page) throws IOException
+                {
+                    out.flush();
+                    zipper.closeEntry();
+                }
+            };
+        }
+    }
+
     /**
      *  Generates a wikitext footer for contribution surveys.
      *  @return (see above)
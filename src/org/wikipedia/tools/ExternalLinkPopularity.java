@@ -21,7 +21,9 @@
 package org.wikipedia.tools;
 
 import java.io.*;
+import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.*;
 import org.wikipedia.*;
 
@@ -37,6 +39,15 @@ import org.wikipedia.*;
  */
 public class ExternalLinkPopularity
 {
+    /**
+     *  How long link counts are cached for.
+     *  @see #determineLinkPopularity(Collection) 
+     */
+    public static final Duration POPULARITY_CACHE_TTL = Duration.ofHours(1);
+    
+    // (wiki domain, domain) -> link count, shared across instances
+    private static final Map<List<String>, CachedCount> popularitycache = new ConcurrentHashMap<>();
+    
     private final Wiki wiki;
     private int maxlinks = 1000;
     private List<String> exclude;
@@ -114,8 +125,9 @@ public class ExternalLinkPopularity
      *  recommended to set a limit of not more than a few thousand to avoid 
      *  getting bogged down with large queries. Some domains are used very 
      *  frequently (10000+ links), often because they are reliable sources. This 
-     *  quantity is passed directly to {@link Wiki#setQueryLimit(int)}. The 
-     *  default is 1000.
+     *  limit applies to each linksearch query made by this tool only and does 
+     *  not change the {@linkplain Wiki#setQueryLimit(int) query limit} of the 
+     *  wiki. The default is 1000.
      * 
      *  @param limit the query limit used
      *  @throws IllegalArgumentException if {@code limit < 1}
@@ -161,25 +173,18 @@ public class ExternalLinkPopularity
         List<List<String>> links = wiki.getExternalLinksOnPage(articles);
         Map<String, Map<String, List<String>>> domaintourls = new HashMap<>();
         
-        // group links used on each page by domain
+        // group links used on each page by registrable domain
         for (int i = 0; i < links.size(); i++)
         {
-            Map<String, List<String>> pagedomaintourls = links.get(i).stream()
-                .filter(link -> ExternalLinks.extractDomain(link) != null)
-                .filter(link -> exclude.stream().noneMatch(exc -> link.contains(exc)))
-                .collect(Collectors.groupingBy(domain ->
-                {
-                    String domain2 = ExternalLinks.extractDomain(domain);
-                    // crude hack to remove subdomains
-                    int a = domain2.indexOf('.') + 1;
-                    if (domain2.indexOf('.', a) > 0)
-                    {
-                        String blah = domain2.substring(a);
-                        if (blah.length() > 10)
-                            return blah;
-                    }
-                    return domain2;
-                }));
+            Map<String, List<String>> pagedomaintourls = new HashMap<>();
+            for (String link : links.get(i))
+            {
+                if (exclude.stream().anyMatch(exc -> link.contains(exc)))
+                    continue;
+                String domain = ExternalLinks.extractRegistrableDomain(link);
+                if (domain != null)
+                    pagedomaintourls.computeIfAbsent(domain, d -> new ArrayList<>()).add(link);
+            }
             domaintourls.put(articles.get(i), pagedomaintourls);
         }
         return domaintourls;
@@ -205,6 +210,12 @@ public class ExternalLinkPopularity
      *  very frequently and we don't want to be here forever. The result is 
      *  sorted by number of links found (least used domains first).
      * 
+     *  <p>
+     *  Domains are counted concurrently, subject to {@link 
+     *  Wiki#getMaxConcurrentRequests()}. Only the number of links is fetched.
+     *  Counts are cached across all instances of this class for {@link 
+     *  #POPULARITY_CACHE_TTL}.
+     * 
      *  @param data a list of domains to determine popularity for
      *  @return a Map with domain &#8594; popularity
      *  @throws IOException if a network error occurs
@@ -217,21 +228,59 @@ public class ExternalLinkPopularity
         domains.removeIf(domain -> exclude.stream().anyMatch(exc -> domain.contains(exc)));
 
         // linksearch the domains to determine popularity
-        // discard the linksearch data for now, but bear in mind that it could
-        // be useful for some reason
-        wiki.setQueryLimit(maxlinks);
-        Map<String, Integer> lsresults = new HashMap<>();
-        for (String domain : domains)
+        int limit = maxlinks;
+        List<Integer> counts = ConcurrencyUtils.map(domains, wiki.getMaxConcurrentRequests(), domain -> 
         {
-            int count = wiki.linksearch("*." + domain).size();
+            List<String> key = List.of(wiki.getDomain(), domain);
+            CachedCount cached = popularitycache.get(key);
+            if (cached != null && cached.isValidFor(limit))
+                return Math.min(cached.count(), limit);
             // can't set namespace here due to $wgMiserMode and domains with
             // lots of links
-            lsresults.put(domain, Math.min(count, maxlinks));
-        }
-        wiki.setQueryLimit(Integer.MAX_VALUE);
+            int count = wiki.linksearch("*." + domain, null, limit, null);
+            popularitycache.put(key, new CachedCount(count, limit, Instant.now()));
+            return Math.min(count, limit);
+        });
+        popularitycache.values().removeIf(cached -> cached.isExpired());
+        
+        Map<String, Integer> lsresults = new HashMap<>();
+        Iterator<Integer> iter = counts.iterator();
+        for (String domain : domains)
+            lsresults.put(domain, iter.next());
         return ArrayUtils.sortByValue(lsresults, Comparator.naturalOrder());
     }
     
+    /**
+     *  A cached link count.
+     *  @param count the number of links found
+     *  @param limit the maximum number of links that were searched for
+     *  @param timestamp when the count was made
+     */
+    private record CachedCount(int count, int limit, Instant timestamp)
+    {
+        /**
+         *  Returns whether this count has expired.
+         *  @return (see above)
+         */
+        public boolean isExpired()
+        {
+            return timestamp.plus(POPULARITY_CACHE_TTL).isBefore(Instant.now());
+        }
+        
+        /**
+         *  Returns whether this count can be used for a query with the given
+         *  link limit.
+         *  @param newlimit the new link limit
+         *  @return (see above)
+         */
+        public boolean isValidFor(int newlimit)
+        {
+            // exact counts are always valid, capped counts only if the cap was 
+            // at least as high
+            return !isExpired() && (count < limit || limit >= newlimit);
+        }
+    }
+    
     public String exportResultsAsWikitext(Map<String, Map<String, List<String>>> urldata, Map<String, Integer> popularity)
     {
         StringBuilder sb = new StringBuilder();
@@ -1,5 +1,5 @@
 /**
- *  @(#)GapFillingTextSearch.java 0.01 10/06/2018
+ *  @(#)GapFillingTextSearch.java 0.02 19/10/2026
  *  Copyright (C) 2018-20XX MER-C and contributors
  *
  *  This program is free software; you can redistribute it and/or
@@ -23,6 +23,7 @@ package org.wikipedia.tools;
 import java.io.*;
 import java.util.*;
 import java.util.regex.*;
+import java.util.stream.*;
 import org.wikipedia.*;
 
 /**
@@ -33,7 +34,7 @@ import org.wikipedia.*;
  *  @see <a href="https://www.mediawiki.org/wiki/Help:CirrusSearch">Documentation 
  *  of CirrusSearch, the search engine used by the WMF</a>
  *  @author MER-C
- *  @version 0.01
+ *  @version 0.02
  */
 public class GapFillingTextSearch
 {
@@ -197,9 +198,337 @@ public class GapFillingTextSearch
         return ret;
     }
     
+    /**
+     *  Creates a query for {@link #matchAllAndExtractSnippets(Map, List)} that
+     *  matches the given phrase literally.
+     *  @param phrase the phrase to look for
+     *  @param casesensitive whether the search should be case sensitive
+     *  @return (see above)
+     *  @since 0.02
+     */
+    public static Pattern phrase(String phrase, boolean casesensitive)
+    {
+        return Pattern.compile(phrase, casesensitive ? Pattern.LITERAL : Pattern.LITERAL | Pattern.CASE_INSENSITIVE);
+    }
+    
+    /**
+     *  Performs many searches on the text contained in each entry of the
+     *  search data at once and extracts a snippet surrounding the first match
+     *  of each query. The results for each query are the same as those of
+     *  {@link #regexMatchAndExtractSnippets(Map, Pattern)}, except that 
+     *  {@linkplain #phrase(String, boolean) literal queries} ignore case in 
+     *  the same way as {@link #searchAndExtractSnippets(Map, String, boolean)}.
+     * 
+     *  <p>
+     *  Literal queries and the literal substrings that any match of each 
+     *  regular expression must contain are found in one pass over each entry.
+     *  Regular expressions are then only evaluated on entries that contain 
+     *  their required substring. Entries are searched in parallel on the 
+     *  common fork-join pool.
+     * 
+     *  @param <IDType> the type of uniqueID
+     *  @param searchdata a map of uniqueID &#8594; article text associated with 
+     *  that uniqueID
+     *  @param queries the regex patterns to match and phrases to search for
+     *  @return for each query, a map: uniqueID &#8594; snippet, in the 
+     *  iteration order of <var>searchdata</var>
+     *  @since 0.02
+     */
+    public <IDType> List<Map<IDType, String>> matchAllAndExtractSnippets(Map<IDType, String> searchdata, 
+        List<Pattern> queries)
+    {
+        // route each query to the automaton as a literal, a prefilter or not 
+        // at all
+        int count = queries.size();
+        boolean[] literal = new boolean[count];
+        boolean[] prefiltered = new boolean[count];
+        List<String> keywords = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            Pattern query = queries.get(i);
+            String keyword;
+            if ((query.flags() & Pattern.LITERAL) != 0)
+            {
+                keyword = query.pattern();
+                literal[i] = !keyword.isEmpty();
+            }
+            else
+            {
+                keyword = requiredLiteral(query);
+                prefiltered[i] = keyword != null;
+            }
+            if (literal[i] || prefiltered[i])
+            {
+                keywords.add(keyword);
+                owners.add(i);
+            }
+        }
+        AhoCorasick automaton = new AhoCorasick(keywords, true);
+        int[] owner = owners.stream().mapToInt(Integer::intValue).toArray();
+        
+        List<Map.Entry<IDType, String>> entries = new ArrayList<>(searchdata.entrySet());
+        List<List<Hit>> hits = IntStream.range(0, entries.size()).parallel()
+            .mapToObj(i -> matchAll(entries.get(i).getValue(), queries, literal, prefiltered, automaton, owner))
+            .toList();
+        
+        List<Map<IDType, String>> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            ret.add(new LinkedHashMap<>());
+        for (int i = 0; i < entries.size(); i++)
+            for (Hit hit : hits.get(i))
+                ret.get(hit.query()).put(entries.get(i).getKey(), hit.snippet());
+        return ret;
+    }
+    
+    /**
+     *  A match of a query in {@link #matchAllAndExtractSnippets(Map, List)}.
+     *  @param query the index of the query
+     *  @param snippet the snippet surrounding the match
+     */
+    private record Hit(int query, String snippet)
+    {
+    }
+    
+    /**
+     *  Evaluates all queries on a single entry for {@link 
+     *  #matchAllAndExtractSnippets(Map, List)}.
+     */
+    private static List<Hit> matchAll(String text, List<Pattern> queries, boolean[] literal, 
+        boolean[] prefiltered, AhoCorasick automaton, int[] owner)
+    {
+        int count = queries.size();
+        int[] first = new int[count];
+        Arrays.fill(first, -1);
+        boolean[] candidate = new boolean[count];
+        automaton.find(text, (keyword, start, end) ->
+        {
+            int query = owner[keyword];
+            if (!literal[query])
+                candidate[query] = true;
+            // the automaton ignores case, so confirm case sensitive matches
+            else if (first[query] < 0 && ((queries.get(query).flags() & Pattern.CASE_INSENSITIVE) != 0 
+                    || text.startsWith(queries.get(query).pattern(), start)))
+                first[query] = start;
+            return true;
+        });
+        
+        List<Hit> ret = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            if (!literal[i] && (candidate[i] || !prefiltered[i]))
+            {
+                Matcher matcher = queries.get(i).matcher(text);
+                if (matcher.find())
+                    first[i] = matcher.start();
+            }
+            if (first[i] >= 0 && !text.isEmpty())
+                ret.add(new Hit(i, snippet(text, Math.min(first[i], text.length() - 1))));
+        }
+        return ret;
+    }
+    
+    /**
+     *  Determines a literal substring of at least two characters that every
+     *  match of the given regex must contain. This is a conservative analysis
+     *  that only looks at the top level of the regex and gives up on 
+     *  alternation, inline flags and other features that complicate matters.
+     *  @param pattern a regex
+     *  @return the longest such substring that was found, or null if none
+     */
+    private static String requiredLiteral(Pattern pattern)
+    {
+        // case insensitive matching is compatible with the automaton only
+        // if restricted to ASCII
+        if ((pattern.flags() & (Pattern.COMMENTS | Pattern.CANON_EQ | Pattern.UNICODE_CASE)) != 0)
+            return null;
+        String regex = pattern.pattern();
+        if (regex.contains("(?") || regex.contains("\\Q"))
+            return null;
+        
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        int length = regex.length();
+        for (int i = 0; i < length; )
+        {
+            // parse one atom, noting whether it is a literal character
+            char c = regex.charAt(i);
+            int atom = -1;
+            switch (c)
+            {
+                case '\\' ->
+                {
+                    if (i + 1 >= length)
+                        return null;
+                    char escaped = regex.charAt(i + 1);
+                    i += 2;
+                    if (!Character.isLetterOrDigit(escaped))
+                        atom = escaped;
+                    else if (i < length && regex.charAt(i) == '{')
+                    {
+                        // \p{...}, \x{...}, \N{...}
+                        i = regex.indexOf('}', i) + 1;
+                        if (i == 0)
+                            return null;
+                    }
+                    else if ("0123456789ckux".indexOf(escaped) >= 0)
+                        // backreferences and escapes with arguments
+                        return null;
+                }
+                case '[' ->
+                {
+                    i = skipCharacterClass(regex, i);
+                    if (i < 0)
+                        return null;
+                }
+                case '(' ->
+                {
+                    i = skipGroup(regex, i);
+                    if (i < 0)
+                        return null;
+                }
+                case '.', '^', '$' -> i++;
+                case '|', ')', '*', '+', '?', '{' ->
+                {
+                    return null;
+                }
+                default ->
+                {
+                    atom = c;
+                    i++;
+                }
+            }
+            
+            // parse any quantifier
+            boolean optional = false, repeated = false;
+            if (i < length)
+            {
+                char q = regex.charAt(i);
+                if (q == '?' || q == '*')
+                    optional = true;
+                else if (q == '+')
+                    repeated = true;
+                else if (q == '{')
+                {
+                    int close = regex.indexOf('}', i);
+                    if (close < 0)
+                        return null;
+                    String min = regex.substring(i + 1, close).split(",", -1)[0].strip();
+                    optional = min.isEmpty() || min.chars().allMatch(d -> d == '0');
+                    repeated = true;
+                    i = close;
+                }
+                if (optional || repeated)
+                {
+                    i++;
+                    // lazy and possessive quantifiers
+                    if (i < length && (regex.charAt(i) == '?' || regex.charAt(i) == '+'))
+                        i++;
+                }
+            }
+            
+            if (atom >= 0 && !optional)
+                run.append((char)atom);
+            if (atom < 0 || optional || repeated)
+            {
+                if (run.length() > best.length())
+                    best = run.toString();
+                run.setLength(0);
+            }
+        }
+        if (run.length() > best.length())
+            best = run.toString();
+        return best.length() < 2 ? null : best;
+    }
+    
+    /**
+     *  Returns the index after the end of the character class starting at
+     *  {@code regex[start]}, or -1 if it is unbalanced.
+     */
+    private static int skipCharacterClass(String regex, int start)
+    {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^')
+            i++;
+        // a leading ] is literal
+        if (i < regex.length() && regex.charAt(i) == ']')
+            i++;
+        while (i < regex.length())
+        {
+            char c = regex.charAt(i);
+            if (c == '\\')
+                i += 2;
+            else if (c == '[')
+            {
+                i = skipCharacterClass(regex, i);
+                if (i < 0)
+                    return -1;
+            }
+            else if (c == ']')
+                return i + 1;
+            else
+                i++;
+        }
+        return -1;
+    }
+    
+    /**
+     *  Returns the index after the end of the group starting at {@code 
+     *  regex[start]}, or -1 if it is unbalanced.
+     */
+    private static int skipGroup(String regex, int start)
+    {
+        int depth = 0;
+        for (int i = start; i < regex.length(); )
+        {
+            char c = regex.charAt(i);
+            if (c == '\\')
+                i += 2;
+            else if (c == '[')
+            {
+                i = skipCharacterClass(regex, i);
+                if (i < 0)
+                    return -1;
+            }
+            else
+            {
+                if (c == '(')
+                    depth++;
+                else if (c == ')' && --depth == 0)
+                    return i + 1;
+                i++;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     *  Indexes the given search data so that many queries can be answered 
+     *  without scanning the text of every entry for each query. Building the
+     *  index takes about as long as a single case insensitive {@link 
+     *  #searchAndExtractSnippets(Map, String, boolean)}. Usage:
+     * 
+     *  <pre>{@code
+     *  Map<Wiki.Revision, String> created = Users.of(wiki).createdPagesWithText(users, null);
+     *  GapFillingTextSearch.TextIndex<Wiki.Revision> index = gfs.index(created);
+     *  Map<String, Map<Wiki.Revision, String>> results = index.search(queries, false);
+     *  }</pre>
+     * 
+     *  @param <IDType> the type of uniqueID
+     *  @param searchdata a map of uniqueID &#8594; article text associated with
+     *  that uniqueID. Subsequent changes to this map are not reflected in the
+     *  index.
+     *  @return an index over <var>searchdata</var>
+     *  @since 0.02
+     */
+    public <IDType> TextIndex<IDType> index(Map<IDType, String> searchdata)
+    {
+        return new TextIndex<>(searchdata);
+    }
+    
     /**
      *  Extracts a 30 word snippet from <var>text</var> surrounding
-     *  <var>indexofmatch</var>.
+     *  <var>indexofmatch</var>. Only the text near the match is examined.
      *  @param text the text to extract a snippet for
      *  @param indexofmatch where to extract the snippet from
      *  @return the 30 word snippet
@@ -208,21 +537,250 @@ public class GapFillingTextSearch
      */
     public String extractSnippet(String text, int indexofmatch)
     {
-        if (text.length() <= indexofmatch || indexofmatch < 0)
+        return snippet(text, indexofmatch);
+    }
+    
+    /**
+     *  Implementation of {@link #extractSnippet(String, int)}. Words are
+     *  delimited by single whitespace characters (as in the regex \s). The 
+     *  snippet consists of the 15 words before the word containing the match,
+     *  that word and the 14 words after it, excluding the last word of the 
+     *  text.
+     */
+    private static String snippet(String text, int indexofmatch)
+    {
+        int length = text.length();
+        if (length <= indexofmatch || indexofmatch < 0)
             throw new StringIndexOutOfBoundsException("indexofmatch (" + indexofmatch 
-                + ") does not fit within the supplied string (length = " + text.length() + ")");
-        String[] words = text.split("\\s");
-        int size = 0;
-        for (int i = 0; i < words.length; i++)
+                + ") does not fit within the supplied string (length = " + length + ")");
+        
+        // start of the snippet: after the 16th whitespace character before 
+        // the match
+        int start = indexofmatch;
+        for (int count = 0; start > 0; start--)
+            if (isWhitespace(text.charAt(start - 1)) && ++count == 16)
+                break;
+        
+        // end of the snippet: at the 15th whitespace character at or after
+        // the match, provided another word follows it
+        int end = indexofmatch;
+        for (int count = 0; end < length; end++)
+            if (isWhitespace(text.charAt(end)) && ++count == 15)
+                break;
+        int last = length - 1;
+        while (last > end && isWhitespace(text.charAt(last)))
+            last--;
+        if (last <= end)
+        {
+            // the snippet would include the last word, so stop before it 
+            while (last >= 0 && isWhitespace(text.charAt(last)))
+                last--;
+            end = last;
+            while (end >= 0 && !isWhitespace(text.charAt(end)))
+                end--;
+        }
+        if (end < start)
+            return "";
+        
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++)
+        {
+            char c = text.charAt(i);
+            sb.append(isWhitespace(c) ? ' ' : c);
+        }
+        return sb.toString();
+    }
+    
+    private static boolean isWhitespace(char c)
+    {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+    
+    /**
+     *  An index over search data for answering many queries at once, see 
+     *  {@link #index(Map)}. The index maps (hashed) trigrams of the lower
+     *  cased text of each entry to the sorted list of entries containing 
+     *  them. A query is answered by intersecting the lists for the trigrams 
+     *  in the query and confirming the match in the surviving candidates 
+     *  only. Final sigma is hashed as sigma, as lower casing capital sigma
+     *  depends on the surrounding text and would otherwise cause case 
+     *  sensitive queries to miss matches. Instances are immutable and may 
+     *  be shared between threads.
+     * 
+     *  @param <IDType> the type of uniqueID
+     *  @since 0.02
+     */
+    public static class TextIndex<IDType>
+    {
+        private final List<IDType> ids;
+        private final String[] texts, lowered;
+        private final int[][] postings;
+        private final int shift;
+        
+        private TextIndex(Map<IDType, String> searchdata)
         {
-            size += (words[i].length() + 1);
-            if (indexofmatch < size)
+            int size = searchdata.size();
+            ids = new ArrayList<>(size);
+            texts = new String[size];
+            lowered = new String[size];
+            long totalchars = 0;
+            for (var entry : searchdata.entrySet())
             {
-                // extract the snippet
-                String[] subarray = Arrays.copyOfRange(words, Math.max(0, i - 15), Math.min(i + 15, words.length - 1));
-                return String.join(" ", subarray);
+                int doc = ids.size();
+                ids.add(entry.getKey());
+                texts[doc] = entry.getValue();
+                lowered[doc] = entry.getValue().toLowerCase(Locale.ROOT);
+                totalchars += texts[doc].length();
             }
+            
+            // about one bucket per 8 characters of text, 2^10 to 2^22 buckets
+            int bits = Math.clamp(64 - Long.numberOfLeadingZeros(totalchars / 8), 10, 22);
+            shift = 32 - bits;
+            int[][] buckets = new int[1 << bits][];
+            int[] sizes = new int[1 << bits];
+            for (int doc = 0; doc < size; doc++)
+            {
+                String text = lowered[doc];
+                for (int i = 0; i + 3 <= text.length(); i++)
+                {
+                    int bucket = bucket(text, i);
+                    int n = sizes[bucket];
+                    // documents are added in order, so checking the last 
+                    // entry is enough to avoid duplicates
+                    if (n > 0 && buckets[bucket][n - 1] == doc)
+                        continue;
+                    if (n == 0)
+                        buckets[bucket] = new int[4];
+                    else if (n == buckets[bucket].length)
+                        buckets[bucket] = Arrays.copyOf(buckets[bucket], 2 * n);
+                    buckets[bucket][n] = doc;
+                    sizes[bucket]++;
+                }
+            }
+            for (int i = 0; i < buckets.length; i++)
+                if (buckets[i] != null && buckets[i].length != sizes[i])
+                    buckets[i] = Arrays.copyOf(buckets[i], sizes[i]);
+            postings = buckets;
+        }
+        
+        /**
+         *  Returns the number of entries in this index.
+         *  @return (see above)
+         */
+        public int size()
+        {
+            return ids.size();
+        }
+        
+        /**
+         *  Searches for the given query term and extracts a snippet 
+         *  surrounding the first match in each entry that contains it. This
+         *  is equivalent to {@link GapFillingTextSearch#searchAndExtractSnippets(Map, 
+         *  String, boolean)} on the indexed search data.
+         * 
+         *  @param query the search term to look for
+         *  @param casesensitive whether the search should be case sensitive
+         *  @return a map: uniqueID &#8594; snippet, in the order the entries
+         *  were indexed
+         */
+        public Map<IDType, String> search(String query, boolean casesensitive)
+        {
+            String lowerquery = query.toLowerCase(Locale.ROOT);
+            Map<IDType, String> ret = new LinkedHashMap<>();
+            for (int doc : candidates(lowerquery))
+            {
+                String text = texts[doc];
+                int index = casesensitive ? text.indexOf(query) : lowered[doc].indexOf(lowerquery);
+                if (index >= 0 && !text.isEmpty())
+                    ret.put(ids.get(doc), snippet(text, Math.min(index, text.length() - 1)));
+            }
+            return ret;
+        }
+        
+        /**
+         *  Searches for each of the given query terms, see {@link 
+         *  #search(String, boolean)}.
+         *  @param queries the search terms to look for
+         *  @param casesensitive whether the search should be case sensitive
+         *  @return a map: query &#8594; uniqueID &#8594; snippet, in the order
+         *  the queries were supplied
+         */
+        public Map<String, Map<IDType, String>> search(SequencedCollection<String> queries, boolean casesensitive)
+        {
+            Map<String, Map<IDType, String>> ret = new LinkedHashMap<>();
+            for (String query : queries)
+                ret.computeIfAbsent(query, q -> search(q, casesensitive));
+            return ret;
+        }
+        
+        /**
+         *  Returns the sorted ids of the entries that may contain the given
+         *  lower cased query.
+         */
+        private int[] candidates(String lowerquery)
+        {
+            if (lowerquery.length() < 3)
+            {
+                int[] all = new int[ids.size()];
+                Arrays.setAll(all, i -> i);
+                return all;
+            }
+            // intersect the shortest lists first
+            int[][] lists = new int[lowerquery.length() - 2][];
+            for (int i = 0; i < lists.length; i++)
+            {
+                lists[i] = postings[bucket(lowerquery, i)];
+                if (lists[i] == null)
+                    return new int[0];
+            }
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+            int[] ret = lists[0];
+            for (int i = 1; i < lists.length && ret.length > 0; i++)
+                if (lists[i] != lists[i - 1])
+                    ret = intersect(ret, lists[i]);
+            return ret;
+        }
+        
+        /**
+         *  Intersects two sorted lists of ids.
+         */
+        private static int[] intersect(int[] a, int[] b)
+        {
+            int[] ret = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, k = 0;
+            while (i < a.length && j < b.length)
+            {
+                if (a[i] < b[j])
+                    i++;
+                else if (a[i] > b[j])
+                    j++;
+                else
+                {
+                    ret[k++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(ret, k);
+        }
+        
+        /**
+         *  Hashes the trigram starting at <var>index</var> to a bucket.
+         */
+        private int bucket(String text, int index)
+        {
+            int hash = ((fold(text.charAt(index)) << 16 | fold(text.charAt(index + 1))) * 31 + fold(text.charAt(index + 2))) * 0x9E3779B9;
+            return hash >>> shift;
+        }
+        
+        /**
+         *  Maps final sigma to sigma. These are the only lower case forms 
+         *  that depend on context, e.g. "ΟΔΟΣ" lower cases to "οδος" but 
+         *  "ΟΔΟΣΑ" to "οδοσα".
+         */
+        private static char fold(char c)
+        {
+            return c == '\u03C2' ? '\u03C3' : c;
         }
-        throw new AssertionError("Unreachable.");
     }
 }
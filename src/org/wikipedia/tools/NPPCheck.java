@@ -22,6 +22,7 @@ package org.wikipedia.tools;
 import java.io.*;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.*;
 import javax.security.auth.login.FailedLoginException;
 import org.wikipedia.*;
@@ -107,6 +108,17 @@ public class NPPCheck
         }
     }
     
+    /**
+     *  The data needed to output a table of reviews.
+     *  @param metadata the output of {@link #fetchCreatorMetadata(List)}
+     *  @param snippets the output of {@link #fetchSnippets(List)}
+     *  @param reviewers the output of {@link #fetchReviewerMetadata(List)}
+     *  @see #fetchReport(List)
+     */
+    public record Report(List<Map<String, Object>> metadata, List<String> snippets, List<Wiki.User> reviewers)
+    {
+    }
+    
     /**
      *  Runs this program.
      *  @param args args[0] is the username
@@ -144,7 +156,7 @@ public class NPPCheck
             check.setReviewer(null);
             
             List<? extends Wiki.Event> le = check.fetchLogs(dt.get(0), dt.get(1));
-            System.out.println(check.outputTable(le));
+            check.outputTable(le, System.out);
         }
         
         // patrol log
@@ -158,7 +170,7 @@ public class NPPCheck
             if (le.isEmpty())
                 System.out.println("No new pages patrolled.");
             else
-                System.out.println(check.outputTable(le));
+                check.outputTable(le, System.out);
         }
                 
         // Pages moved from draft to main
@@ -172,7 +184,7 @@ public class NPPCheck
             if (le.isEmpty())
                 System.out.println("No pages moved from draft to main.");
             else
-                System.out.println(check.outputTable(le));
+                check.outputTable(le, System.out);
         }
 
         // Pages moved from user to main
@@ -186,7 +198,7 @@ public class NPPCheck
             if (le.isEmpty())
                 System.out.println("No pages moved from user to main.");
             else
-                System.out.println(check.outputTable(le));
+                check.outputTable(le, System.out);
         }
         
         // Expanded redirects
@@ -200,7 +212,7 @@ public class NPPCheck
             if (le.isEmpty())
                 System.out.println("No expanded redirects.");
             else
-                System.out.println(check.outputTable(le));
+                check.outputTable(le, System.out);
         }
 
 /* 
@@ -384,19 +396,9 @@ public class NPPCheck
      */
     public List<String> fetchSnippets(List<? extends Wiki.Event> events) throws IOException
     {
-        List<String> pages = new ArrayList<>();
-        for (Wiki.Event event : events)
-        {
-            pages.add(switch(event)
-            {
-                case Wiki.LogEntry log when log.getType().equals(Wiki.MOVE_LOG) -> log.getDetails().get("target_title");
-                default -> event.getTitle();
-            });
-        }
-        
         // account for pages subsequently moved in namespace
         wiki.setResolveRedirects(true);
-        List<String> pagetext = wiki.getLedeAsPlainText(pages);
+        List<String> pagetext = wiki.getLedeAsPlainText(articles(events));
         wiki.setResolveRedirects(false);
         return pagetext;
     }
@@ -411,8 +413,155 @@ public class NPPCheck
      */
     public List<Map<String, Object>> fetchMetadata(List<? extends Wiki.Event> events) throws IOException
     {
-        // TODO: filter out pages that were redirects when patrolled
-        
+        // account for pages subsequently moved in namespace
+        wiki.setResolveRedirects(true);
+        List<Map<String, Object>> pageinfo = pageInfo(events);
+        wiki.setResolveRedirects(false);
+        return pageinfo;
+    }
+    
+    /**
+     *  Fetches everything needed to {@linkplain #outputTable(List) output a 
+     *  table} for the given events, i.e. the output of {@link 
+     *  #fetchMetadata(List)} followed by {@link #fetchCreatorMetadata(List)},
+     *  {@link #fetchSnippets(List)} and {@link #fetchReviewerMetadata(List)}.
+     *  These are independent, so they are fetched concurrently.
+     * 
+     *  @param events the events to fetch data for
+     *  @return (see above)
+     *  @throws IOException if a network error occurs
+     */
+    public Report fetchReport(List<? extends Wiki.Event> events) throws IOException
+    {
+        // The stages would race each other if they each toggled redirect
+        // resolution, so set it once for all of them.
+        boolean resolving = wiki.isResolvingRedirects();
+        wiki.setResolveRedirects(true);
+        try
+        {
+            return report(events);
+        }
+        finally
+        {
+            wiki.setResolveRedirects(resolving);
+        }
+    }
+    
+    /**
+     *  Fetches {@linkplain #fetchReport(List) reports} for consecutive chunks
+     *  of the given events and hands each to <var>callback</var> in order, as 
+     *  soon as it and all chunks before it are available. Several chunks are 
+     *  fetched ahead of the one being handled so that fetching and output 
+     *  overlap. If the callback throws an exception (e.g. because the client
+     *  has gone away) or this thread is interrupted, chunks still in progress
+     *  are cancelled.
+     * 
+     *  @param events the events to fetch data for
+     *  @param chunksize the number of events per chunk
+     *  @param callback accepts (index of the first event in the chunk, report 
+     *  for the chunk)
+     *  @throws IOException if a network error occurs, the callback throws one
+     *  or this thread is interrupted
+     *  @throws IllegalArgumentException if {@code chunksize < 1}
+     */
+    public void fetchReports(List<? extends Wiki.Event> events, int chunksize, 
+        ConcurrencyUtils.IndexedCallback<? super Report> callback) throws IOException
+    {
+        if (chunksize < 1)
+            throw new IllegalArgumentException("Chunk size must be a positive integer.");
+        // enough to keep the permitted number of requests busy
+        int lookahead = Math.max(2, wiki.getMaxConcurrentRequests());
+        boolean resolving = wiki.isResolvingRedirects();
+        wiki.setResolveRedirects(true);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            Deque<Future<Report>> pending = new ArrayDeque<>();
+            int next = 0;
+            try
+            {
+                for (int offset = 0; offset < events.size(); offset += chunksize)
+                {
+                    for ( ; pending.size() < lookahead && next < events.size(); next += chunksize)
+                    {
+                        List<? extends Wiki.Event> chunk = events.subList(next, Math.min(events.size(), next + chunksize));
+                        pending.add(executor.submit(() -> report(chunk)));
+                    }
+                    callback.accept(offset, pending.poll().get());
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while fetching report data.");
+            }
+            catch (ExecutionException ex)
+            {
+                executor.shutdownNow();
+                throw unwrap(ex);
+            }
+            catch (IOException | RuntimeException ex)
+            {
+                // thrown by the callback
+                executor.shutdownNow();
+                throw ex;
+            }
+        }
+        finally
+        {
+            wiki.setResolveRedirects(resolving);
+        }
+    }
+    
+    /**
+     *  Does the work of {@link #fetchReport(List)}. Redirects should be 
+     *  resolved.
+     */
+    private Report report(List<? extends Wiki.Event> events) throws IOException
+    {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+        {
+            Future<List<String>> snippets = executor.submit(() -> wiki.getLedeAsPlainText(articles(events)));
+            Future<List<Wiki.User>> reviewers = executor.submit(() -> fetchReviewerMetadata(events));
+            Future<List<Map<String, Object>>> metadata = executor.submit(() -> fetchCreatorMetadata(pageInfo(events)));
+            try
+            {
+                return new Report(metadata.get(), snippets.get(), reviewers.get());
+            }
+            catch (InterruptedException ex)
+            {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while fetching report data.");
+            }
+            catch (ExecutionException ex)
+            {
+                executor.shutdownNow();
+                throw unwrap(ex);
+            }
+        }
+    }
+    
+    /**
+     *  Rethrows the cause of the given exception if unchecked, otherwise 
+     *  returns it as an IOException.
+     */
+    private static IOException unwrap(ExecutionException ex)
+    {
+        return switch (ex.getCause())
+        {
+            case IOException ioe -> ioe;
+            case RuntimeException re -> throw re;
+            case Error err -> throw err;
+            default -> new IOException(ex.getCause());
+        };
+    }
+    
+    /**
+     *  Returns the titles of the articles concerned by the given events.
+     */
+    private static List<String> articles(List<? extends Wiki.Event> events)
+    {
         List<String> pages = new ArrayList<>();
         for (Wiki.Event event : events)
         {
@@ -422,12 +571,17 @@ public class NPPCheck
                 default -> event.getTitle();
             });
         }
-        
-        // account for pages subsequently moved in namespace
-        wiki.setResolveRedirects(true);
-        List<Map<String, Object>> pageinfo = wiki.getPageInfo(pages);
-        wiki.setResolveRedirects(false);
-        
+        return pages;
+    }
+    
+    /**
+     *  Fetches page info for the articles concerned by the given events. 
+     *  Redirects should be resolved.
+     */
+    private List<Map<String, Object>> pageInfo(List<? extends Wiki.Event> events) throws IOException
+    {
+        // TODO: filter out pages that were redirects when patrolled
+        List<Map<String, Object>> pageinfo = wiki.getPageInfo(articles(events));
         for (int i = 0; i < pageinfo.size(); i++)
             pageinfo.get(i).put("logentry", events.get(i));
         return pageinfo;
@@ -444,22 +598,25 @@ public class NPPCheck
      */
     public List<Map<String, Object>> fetchCreatorMetadata(List<Map<String, Object>> metadata) throws IOException
     {
+        // fetch first revisions of extant articles
+        List<Map<String, Object>> articles = new ArrayList<>();
+        for (Map<String, Object> info : metadata)
+            if (wiki.namespace((String)info.get("pagename")) == Wiki.MAIN_NAMESPACE && (Boolean)info.get("exists"))
+                articles.add(info);
+        List<Wiki.Revision> firsts = wiki.getFirstRevisions(articles.stream()
+            .map(info -> (String)info.get("pagename"))
+            .toList());
+        for (int i = 0; i < articles.size(); i++)
+            articles.get(i).put("firstrevision", firsts.get(i));
+        
         List<String> users = new ArrayList<>();
-        for (int i = 0; i < metadata.size(); i++)
+        for (Map<String, Object> info : metadata)
         {
-            Map<String, Object> info = metadata.get(i);
-            String title = (String)info.get("pagename");
-            if (wiki.namespace(title) == Wiki.MAIN_NAMESPACE && (Boolean)info.get("exists"))
-            {
-                Wiki.Revision first = wiki.getFirstRevision(title);
-                info.put("firstrevision", first);
-                if (first != null && !first.getUser().contains(">")) // ContentTranslation ([[Bucket crusher]])
-                    users.add(first.getUser());
-                else
-                    users.add("Example"); // dummy value
-            }
+            Wiki.Revision first = (Wiki.Revision)info.get("firstrevision");
+            if (first != null && !first.getUser().contains(">")) // ContentTranslation ([[Bucket crusher]])
+                users.add(first.getUser());
             else
-                users.add("Example");
+                users.add("Example"); // dummy value
         }
 
         // fetch info of creators
@@ -486,101 +643,125 @@ public class NPPCheck
         return wiki.getUsers(usernames);
     }
     
+    /**
+     *  Outputs a wikitable of the given events and their metadata.
+     *  @param le the events to tabulate
+     *  @return the table, in wikitext
+     *  @throws IOException if a network error occurs
+     */
     public String outputTable(List<? extends Wiki.Event> le) throws IOException
     {
-        List<Map<String, Object>> pageinfo = fetchMetadata(le);
-        pageinfo = fetchCreatorMetadata(pageinfo);
+        StringBuilder sb = new StringBuilder();
+        outputTable(le, sb);
+        return sb.toString();
+    }
+    
+    /**
+     *  Writes a wikitable of the given events and their metadata to the given 
+     *  output, as {@link #outputTable(List)}, a few rows at a time as data 
+     *  becomes available.
+     *  @param le the events to tabulate
+     *  @param out where to write the table
+     *  @throws IOException if a network error occurs or <var>out</var> throws
+     *  one
+     *  @see #fetchReports(List, int, ConcurrencyUtils.IndexedCallback)
+     */
+    public void outputTable(List<? extends Wiki.Event> le, Appendable out) throws IOException
+    {
         List<Duration> dt_patrol = Events.timeBetweenEvents(le);
         dt_patrol.add(Duration.ofSeconds(-1));
-        List<Wiki.User> reviewerinfo = fetchReviewerMetadata(le);
-        List<String> snippets = fetchSnippets(le);
-                
-        StringBuilder sb = new StringBuilder(outputTableHeader());
-        for (int i = 0; i < pageinfo.size(); i++)
+        out.append(outputTableHeader());
+        fetchReports(le, 25, (offset, report) ->
         {
-            Map<String, Object> info = pageinfo.get(i);
-            Wiki.Event entry = (Wiki.Event)info.get("logentry");
-            Wiki.Event first = (Wiki.Event)info.get("firstrevision");
-            
-            OffsetDateTime patroldate = entry.getTimestamp();
-            OffsetDateTime createdate = null;
-            OffsetDateTime registrationdate = null;
-            Duration dt_article = Duration.ofDays(-999999);
-            Duration dt_account = Duration.ofDays(-999999);
-            
-            // author metadata (may be IP address, may be account so old its
-            // creation date is null)
-            String authorname = "null";
-            Wiki.User creator = (Wiki.User)info.get("creator"); 
-            int editcount = -1;
-            boolean blocked = false;
-            
-            if (first != null)
-            {
-                authorname = first.getUser();
-                createdate = first.getTimestamp();
-                dt_article = Duration.between(createdate, patroldate);
-                if (creator != null)
-                {
-                    editcount = creator.countEdits();
-                    registrationdate = creator.getRegistrationDate();
-                    if (registrationdate != null)
-                        dt_account = Duration.between(registrationdate, createdate);
-                    blocked = creator.getBlockDetails() != null;
-                }
-            }
-            
-            List<String> tablecells = new ArrayList<>();
-            // Draft column
-            if (mode.requiresDrafts())
-                tablecells.add("[[:" + le.get(i).getTitle() + "]]");
-            // Article column
-            tablecells.add("[[:" + info.get("pagename") + "]]");
-            // Creation date column
-            tablecells.add(Objects.toString(createdate));
-            if (mode.requiresReviews())
+            for (int i = 0; i < report.metadata().size(); i++)
+                out.append(outputTableRow(report.metadata().get(i), dt_patrol.get(offset + i), 
+                    reviewer == null ? report.reviewers().get(i) : null, report.snippets().get(i)));
+        });
+        out.append("|}\n\n");
+    }
+    
+    /**
+     *  Outputs a table row in wikitext.
+     */
+    private String outputTableRow(Map<String, Object> info, Duration dt_review, Wiki.User reviewerinfo, String snippet)
+    {
+        Wiki.Event entry = (Wiki.Event)info.get("logentry");
+        Wiki.Event first = (Wiki.Event)info.get("firstrevision");
+
+        OffsetDateTime patroldate = entry.getTimestamp();
+        OffsetDateTime createdate = null;
+        OffsetDateTime registrationdate = null;
+        Duration dt_article = Duration.ofDays(-999999);
+        Duration dt_account = Duration.ofDays(-999999);
+
+        // author metadata (may be IP address, may be account so old its
+        // creation date is null)
+        String authorname = "null";
+        Wiki.User creator = (Wiki.User)info.get("creator"); 
+        int editcount = -1;
+        boolean blocked = false;
+
+        if (first != null)
+        {
+            authorname = first.getUser();
+            createdate = first.getTimestamp();
+            dt_article = Duration.between(createdate, patroldate);
+            if (creator != null)
             {
-                // Review date column
-                tablecells.add(patroldate.toString());
-                // Article age at review column
-                tablecells.add("data-sort-value=" + dt_article.getSeconds() + " | " 
-                    + MathsAndStats.formatDuration(dt_article));
-                // Time between reviews column                    
-                if (reviewer != null)
-                {
-                    Duration dt_review = dt_patrol.get(i);
-                    tablecells.add("data-sort-value=" + dt_review.getSeconds() + " | " 
-                        + MathsAndStats.formatDuration(dt_review));
-                }                    
+                editcount = creator.countEdits();
+                registrationdate = creator.getRegistrationDate();
+                if (registrationdate != null)
+                    dt_account = Duration.between(registrationdate, createdate);
+                blocked = creator.getBlockDetails() != null;
             }
-            // Size column
-            tablecells.add("" + info.getOrDefault("size", -1));
-            // Author column
-            tablecells.add("{{noping2|" + authorname + "}}");              
-            // Author registration date column
-            tablecells.add(Objects.toString(registrationdate));
-            // Author edit count
-            tablecells.add(String.valueOf(editcount));
-            // Author age at creation column
-            tablecells.add("data-sort-value=" + dt_account.getSeconds() + " | " 
-                + MathsAndStats.formatDuration(dt_account));
-            // Author blocked column
-            tablecells.add(String.valueOf(blocked));
-            // Reviewer metadata group
-            if (mode.requiresReviews() && reviewer == null)
+        }
+
+        List<String> tablecells = new ArrayList<>();
+        // Draft column
+        if (mode.requiresDrafts())
+            tablecells.add("[[:" + entry.getTitle() + "]]");
+        // Article column
+        tablecells.add("[[:" + info.get("pagename") + "]]");
+        // Creation date column
+        tablecells.add(Objects.toString(createdate));
+        if (mode.requiresReviews())
+        {
+            // Review date column
+            tablecells.add(patroldate.toString());
+            // Article age at review column
+            tablecells.add("data-sort-value=" + dt_article.getSeconds() + " | " 
+                + MathsAndStats.formatDuration(dt_article));
+            // Time between reviews column                    
+            if (reviewer != null)
             {
-                Wiki.User reviewer = reviewerinfo.get(i);
-                // Reviewer column
-                tablecells.add("{{noping2|" + reviewer.getUsername() + "}}");
-                // Reviewer edit count column
-                tablecells.add(String.valueOf(reviewer.countEdits()));
-            }
-            // Snippet column
-            tablecells.add(snippets.get(i));
-            sb.append(WikitextUtils.addTableRow(tablecells));
+                tablecells.add("data-sort-value=" + dt_review.getSeconds() + " | " 
+                    + MathsAndStats.formatDuration(dt_review));
+            }                    
         }
-        sb.append("|}\n\n");
-        return sb.toString();
+        // Size column
+        tablecells.add("" + info.getOrDefault("size", -1));
+        // Author column
+        tablecells.add("{{noping2|" + authorname + "}}");              
+        // Author registration date column
+        tablecells.add(Objects.toString(registrationdate));
+        // Author edit count
+        tablecells.add(String.valueOf(editcount));
+        // Author age at creation column
+        tablecells.add("data-sort-value=" + dt_account.getSeconds() + " | " 
+            + MathsAndStats.formatDuration(dt_account));
+        // Author blocked column
+        tablecells.add(String.valueOf(blocked));
+        // Reviewer metadata group
+        if (mode.requiresReviews() && reviewer == null)
+        {
+            // Reviewer column
+            tablecells.add("{{noping2|" + reviewerinfo.getUsername() + "}}");
+            // Reviewer edit count column
+            tablecells.add(String.valueOf(reviewerinfo.countEdits()));
+        }
+        // Snippet column
+        tablecells.add(snippet);
+        return WikitextUtils.addTableRow(tablecells);
     }
     
     /**
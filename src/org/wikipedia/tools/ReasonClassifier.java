@@ -0,0 +1,255 @@
+/**
+ *  @(#)ReasonClassifier.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia.tools;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.wikipedia.*;
+
+/**
+ *  Sorts free text reasons (edit summaries, log comments) into categories by
+ *  looking for keywords. All keywords of all categories are searched for at
+ *  once with a single {@link AhoCorasick} automaton, so classifying a reason
+ *  takes time proportional to its length no matter how many rules there are.
+ *  Results are cached per distinct reason. Example:
+ *
+ *  <pre>{@code
+ *  ReasonClassifier classifier = new ReasonClassifier()
+ *      .addCategory("Spamming", "spam", "advertising")
+ *      .addCategory("Vandalism", "vandalism", "{{uw-vaublock}}")
+ *      .setEmptyCategory("(no reason given)");
+ *  String category = classifier.classify("persistent spamming, vandalism").get(0); // Spamming
+ *  }</pre>
+ *
+ *  <p>
+ *  A reason belongs to every category that has a keyword it contains.
+ *  Categories have priority in the order they were first added, so
+ *  callers that want exactly one category per reason use the first. A
+ *  category may also {@linkplain #suppress(String, String...) suppress}
+ *  others. Matching is case sensitive, so lower case reasons and keywords
+ *  first if needed. This class is thread safe.
+ *
+ *  @author MER-C
+ *  @version 0.01
+ */
+public class ReasonClassifier
+{
+    private final List<String> categories = new ArrayList<>();
+    private final List<String> keywords = new ArrayList<>();
+    // keyword index -> category index
+    private final List<Integer> owners = new ArrayList<>();
+    // category index -> categories it suppresses
+    private final Map<Integer, BitSet> suppressions = new HashMap<>();
+    private String emptycategory = null, defaultcategory = "Unclassified";
+
+    // compiled when first needed and discarded whenever the rules change
+    private Compiled compiled;
+
+    /**
+     *  Creates a classifier without any categories. Everything that isn't
+     *  otherwise classified is put into a category named "Unclassified".
+     */
+    public ReasonClassifier()
+    {
+    }
+
+    /**
+     *  Adds a category, or more keywords to an existing category.
+     *  @param category the name of the category
+     *  @param tolookfor reasons that contain any of these belong to the
+     *  category
+     *  @return this ReasonClassifier
+     *  @throws IllegalArgumentException if any keyword is empty
+     */
+    public synchronized ReasonClassifier addCategory(String category, String... tolookfor)
+    {
+        int index = index(category, true);
+        for (String keyword : tolookfor)
+        {
+            if (keyword.isEmpty())
+                throw new IllegalArgumentException("Keywords must not be empty.");
+            keywords.add(keyword);
+            owners.add(index);
+        }
+        invalidate();
+        return this;
+    }
+
+    /**
+     *  Makes reasons that belong to <var>category</var> never belong to any of
+     *  the <var>suppressed</var> categories, for instance because a keyword
+     *  means something else in context.
+     *  @param category the name of a category
+     *  @param suppressed the names of other categories
+     *  @return this ReasonClassifier
+     *  @throws IllegalArgumentException if any category does not exist
+     */
+    public synchronized ReasonClassifier suppress(String category, String... suppressed)
+    {
+        BitSet mask = suppressions.computeIfAbsent(index(category, false), i -> new BitSet());
+        for (String other : suppressed)
+            mask.set(index(other, false));
+        invalidate();
+        return this;
+    }
+
+    /**
+     *  Sets the category of empty reasons, which cannot contain any keyword.
+     *  @param category the name of the category, or null to treat empty
+     *  reasons like any other
+     *  @return this ReasonClassifier
+     */
+    public synchronized ReasonClassifier setEmptyCategory(String category)
+    {
+        emptycategory = category;
+        invalidate();
+        return this;
+    }
+
+    /**
+     *  Sets the category of reasons that do not belong to any other.
+     *  @param category the name of the category, or null to leave such
+     *  reasons unclassified
+     *  @return this ReasonClassifier
+     */
+    public synchronized ReasonClassifier setDefaultCategory(String category)
+    {
+        defaultcategory = category;
+        invalidate();
+        return this;
+    }
+
+    /**
+     *  Returns the names of the categories added to this classifier, in order
+     *  of priority.
+     *  @return (see above)
+     */
+    public synchronized List<String> getCategories()
+    {
+        return List.copyOf(categories);
+    }
+
+    /**
+     *  Returns the categories the given reason belongs to, in order of
+     *  priority. If it doesn't belong to any, this is the empty or default
+     *  category as appropriate.
+     *  @param reason a reason
+     *  @return (see above), empty if the default category is null and the
+     *  reason doesn't belong to any
+     */
+    public List<String> classify(String reason)
+    {
+        Compiled c = compiled();
+        List<String> ret = c.cache.get(reason);
+        if (ret == null)
+        {
+            ret = c.classify(reason);
+            c.cache.put(reason, ret);
+        }
+        return ret;
+    }
+
+    /**
+     *  Groups a histogram of reasons by category.
+     *  @param histogram a map: reason &#8594; count
+     *  @param exclusive whether to count each reason in its highest priority
+     *  category only (otherwise it is counted in every category it belongs
+     *  to)
+     *  @return a map: category &#8594; count, sorted by category
+     */
+    public Map<String, Long> group(Map<String, Long> histogram, boolean exclusive)
+    {
+        Map<String, Long> ret = new TreeMap<>();
+        for (var entry : histogram.entrySet())
+        {
+            List<String> classes = classify(entry.getKey());
+            for (int i = 0; i < (exclusive ? Math.min(1, classes.size()) : classes.size()); i++)
+                ret.merge(classes.get(i), entry.getValue(), Long::sum);
+        }
+        return ret;
+    }
+
+    private int index(String category, boolean create)
+    {
+        int index = categories.indexOf(Objects.requireNonNull(category));
+        if (index < 0)
+        {
+            if (!create)
+                throw new IllegalArgumentException("No such category: " + category);
+            index = categories.size();
+            categories.add(category);
+        }
+        return index;
+    }
+
+    private void invalidate()
+    {
+        compiled = null;
+    }
+
+    private synchronized Compiled compiled()
+    {
+        if (compiled == null)
+        {
+            BitSet[] masks = new BitSet[categories.size()];
+            for (var entry : suppressions.entrySet())
+                masks[entry.getKey()] = (BitSet)entry.getValue().clone();
+            compiled = new Compiled(keywords.isEmpty() ? null : new AhoCorasick(keywords, false),
+                owners.stream().mapToInt(Integer::intValue).toArray(), List.copyOf(categories), masks,
+                emptycategory, defaultcategory, new ConcurrentHashMap<>());
+        }
+        return compiled;
+    }
+
+    /**
+     *  An immutable snapshot of the rules, with its own cache of results.
+     */
+    private record Compiled(AhoCorasick matcher, int[] owners, List<String> categories, BitSet[] suppressions,
+        String emptycategory, String defaultcategory, Map<String, List<String>> cache)
+    {
+        private List<String> classify(String reason)
+        {
+            if (reason.isEmpty() && emptycategory != null)
+                return List.of(emptycategory);
+            BitSet matched = new BitSet(categories.size());
+            // AhoCorasick doesn't accept an empty list of keywords
+            if (matcher != null)
+            {
+                matcher.find(reason, (pattern, start, end) ->
+                {
+                    matched.set(owners[pattern]);
+                    return true;
+                });
+            }
+            BitSet mask = new BitSet();
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1))
+                if (suppressions[i] != null)
+                    mask.or(suppressions[i]);
+            matched.andNot(mask);
+
+            List<String> ret = new ArrayList<>();
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1))
+                ret.add(categories.get(i));
+            if (ret.isEmpty() && defaultcategory != null)
+                ret.add(defaultcategory);
+            return List.copyOf(ret);
+        }
+    }
+}
@@ -29,7 +29,7 @@ import org.wikipedia.*;
 /**
  *  Finds links added by a user in the main namespace.
  *  @author MER-C
- *  @version 0.03
+ *  @version 0.04
  */
 public class UserLinkAdditionFinder
 {
@@ -180,13 +180,13 @@ public class UserLinkAdditionFinder
             .flatMap(List::stream)
             .filter(revision -> !revision.isContentDeleted())
             .collect(Collectors.toList());
-        for (Wiki.Revision revision : revisions)
+        // fetch diffs concurrently
+        ConcurrencyUtils.forEach(revisions, wiki.getMaxConcurrentRequests(), this::parseDiff, (index, links) ->
         {
             // remove all sets { revision, links... } where no links are added
-            List<String> temp = parseDiff(revision);
-            if (!temp.isEmpty())
-                results.put(revision, temp);
-        }
+            if (!links.isEmpty())
+                results.put(revisions.get(index), links);
+        });
         return results;
     }
     
@@ -334,29 +334,88 @@ public class UserLinkAdditionFinder
         String diff = revision.isNew() ? revision.getText() : revision.diff(Wiki.PREVIOUS_REVISION, "inline");
         if (diff == null || diff.isEmpty()) // filter dummy edits
             return Collections.emptyList();
-        Pattern linkregex = Pattern.compile("https?://.+?\\..{2,}?(?:\\s|]|<|$|&lt;)");
-
-        // See https://en.wikipedia.org/w/api.php?action=compare&fromrev=77350972&torelative=prev&difftype=inline
-        // for example HTML
-        List<String> dellinks = new ArrayList<>();
-        Matcher matcher = Pattern.compile("<del .+?>(.+?)</del>").matcher(diff);
-        while (matcher.find())
-        {
-            Matcher inner = linkregex.matcher(matcher.group(0));
-            while (inner.find())
-                dellinks.add(inner.group().split("(\\||<|\\]|\\s|\\}|&lt;)")[0]);
-        }
-        
+        return parseDiff(diff);
+    }
+    
+    /**
+     *  Returns a list of external links added in an inline diff, i.e. links 
+     *  that appear in an inserted fragment but not in any deleted fragment.
+     *  The diff is scanned once.
+     * 
+     *  @param diff an inline HTML diff
+     *  @return the list of added URLs, in order of appearance
+     *  @see <a href="https://en.wikipedia.org/w/api.php?action=compare&amp;fromrev=77350972&amp;torelative=prev&amp;difftype=inline">
+     *  Example diff</a>
+     *  @since 0.04
+     */
+    public static List<String> parseDiff(String diff)
+    {
+        Set<String> dellinks = new HashSet<>();
         List<String> links = new ArrayList<>();
-        matcher = Pattern.compile("<ins .+?>(.+?)</ins>").matcher(diff);
-        while (matcher.find())
+        for (int x = diff.indexOf('<'); x >= 0 && x < diff.length(); x = diff.indexOf('<', x))
         {
-            Matcher inner = linkregex.matcher(matcher.group(0));
-            while (inner.find())
-                links.add(inner.group().split("(\\||<|\\]|\\s|\\}|&lt;)")[0]);
+            boolean ins = diff.startsWith("<ins ", x);
+            if (!ins && !diff.startsWith("<del ", x))
+            {
+                x++;
+                continue;
+            }
+            // fragments do not span lines
+            int eol = diff.indexOf('\n', x);
+            if (eol < 0)
+                eol = diff.length();
+            int start = diff.indexOf('>', x + 5) + 1;
+            int end = diff.indexOf(ins ? "</ins>" : "</del>", start);
+            if (start <= 0 || end < 0 || end > eol || start >= end)
+            {
+                x += 5;
+                continue;
+            }
+            extractLinks(diff, start, end, ins ? links : dellinks);
+            x = end + 6;
         }
-        
-        links.removeAll(dellinks);
+        if (!dellinks.isEmpty())
+            links.removeIf(dellinks::contains);
         return links;
     }
+    
+    /**
+     *  Adds all external links found in {@code text[start, end)} to 
+     *  <var>links</var>. A link starts with http:// or https:// and ends 
+     *  before whitespace, a pipe, a square or curly bracket or an HTML tag or 
+     *  escaped tag, and must contain a dot followed by at least two characters.
+     *  @param text the text to scan
+     *  @param start the index to start scanning at
+     *  @param end the index to stop scanning at
+     *  @param links the collection to add links to
+     */
+    private static void extractLinks(String text, int start, int end, Collection<String> links)
+    {
+        for (int x = text.indexOf("http", start); x >= 0 && x < end; x = text.indexOf("http", x))
+        {
+            int hostbegin;
+            if (text.startsWith("://", x + 4))
+                hostbegin = x + 7;
+            else if (text.startsWith("s://", x + 4))
+                hostbegin = x + 8;
+            else
+            {
+                x += 4;
+                continue;
+            }
+            int y = hostbegin;
+            int dot = -1;
+            for ( ; y < end; y++)
+            {
+                char c = text.charAt(y);
+                if (Character.isWhitespace(c) || c == '|' || c == '<' || c == ']' || c == '}' || text.startsWith("&lt;", y))
+                    break;
+                if (c == '.' && dot < 0 && y > hostbegin)
+                    dot = y;
+            }
+            if (dot > 0 && y - dot > 2)
+                links.add(text.substring(x, y));
+            x = Math.max(y, x + 4);
+        }
+    }
 }
@@ -1,5 +1,5 @@
 /**
- *  @(#)XWikiContributionSurveyor.java 0.01 21/08/2021
+ *  @(#)XWikiContributionSurveyor.java 0.02 19/10/2026
  *  Copyright (C) 2021-20XX MER-C and contributors
  *
  *  This program is free software; you can redistribute it and/or
@@ -20,22 +20,31 @@
 
 package org.wikipedia.tools;
 
-import java.io.BufferedWriter;
+import java.io.*;
 import java.nio.file.*;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.function.Function;
 import org.wikipedia.*;
 
 /**
  *  Performs a contribution survey for a user and an optional additional 
- *  category of users.
+ *  category of users across all wikis. A survey is carried out in two steps:
+ *  {@linkplain #planSurvey(List, OffsetDateTime) planning}, which uses global
+ *  account information to work out which users edited which wikis, and
+ *  {@linkplain #survey(Map, Function, Writer, int...) surveying}, which
+ *  surveys several wikis at once and writes each wiki's results as soon as 
+ *  they are available.
  * 
  *  @see ContributionSurveyor
  *  @author MER-C
- *  @version 0.01
+ *  @version 0.02
  */
 public class XWikiContributionSurveyor
 {
+    private final WMFWikiFarm sessions;
+    private int threads = 8;
+    
     /**
      *  Runs this program.
      *  @param args the command line arguments
@@ -45,12 +54,11 @@ public class XWikiContributionSurveyor
     {
         WMFWikiFarm sessions = WMFWikiFarm.instance();
         WMFWiki enWiki = sessions.sharedSession("en.wikipedia.org");
-        WMFWiki meta = sessions.sharedSession("meta.wikimedia.org");
 
         CommandLineParser clp = new CommandLineParser()
             .synopsis("org.wikipedia.tools.XWikiContributionSurveyor", "[options]")
             .description("Survey the contributions of a large number of wiki editors across all wikis.")
-            .addVersion("XWikiContributionSurveyor v0.01\n" + CommandLineParser.GPL_VERSION_STRING)
+            .addVersion("XWikiContributionSurveyor v0.02\n" + CommandLineParser.GPL_VERSION_STRING)
             .addSingleArgumentFlag("--outfile", "file", "Save results to file(s).")
             .addSingleArgumentFlag("--lockedafter", "date", "Only survey unlocked users or those locked after a certain date.")
             .addSingleArgumentFlag("--wikipage", "'Main Page'", "Fetch a list of users from the en.wp page [[Main Page]].");
@@ -67,30 +75,116 @@ public class XWikiContributionSurveyor
         }
         temp.append("</kbd>");
         
-        Set<String> wikis = new HashSet<>();
-        wikis.add("en.wikipedia.org");
-        List<String> toremove = new ArrayList<>();
-        Wiki.RequestHelper rhlocked = meta.new RequestHelper()
-            .limitedTo(1);
-        for (String user : users)
+        int[] ns;
+        if (parsedargs.containsKey("--userspace"))
+            ns = new int[] { Wiki.MAIN_NAMESPACE, Wiki.USER_NAMESPACE };
+        else
+            ns = new int[] { Wiki.MAIN_NAMESPACE };
+        
+        Path path = CommandLineParser.parseFileOption(parsedargs, "--outfile", "Select output file", 
+            "Error: No output file selected.", true);
+        XWikiContributionSurveyor xcs = new XWikiContributionSurveyor(sessions);
+        Map<String, List<String>> plan = xcs.planSurvey(users, lockedafter);
+        try (BufferedWriter outwriter = Files.newBufferedWriter(path))
         {
-            Map<String, Object> ginfo = sessions.getGlobalUserInfo(user);
-            if (ginfo == null)
+            xcs.survey(plan, wiki -> 
             {
-                toremove.add(user);
-                continue;
-            }
-            if (lockedafter != null && (Boolean)ginfo.get("locked"))
+                ContributionSurveyor cs = ContributionSurveyor.makeContributionSurveyor(wiki, parsedargs);
+                cs.setSurveyingTransferredFiles(false);
+                cs.setFooter(temp.toString());
+                return cs;
+            }, outwriter, ns);
+        }
+    }
+    
+    /**
+     *  Creates a new cross-wiki contribution surveyor.
+     *  @param sessions where to obtain wiki sessions from
+     */
+    public XWikiContributionSurveyor(WMFWikiFarm sessions)
+    {
+        this.sessions = sessions;
+    }
+    
+    /**
+     *  Sets the maximum number of wikis that are surveyed at once (default 8).
+     *  The number of simultaneous requests to each wiki is further limited by
+     *  {@link Wiki#setMaxConcurrentRequests(int)}.
+     *  @param threads the maximum number of wikis surveyed at once
+     *  @throws IllegalArgumentException if {@code threads < 1}
+     */
+    public void setMaxConcurrentWikis(int threads)
+    {
+        if (threads < 1)
+            throw new IllegalArgumentException("Thread count must be a positive integer.");
+        this.threads = threads;
+    }
+    
+    /**
+     *  Returns the maximum number of wikis that are surveyed at once.
+     *  @return (see above)
+     *  @see #setMaxConcurrentWikis(int)
+     */
+    public int getMaxConcurrentWikis()
+    {
+        return threads;
+    }
+    
+    /**
+     *  Works out which of the given users need to be surveyed on which wikis
+     *  from their global account information. Users without a global account
+     *  are not surveyed at all. Users whose global account information could 
+     *  not be fetched are surveyed on the English Wikipedia only.
+     * 
+     *  @param users the users to survey
+     *  @param lockedafter if not null, skip users that were locked before 
+     *  this date
+     *  @return a map: wiki domain &#8594; users that have edited there, in 
+     *  the same order as the input. The English Wikipedia is always first.
+     *  @throws IOException if a network error occurs
+     */
+    public Map<String, List<String>> planSurvey(List<String> users, OffsetDateTime lockedafter) throws IOException
+    {
+        var ginfos = sessions.getGlobalUserInfo(users, WMFWikiFarm.GlobalUserDetail.WIKIS);
+        
+        // determine when locked users were locked, concurrently
+        Set<String> toremove = new HashSet<>();
+        if (lockedafter != null)
+        {
+            WMFWiki meta = sessions.sharedSession("meta.wikimedia.org");
+            List<String> locked = new ArrayList<>();
+            for (var entry : ginfos.entrySet())
+                if (entry.getValue() != null && (Boolean)entry.getValue().get("locked"))
+                    locked.add(entry.getKey());
+            List<List<Wiki.LogEntry>> locklogs = ConcurrencyUtils.map(locked, meta.getMaxConcurrentRequests(), user ->
             {
                 // not guaranteed but should work in nearly all cases
-                rhlocked = rhlocked.byTitle(meta.namespaceIdentifier(Wiki.USER_NAMESPACE) + ":" + user + "@global");
-                List<Wiki.LogEntry> le = meta.getLogEntries("globalauth", null, rhlocked);
+                Wiki.RequestHelper rhlocked = meta.new RequestHelper()
+                    .byTitle(meta.namespaceIdentifier(Wiki.USER_NAMESPACE) + ":" + user + "@global")
+                    .limitedTo(1);
+                return meta.getLogEntries("globalauth", null, rhlocked);
+            });
+            for (int i = 0; i < locked.size(); i++)
+            {
+                List<Wiki.LogEntry> le = locklogs.get(i);
                 if (!le.isEmpty() && le.get(0).getTimestamp().isBefore(lockedafter))
-                {
-                    toremove.add(user);
-                    continue;
-                }
+                    toremove.add(locked.get(i));
             }
+        }
+        
+        Map<String, List<String>> plan = new LinkedHashMap<>();
+        plan.put("en.wikipedia.org", new ArrayList<>());
+        for (String user : new LinkedHashSet<>(users))
+        {
+            // failed lookups are absent: survey those users on en.wp only
+            if (!ginfos.containsKey(user))
+            {
+                plan.get("en.wikipedia.org").add(user);
+                continue;
+            }
+            Map<String, Object> ginfo = ginfos.get(user);
+            if (ginfo == null || toremove.contains(user))
+                continue;
             Map<?, ?> m = (Map)ginfo.get("wikis");
             for (var entry : m.entrySet())
             {
@@ -98,44 +192,59 @@ public class XWikiContributionSurveyor
                 String url = ((String)wikimap.get("url")).replace("https://", "");
                 int edits = (Integer)wikimap.get("editcount");
                 if (edits > 0)
-                    wikis.add(url);
+                    plan.computeIfAbsent(url, k -> new ArrayList<>()).add(user);
             }
         }
-        users.removeAll(toremove);
-        int[] ns;
-        if (parsedargs.containsKey("--userspace"))
-            ns = new int[] { Wiki.MAIN_NAMESPACE, Wiki.USER_NAMESPACE };
-        else
-            ns = new int[] { Wiki.MAIN_NAMESPACE };
-        
-        Path path = CommandLineParser.parseFileOption(parsedargs, "--outfile", "Select output file", 
-            "Error: No output file selected.", true);
-        try (BufferedWriter outwriter = Files.newBufferedWriter(path))
+        plan.values().removeIf(List::isEmpty);
+        return plan;
+    }
+    
+    /**
+     *  Carries out a survey. Up to {@link #getMaxConcurrentWikis()} wikis are
+     *  surveyed at once and each wiki's results are written to <var>out</var>
+     *  under a level 1 heading as soon as they are available, so wikis appear
+     *  in order of completion. Wikis without results are omitted. Links are
+     *  rewritten as interwiki links so that the output can be posted on any
+     *  wiki.
+     * 
+     *  @param plan a map: wiki domain &#8594; users to survey there, see 
+     *  {@link #planSurvey(List, OffsetDateTime)}
+     *  @param factory creates a (configured) contribution surveyor for the
+     *  given wiki
+     *  @param out where to write the results
+     *  @param ns the namespaces to survey
+     *  @throws IOException if a network error occurs or out throws one
+     */
+    public void survey(Map<String, List<String>> plan, Function<WMFWiki, ContributionSurveyor> factory, 
+        Writer out, int... ns) throws IOException
+    {
+        WMFWiki meta = sessions.sharedSession("meta.wikimedia.org");
+        Map<String, String> iwmap = WMFWikiFarm.invertInterWikiMap(meta.interWikiMap());
+        List<String> wikis = new ArrayList<>(plan.keySet());
+        // WMFWikiFarm is not thread safe, so create sessions up front
+        Map<String, WMFWiki> wikisessions = new HashMap<>();
+        for (String wiki : wikis)
+            wikisessions.put(wiki, sessions.sharedSession(wiki));
+        ConcurrencyUtils.forEach(wikis, threads, wiki ->
         {
-            Map<String, String> iwmap = WMFWikiFarm.invertInterWikiMap(meta.interWikiMap());
-            for (String wiki : wikis)
-            {
-                WMFWiki wikisession = sessions.sharedSession(wiki);
-                ContributionSurveyor cs = ContributionSurveyor.makeContributionSurveyor(wikisession, parsedargs);
-                cs.setSurveyingTransferredFiles(false);
-                cs.setFooter(temp.toString());
-                
-                String prefix = iwmap.get(wiki);
-                List<String> pages = cs.outputContributionSurvey(users, true, false, 
-                    wiki.equals("commons.wikimedia.org"), ns);
-                                
-                if (!pages.isEmpty())
-                {
-                    outwriter.write("=" + wiki + "=\n\n");
-                    for (String page : pages)
-                    {    
-                        page = page.replace("[[:", "[[:" + prefix + ":");
-                        page = page.replace("[[Special", "[[:" + prefix + ":Special");
-                        outwriter.write(page);
-                        outwriter.write("\n\n");
-                    }
-                }
+            ContributionSurveyor cs = factory.apply(wikisessions.get(wiki));
+            return cs.outputContributionSurvey(plan.get(wiki), true, false, 
+                wiki.equals("commons.wikimedia.org"), ns);
+        }, (index, pages) -> 
+        {
+            if (pages.isEmpty())
+                return;
+            String wiki = wikis.get(index);
+            String prefix = iwmap.get(wiki);
+            out.write("=" + wiki + "=\n\n");
+            for (String page : pages)
+            {    
+                page = page.replace("[[:", "[[:" + prefix + ":");
+                page = page.replace("[[Special", "[[:" + prefix + ":Special");
+                out.write(page);
+                out.write("\n\n");
             }
-        }
+            out.flush();
+        });
     }
 }
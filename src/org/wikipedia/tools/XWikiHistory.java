@@ -1,5 +1,5 @@
 /**
- *  @(#)XWikiHistory.java 0.01 10/07/2019
+ *  @(#)XWikiHistory.java 0.02 19/10/2026
  *  Copyright (C) 2019-20XX MER-C and contributors
  *
  *  This program is free software; you can redistribute it and/or
@@ -28,7 +28,7 @@ import org.wikipedia.*;
  *  correspond to a given page on a given Wikipedia. Useful for cross-wiki 
  *  paid-for spamming.
  *  @author MER-C
- *  @version 0.01
+ *  @version 0.02
  */
 public class XWikiHistory
 {
@@ -48,14 +48,16 @@ public class XWikiHistory
         Map<String, String> parsedargs = new CommandLineParser()
             .synopsis("org.wikipedia.tools.XWikiHistory", "[options]")
             .description("Fetches information about other language versions of an article")
-            .addVersion("0.01")
+            .addVersion("0.02")
             .addHelp()
             .addSingleArgumentFlag("--wiki", "en.wikipedia.org", "The wiki that hosts the article to get history for")
             .addSingleArgumentFlag("--article", "Main Page", "The article on the wiki to get history for.")
             //.addSingleArgumentFlag("--item", "Q123456", "Fetch cross-wiki history for this Wikidata item.")
             .addSingleArgumentFlag("--user", "Example", "Fetch cross-wiki history for all articles created by this user")
+            .addSingleArgumentFlag("--numthreads", "n", "Inspect up to n wikis at once (default 16).")
             .parse(args);
         String article = parsedargs.get("--article");
+        int threads = Integer.parseInt(parsedargs.getOrDefault("--numthreads", "16"));
         
         WMFWiki wikidata = sessions.sharedSession("www.wikidata.org");
         Map<WMFWiki, String> wikiarticles = new LinkedHashMap<>();
@@ -71,9 +73,7 @@ public class XWikiHistory
                 wikiarticles.put(new_wiki, entry.getValue());
             }
         //}
-        Map<WMFWiki, List<Wiki.Revision>> histories = getHistories(wikiarticles);
-        Map<WMFWiki, Wiki.User> creators = getCreators(histories);
-        Map<WMFWiki, String> snippets = getSnippets(wikiarticles);
+        Map<WMFWiki, ArticleProfile> profiles = getProfiles(wikiarticles, threads);
         
         System.out.println("==" + article + "==");
         System.out.println("{| class=\"wikitable sortable\"");
@@ -83,11 +83,15 @@ public class XWikiHistory
         {
             WMFWiki wiki = entry.getKey();
             String page = entry.getValue();
-            List<Wiki.Revision> bottomhistory = histories.get(wiki);
+            ArticleProfile profile = profiles.get(wiki);
+            // no Wikidata item, page doesn't exist or network error
+            if (profile == null || profile.history().isEmpty())
+                continue;
+            List<Wiki.Revision> bottomhistory = profile.history();
             String username = bottomhistory.get(0).getUser();
-            Wiki.User creator = creators.get(wiki);
+            Wiki.User creator = profile.creator();
             // Map<String, Object> pageinfo = wiki.getPageInfo(List.of(page)).get(0);
-            String snippet = snippets.get(wiki);
+            String snippet = profile.lede();
             
             List<String> tablerows = List.of(wiki.getDomain(),
                 "[" + wiki.getPageUrl(page) + " " + page + "] ("
@@ -133,16 +137,16 @@ public class XWikiHistory
         System.out.println("===Creator global user info===");
         System.out.println("{| class=\"wikitable sortable\"");
         System.out.println("! Username !! Global edit count !! Home !! Wikis edited !! Locked?");
-        Set<String> users = new TreeSet<>();
-        for (WMFWiki wiki : wikiarticles.keySet())
-        {
-            Wiki.User user = creators.get(wiki);
-            if (user != null)
-                users.add(user.getUsername());
-        }
+        SortedSet<String> users = new TreeSet<>();
+        for (ArticleProfile profile : profiles.values())
+            if (profile != null && profile.creator() != null)
+                users.add(profile.creator().getUsername());
+        var globaluserinfos = sessions.getGlobalUserInfo(users, WMFWikiFarm.GlobalUserDetail.WIKIS);
         for (String username : users)
         {
-            Map<String, Object> globaluserinfo = sessions.getGlobalUserInfo(username);
+            Map<String, Object> globaluserinfo = globaluserinfos.get(username);
+            if (globaluserinfo == null)
+                continue;
             System.out.println(WikitextUtils.addTableRow(List.of(
                 Users.generateWikitextSummaryLinksShort(username),
                 "" + globaluserinfo.get("editcount"),
@@ -154,36 +158,50 @@ public class XWikiHistory
         System.out.println("|}");
     }
     
-    public static Map<WMFWiki, List<Wiki.Revision>> getHistories(Map<WMFWiki, String> articles)
+    /**
+     *  What this tool fetches about one language version of an article.
+     *  @param history up to the first 10 revisions of the article, oldest 
+     *  first, or an empty list if it doesn't exist
+     *  @param creator the user who created the article, or null if unknown
+     *  @param lede the lede of the article as plain text
+     */
+    public record ArticleProfile(List<Wiki.Revision> history, Wiki.User creator, String lede)
     {
-        ThrowingFunction<WMFWiki, List<Wiki.Revision>> tf = wiki ->
-        {
-            Wiki.RequestHelper rh = wiki.new RequestHelper()
-                .limitedTo(10)
-                .reverse(true);
-            return wiki.getPageHistory(articles.get(wiki), rh);
-        };
-        return sessions.forAllWikis(articles.keySet(), tf, 1);
     }
     
-    public static Map<WMFWiki, Wiki.User> getCreators(Map<WMFWiki, List<Wiki.Revision>> histories)
+    /**
+     *  Fetches the first revisions, creator and lede of each of the given 
+     *  articles in one pass over the wikis. Up to <var>threads</var> wikis are
+     *  inspected at once; the requests for any one wiki are made one after 
+     *  another.
+     *  @param articles a map: wiki &#8594; article on that wiki. Null articles
+     *  are skipped.
+     *  @param threads the maximum number of wikis inspected at once
+     *  @return a map: wiki &#8594; profile of the article on that wiki, or null
+     *  if a network error occurred
+     */
+    public static Map<WMFWiki, ArticleProfile> getProfiles(Map<WMFWiki, String> articles, int threads)
     {
-        ThrowingFunction<WMFWiki, Wiki.User> tf = wiki ->
+        List<WMFWiki> wikis = new ArrayList<>();
+        articles.forEach((wiki, article) ->
         {
-            String creator = histories.get(wiki).get(0).getUser();
-            return wiki.getUsers(List.of(creator)).get(0);
-        };
-        return sessions.forAllWikis(histories.keySet(), tf, 1);
-    }
-    
-    public static Map<WMFWiki, String> getSnippets(Map<WMFWiki, String> articles)
-    {
-        ThrowingFunction<WMFWiki, String> tf = wiki -> 
+            if (article != null)
+                wikis.add(wiki);
+        });
+        ThrowingFunction<WMFWiki, ArticleProfile> tf = wiki ->
         {
             String article = articles.get(wiki);
-            return wiki.getLedeAsPlainText(List.of(article)).get(0);
+            Wiki.RequestHelper rh = wiki.new RequestHelper()
+                .limitedTo(10)
+                .reverse(true);
+            List<Wiki.Revision> history = wiki.getPageHistory(article, rh);
+            if (history.isEmpty())
+                return new ArticleProfile(history, null, null);
+            Wiki.User creator = wiki.getUsers(List.of(history.get(0).getUser())).get(0);
+            String lede = wiki.getLedeAsPlainText(List.of(article)).get(0);
+            return new ArticleProfile(history, creator, lede);
         };
-        return sessions.forAllWikis(articles.keySet(), tf, 1);
+        return sessions.forAllWikis(wikis, tf, threads);
     }
     
     /**
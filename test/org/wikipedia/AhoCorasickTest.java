@@ -0,0 +1,73 @@
+/**
+ *  @(#)AhoCorasickTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package org.wikipedia;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Unit tests for {@link AhoCorasick}.
+ *  @author MER-C
+ */
+public class AhoCorasickTest
+{
+    @Test
+    public void find()
+    {
+        AhoCorasick matcher = new AhoCorasick(List.of("he", "she", "his", "hers"), false);
+        List<String> matches = new ArrayList<>();
+        matcher.find("ushers", (pattern, start, end) -> matches.add(pattern + ":" + start + "-" + end));
+        assertEquals(List.of("1:1-4", "0:2-4", "3:2-6"), matches, "overlapping matches");
+
+        matches.clear();
+        matcher.find("ushers", (pattern, start, end) ->
+        {
+            matches.add(matcher.getPatterns().get(pattern));
+            return false;
+        });
+        assertEquals(List.of("she"), matches, "stop early");
+        assertThrows(IllegalArgumentException.class, () -> new AhoCorasick(List.of("a", ""), false));
+    }
+
+    @Test
+    public void containsAny()
+    {
+        AhoCorasick matcher = new AhoCorasick(List.of("{{infobox ", "{{prod blp/dated|"), false);
+        assertTrue(matcher.containsAny("blah {{infobox person"));
+        assertFalse(matcher.containsAny("blah {{infobox"));
+        assertFalse(matcher.containsAny(""));
+        assertFalse(matcher.containsAny("{{INFOBOX person"), "case sensitive");
+        matcher = new AhoCorasick(List.of("{{infobox "), true);
+        assertTrue(matcher.containsAny("{{INFOBOX person"), "case insensitive");
+        assertFalse(new AhoCorasick(List.of(), false).containsAny("anything"));
+    }
+
+    @Test
+    public void matchingPatterns()
+    {
+        AhoCorasick matcher = new AhoCorasick(List.of("spam", "copyvio", "vandal", "am"), true);
+        assertEquals(BitSet.valueOf(new long[] { 0b1001 }), matcher.matchingPatterns("SPAM only"));
+        assertEquals(BitSet.valueOf(new long[] { 0b0110 }), matcher.matchingPatterns("copyvio, vandalism"));
+        assertTrue(matcher.matchingPatterns("nothing").isEmpty());
+    }
+}
@@ -49,6 +49,44 @@ public class ArrayUtilsTest
         assertArrayEquals(new String[] { "5" }, ArrayUtils.relativeComplement(a, b1, b2));
     }
     
+    @Test
+    public void collections()
+    {
+        List<String> a = List.of("5", "1", "3", "4", "3");
+        List<String> b1 = List.of("3", "1", "x");
+        Set<String> b2 = new HashSet<>(List.of("3", "4", "5"));
+        assertEquals(List.of("3", "3"), ArrayUtils.intersection(a, b1, b2), "order and duplicates of a preserved");
+        assertEquals(List.of("5", "4"), ArrayUtils.relativeComplement(a, b1));
+        assertEquals(a, ArrayUtils.intersection(a), "no other lists");
+        assertEquals(List.of("5", "1", "3", "4", "x"), ArrayUtils.union(a, b1, b2));
+        assertArrayEquals(new String[] { "1", "2", "3" }, ArrayUtils.union(new String[] { "1", "2" }, new String[] { "2", "3" }));
+        
+        // sorted inputs take a different code path
+        List<String> sorted = List.of("a", "b", "c", "d");
+        assertEquals(List.of("b", "d"), ArrayUtils.intersection(sorted, List.of("b", "d", "e"), new TreeSet<>(List.of("b", "c", "d"))));
+        assertEquals(List.of("a", "c"), ArrayUtils.relativeComplement(sorted, List.of("b", "d", "e")));
+        
+        // title sets sharing a dictionary take a different code path
+        TitleDictionary dictionary = new TitleDictionary();
+        TitleSet ts1 = TitleSet.of(dictionary, List.of("x", "y", "z"));
+        TitleSet ts2 = TitleSet.of(dictionary, List.of("w", "z", "a"));
+        TitleSet ts3 = TitleSet.of(dictionary, List.of("y", "b"));
+        List<String> tsunion = ArrayUtils.union(ts2, ts1, ts3);
+        assertEquals(List.of("z", "w", "a", "x", "y", "b"), tsunion, "order of first appearance");
+        assertEquals(ArrayUtils.union(new ArrayList<>(ts2), new ArrayList<>(ts1), new ArrayList<>(ts3)), tsunion);
+        assertEquals(List.of("w", "a"), ArrayUtils.relativeComplement(ts2, ts1, ts3));
+        assertEquals(ArrayUtils.relativeComplement(new ArrayList<>(ts2), new ArrayList<>(ts1), new ArrayList<>(ts3)), 
+            ArrayUtils.relativeComplement(ts2, ts1, ts3));
+        
+        // large inputs are processed in parallel
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 200000; i++)
+            large.add("Page " + (i * 7919 % 200000));
+        List<String> evens = large.stream().filter(page -> page.endsWith("0")).toList();
+        assertEquals(evens, ArrayUtils.intersection(large, new HashSet<>(evens), evens));
+        assertEquals(large.size() - evens.size(), ArrayUtils.relativeComplement(large, evens).size());
+    }
+    
     @Test
     public void sortByValue()
     {
@@ -0,0 +1,54 @@
+/**
+ *  @(#)BKTreeTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package org.wikipedia;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Unit tests for {@link BKTree}.
+ *  @author MER-C
+ */
+public class BKTreeTest
+{
+    @Test
+    public void search()
+    {
+        BKTree tree = new BKTree(List.of("MER-C", "MER-D", "Mer-C", "Example", "Examples", "Exampel", "Unrelated"));
+        assertFalse(tree.add("MER-C"), "duplicate");
+        assertEquals(7, tree.size());
+        assertEquals(List.of("MER-C"), tree.search("MER-C", 0));
+        assertEquals(List.of("MER-C", "MER-D"), tree.search("MER-C", 1));
+        assertEquals(List.of("MER-C", "MER-D", "Mer-C"), tree.search("MER-C", 2));
+        assertEquals(Map.of("Example", 0, "Examples", 1, "Exampel", 2), tree.searchWithDistances("Example", 2));
+        assertEquals(List.of("Exampel", "Example"), tree.search("Exampl", 1), "ties sorted alphabetically");
+        assertTrue(tree.search("Nothing like it", 3).isEmpty());
+        assertTrue(new BKTree().search("Example", 5).isEmpty(), "empty tree");
+        assertThrows(IllegalArgumentException.class, () -> tree.search("Example", -1));
+        
+        // long strings
+        String longer = "x".repeat(100);
+        tree.add(longer);
+        assertEquals(List.of(longer), tree.search(longer + "yy", 2));
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ *  @(#)ConcurrencyUtilsTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package org.wikipedia;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Unit tests for {@link ConcurrencyUtils}.
+ *  @author MER-C
+ */
+public class ConcurrencyUtilsTest
+{
+    @Test
+    public void map() throws Exception
+    {
+        List<Integer> inputs = IntStream.range(0, 50).boxed().toList();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxrunning = new AtomicInteger();
+        List<Integer> results = ConcurrencyUtils.map(inputs, 4, x ->
+        {
+            maxrunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try
+            {
+                Thread.sleep(5);
+            }
+            catch (InterruptedException ex)
+            {
+                throw new InterruptedIOException();
+            }
+            running.decrementAndGet();
+            return 2 * x;
+        });
+        assertEquals(inputs.stream().map(x -> 2 * x).toList(), results, "order preserved");
+        assertTrue(maxrunning.get() <= 4, "concurrency limit");
+        assertEquals(List.of(), ConcurrencyUtils.map(List.of(), 4, x -> x), "empty input");
+        assertThrows(IllegalArgumentException.class, () -> ConcurrencyUtils.map(inputs, 0, x -> x));
+    }
+
+    @Test
+    public void mapFailure()
+    {
+        List<Integer> inputs = IntStream.range(0, 50).boxed().toList();
+        IOException ex = assertThrows(IOException.class, () -> ConcurrencyUtils.map(inputs, 4, x ->
+        {
+            if (x == 25)
+                throw new IOException("Test");
+            return x;
+        }));
+        assertEquals("Test", ex.getMessage());
+        assertThrows(IOException.class, () -> ConcurrencyUtils.map(inputs, 4, x ->
+        {
+            throw new UncheckedIOException(new IOException());
+        }), "UncheckedIOException unwrapped");
+    }
+
+    @Test
+    public void forEach() throws Exception
+    {
+        List<String> inputs = List.of("a", "b", "c", "d");
+        Map<Integer, String> results = new HashMap<>();
+        ConcurrencyUtils.forEach(inputs, 2, String::toUpperCase, results::put);
+        assertEquals(Map.of(0, "A", 1, "B", 2, "C", 3, "D"), results);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ *  @(#)DomainIndexTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package org.wikipedia;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Unit tests for {@link DomainIndex}.
+ *  @author MER-C
+ */
+public class DomainIndexTest
+{
+    private final DomainIndex index = new DomainIndex();
+    
+    public DomainIndexTest()
+    {
+        index.addAll(List.of(
+            new String[] { "Page 1", "https://www.example.com/1" },
+            new String[] { "Page 2", "https://test.example.com/2" },
+            new String[] { "Page 1", "https://example.com/3" },
+            new String[] { "Page 3", "https://example.co.uk" },
+            new String[] { "Page 3", "http://example.com," }));
+        index.addAll(List.of("Page 4", "Page 5"), List.of(
+            List.of("https://example.net", "https://example.co.uk/test"),
+            List.of("https://test.example.co.uk")));
+    }
+    
+    @Test
+    public void add()
+    {
+        assertTrue(index.add("Page 6", "https://example.org"));
+        assertFalse(index.add("Page 6", "gkskdgds"));
+        assertEquals(8, index.size());
+        assertThrows(IllegalArgumentException.class, () -> index.addAll(List.of("Page 1"), List.of()));
+    }
+    
+    @Test
+    public void getLinks()
+    {
+        assertEquals(3, index.count("example.com"));
+        assertEquals(0, index.count("example.invalid"));
+        List<String[]> links = index.getLinks("example.com");
+        assertArrayEquals(new String[] { "Page 1", "https://www.example.com/1" }, links.get(0));
+        assertArrayEquals(new String[] { "Page 2", "https://test.example.com/2" }, links.get(1));
+        assertArrayEquals(new String[] { "Page 1", "https://example.com/3" }, links.get(2));
+        assertTrue(index.getLinks("example.invalid").isEmpty());
+        assertEquals(List.of("Page 1", "Page 2"), index.getPages("example.com"));
+    }
+    
+    @Test
+    public void domainsWithPrefix()
+    {
+        assertEquals(List.of("example.co.uk", "example.com", "example.net"), index.domains());
+        assertEquals(Map.of("example.co.uk", 3, "example.com", 3), index.domainsWithPrefix("example.co"));
+        assertTrue(index.domainsWithPrefix("zzz").isEmpty());
+    }
+    
+    @Test
+    public void topDomains()
+    {
+        List<Map.Entry<String, Integer>> top = index.topDomains(2);
+        assertEquals(List.of(Map.entry("example.co.uk", 3), Map.entry("example.com", 3)), top);
+        assertEquals(3, index.topDomains(10).size());
+        assertTrue(index.topDomains(0).isEmpty());
+    }
+}
@@ -19,6 +19,7 @@
  */
 package org.wikipedia;
 
+import java.util.*;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,6 +51,38 @@ public class ExternalLinksTest
         assertEquals("http", ExternalLinks.extractDomain("http://http://example.com"), "duplicated http");
     }
     
+    @Test
+    public void extractRegistrableDomain()
+    {
+        assertEquals("example.com", ExternalLinks.extractRegistrableDomain("https://www.example.com:443"), "www and port");
+        assertEquals("example.com", ExternalLinks.extractRegistrableDomain("//test.example.com/test.jsp?param=yes"),
+            "protocol relative, subdomain");
+        assertEquals("example.com", ExternalLinks.extractRegistrableDomain("http://user@EXAMPLE.COM./"), 
+            "user info, case, trailing dot");
+        assertEquals("example.co.uk", ExternalLinks.extractRegistrableDomain("http://news.example.co.uk/index.html"), 
+            "second level public suffix");
+        assertEquals("test.blogspot.com", ExternalLinks.extractRegistrableDomain("https://www.test.blogspot.com"),
+            "private public suffix");
+        assertEquals("co.uk", ExternalLinks.extractRegistrableDomain("http://co.uk"), "public suffix only");
+        assertEquals("a.b.ck", ExternalLinks.extractRegistrableDomain("http://a.b.ck"), "wildcard rule");
+        assertEquals("www.ck", ExternalLinks.extractRegistrableDomain("http://test.www.ck"), "exception rule");
+        assertEquals("192.0.2.1", ExternalLinks.extractRegistrableDomain("http://192.0.2.1/test"), "IP address");
+        // failures
+        assertNull(ExternalLinks.extractRegistrableDomain("gkskdgds"), "nonsense");
+        assertNull(ExternalLinks.extractRegistrableDomain("http://example.com,"), "ending comma");
+    }
+    
+    @Test
+    public void linksearch() throws Exception
+    {
+        List<String> patterns = List.of("*.wikipedia.org", "*.obviously.invalid", "*.wikimedia.org");
+        Map<String, List<String[]>> results = el.linksearch(patterns, null, 10);
+        assertEquals(patterns, new ArrayList<>(results.keySet()), "order preserved");
+        assertEquals(10, results.get("*.wikipedia.org").size(), "limit");
+        assertTrue(results.get("*.obviously.invalid").isEmpty(), "no results");
+        assertEquals(10, results.get("*.wikimedia.org").size(), "limit");
+    }
+    
     @Test
     public void isSpamBlacklisted() throws Exception
     {
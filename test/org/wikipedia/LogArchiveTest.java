@@ -0,0 +1,93 @@
+/**
+ *  @(#)LogArchiveTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package org.wikipedia;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Tests for {@link org.wikipedia.LogArchive}.
+ *  @author MER-C
+ */
+public class LogArchiveTest
+{
+    private final Wiki testWiki;
+
+    /**
+     *  Construct wiki objects for each test so that tests are independent.
+     */
+    public LogArchiveTest()
+    {
+        testWiki = Wiki.newSession("test.wikipedia.org");
+        testWiki.setMaxLag(-1);
+    }
+
+    @Test
+    public void getLogEntries(@TempDir Path directory) throws Exception
+    {
+        OffsetDateTime start = OffsetDateTime.parse("2019-03-25T00:00:00Z");
+        OffsetDateTime middle = OffsetDateTime.parse("2019-04-05T00:00:00Z");
+        OffsetDateTime end = OffsetDateTime.parse("2019-04-15T00:00:00Z");
+        Wiki.RequestHelper rh = testWiki.new RequestHelper()
+            .withinDateRange(start, end)
+            .reverse(true);
+        List<Wiki.LogEntry> expected = testWiki.getLogEntries(Wiki.DELETION_LOG, "delete", rh);
+
+        LogArchive archive = new LogArchive(testWiki, directory);
+        assertEquals(List.of(), archive.getDateRange(Wiki.DELETION_LOG, "delete"));
+        assertEquals(List.of(), archive.read(Wiki.DELETION_LOG, "delete", start, end), "nothing archived");
+
+        // sync the middle, then extend the archive in both directions
+        archive.sync(Wiki.DELETION_LOG, "delete", middle, middle.plusDays(2));
+        archive.sync(Wiki.DELETION_LOG, "delete", start, middle.plusDays(1));
+        List<Wiki.LogEntry> actual = archive.getLogEntries(Wiki.DELETION_LOG, "delete", start, end);
+        assertEquals(List.of(start, end), archive.getDateRange(Wiki.DELETION_LOG, "delete"));
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            Wiki.LogEntry a = expected.get(i), b = actual.get(i);
+            assertEquals(a.getID(), b.getID());
+            assertEquals(a.getTimestamp(), b.getTimestamp());
+            assertEquals(a.getUser(), b.getUser());
+            assertEquals(a.getTitle(), b.getTitle());
+            assertEquals(a.getComment(), b.getComment());
+            assertEquals(a.getType(), b.getType());
+            assertEquals(a.getAction(), b.getAction());
+            assertEquals(a.getDetails(), b.getDetails());
+            assertEquals(a.getTags(), b.getTags());
+            assertEquals(a.isCommentDeleted(), b.isCommentDeleted());
+            assertEquals(a.isUserDeleted(), b.isUserDeleted());
+            assertNull(b.getParsedComment(), "parsed comments are not archived");
+        }
+
+        // a new instance reads what was archived
+        LogArchive reopened = new LogArchive(testWiki, directory);
+        assertEquals(actual.stream().map(Wiki.LogEntry::getID).toList(),
+            reopened.read(Wiki.DELETION_LOG, "delete", start, end).stream().map(Wiki.LogEntry::getID).toList());
+        assertEquals(expected.stream().filter(log -> !log.getTimestamp().isAfter(middle)).count(),
+            reopened.read(Wiki.DELETION_LOG, "delete", start, middle).size(), "subrange");
+        assertThrows(IllegalArgumentException.class, () -> archive.sync(Wiki.DELETION_LOG, "delete", end, start));
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ *  @(#)LogTableTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package org.wikipedia;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Tests for {@link org.wikipedia.LogTable}.
+ *  @author MER-C
+ */
+public class LogTableTest
+{
+    private final Wiki enWiki;
+    private final LogTable table;
+
+    /**
+     *  Construct wiki objects for each test so that tests are independent.
+     */
+    public LogTableTest()
+    {
+        enWiki = Wiki.newSession("en.wikipedia.org");
+        enWiki.setMaxLag(-1);
+        OffsetDateTime monday = OffsetDateTime.parse("2026-10-12T10:00:00Z");
+        table = LogTable.of(enWiki, List.of(
+            entry(1, monday, "Alice", "Example", "[[WP:CSD#G11|G11]]: spam", "delete"),
+            entry(2, monday.plusHours(1), "Bob", "User:Example", "[[wp:csd#g11|g11]]: SPAM", "delete"),
+            entry(3, monday.plusDays(2), "Alice", "Draft:Example", null, "delete"),
+            entry(4, monday.plusDays(7), "Alice", "Example", "[[WP:CSD#G11|G11]]: spam", "restore"),
+            entry(5, monday.minusHours(11), "Carol", "Talk:Example", "Housekeeping", "delete")));
+    }
+
+    private Wiki.LogEntry entry(long id, OffsetDateTime timestamp, String user, String title, String comment, String action)
+    {
+        return enWiki.new LogEntry(id, timestamp, user, comment, null, Wiki.DELETION_LOG, action, title, Map.of());
+    }
+
+    @Test
+    public void columns()
+    {
+        assertEquals(5, table.size());
+        assertEquals("Bob", table.get(LogTable.Column.USER, 1));
+        assertEquals("Draft:Example", table.get(LogTable.Column.TITLE, 2));
+        assertNull(table.get(LogTable.Column.COMMENT, 2));
+        assertEquals(OffsetDateTime.parse("2026-10-14T10:00:00Z"), table.getTimestamp(2));
+        assertEquals(3, table.distinctValues(LogTable.Column.USER));
+        assertEquals(3, table.distinctValues(LogTable.Column.COMMENT), "nulls are not values");
+        assertThrows(IndexOutOfBoundsException.class, () -> table.get(LogTable.Column.USER, 5));
+    }
+
+    @Test
+    public void filters()
+    {
+        assertEquals(BitSet.valueOf(new long[] { 0b11111 }), table.all());
+        assertEquals(BitSet.valueOf(new long[] { 0b01101 }), table.where(LogTable.Column.USER, user -> user.startsWith("A")));
+        assertEquals(BitSet.valueOf(new long[] { 0b01000 }), table.where(LogTable.Column.ACTION, "restore"::equals));
+        assertEquals(BitSet.valueOf(new long[] { 0b00111 }), table.between(
+            OffsetDateTime.parse("2026-10-12T00:00:00Z"), OffsetDateTime.parse("2026-10-19T00:00:00Z")));
+        assertEquals(BitSet.valueOf(new long[] { 0b01000 }), table.between(table.getTimestamp(3), null));
+        assertEquals(BitSet.valueOf(new long[] { 0b10000 }), table.between(null, table.getTimestamp(4)));
+        assertEquals(BitSet.valueOf(new long[] { 0b01001 }), table.inNamespaces(Wiki.MAIN_NAMESPACE));
+        assertEquals(BitSet.valueOf(new long[] { 0b10110 }), table.inNamespaces(Wiki.USER_NAMESPACE, Wiki.TALK_NAMESPACE, 118));
+    }
+
+    @Test
+    public void countBy()
+    {
+        assertEquals(Map.of("Alice", 3L, "Bob", 1L, "Carol", 1L), table.countBy(LogTable.Column.USER, table.all()));
+        assertEquals(Map.of("[[wp:csd#g11|g11]]: spam", 3L, "housekeeping", 1L),
+            table.countBy(LogTable.Column.COMMENT, table.all(), String::toLowerCase));
+        BitSet deletions = table.where(LogTable.Column.ACTION, "delete"::equals);
+        assertEquals(Map.of("[[wp:csd#g11|g11]]: spam", 2L),
+            table.countBy(LogTable.Column.COMMENT, deletions, comment -> comment.contains("Housekeeping") ? null : comment.toLowerCase()),
+            "null keys are not counted");
+        assertEquals(Map.of(), table.countBy(LogTable.Column.USER, new BitSet()));
+    }
+
+    @Test
+    public void countByTime()
+    {
+        Map<LocalDate, Long> expected = new TreeMap<>();
+        expected.put(LocalDate.parse("2026-10-11"), 1L);
+        expected.put(LocalDate.parse("2026-10-12"), 2L);
+        expected.put(LocalDate.parse("2026-10-13"), 0L);
+        expected.put(LocalDate.parse("2026-10-14"), 1L);
+        assertEquals(expected, table.countByTime(table.where(LogTable.Column.ACTION, "delete"::equals), ChronoUnit.DAYS));
+
+        expected.clear();
+        expected.put(LocalDate.parse("2026-10-05"), 1L);
+        expected.put(LocalDate.parse("2026-10-12"), 3L);
+        expected.put(LocalDate.parse("2026-10-19"), 1L);
+        assertEquals(expected, table.countByTime(table.all(), ChronoUnit.WEEKS), "weeks start on Monday");
+        assertEquals(Map.of(), table.countByTime(new BitSet(), ChronoUnit.DAYS));
+        assertThrows(IllegalArgumentException.class, () -> table.countByTime(table.all(), ChronoUnit.MONTHS));
+    }
+}
@@ -161,5 +161,28 @@ public class MathsAndStatsTest
         // and finally, the examples given
         assertEquals(3, MathsAndStats.levenshteinDistance("kitten", "sitting"));
         assertEquals(3, MathsAndStats.levenshteinDistance("Sunday", "Saturday"));
+        
+        // strings longer than 64 characters take a different code path
+        String longer = "a".repeat(100);
+        assertEquals(0, MathsAndStats.levenshteinDistance(longer, longer));
+        assertEquals(2, MathsAndStats.levenshteinDistance(longer + "bc", longer));
+        assertEquals(100, MathsAndStats.levenshteinDistance(longer, "b".repeat(100)));
+        assertEquals(3, MathsAndStats.levenshteinDistance("kitten" + longer, "sitting" + longer));
+        // non-ASCII
+        assertEquals(1, MathsAndStats.levenshteinDistance("Zoë", "Zoe"));
+    }
+    
+    @Test
+    public void boundedLevenshteinDistanceTest()
+    {
+        assertEquals(3, MathsAndStats.levenshteinDistance("kitten", "sitting", 3));
+        assertEquals(3, MathsAndStats.levenshteinDistance("kitten", "sitting", 2), "exceeds max");
+        assertEquals(1, MathsAndStats.levenshteinDistance("kitten", "sitting", 0), "exceeds max");
+        assertEquals(3, MathsAndStats.levenshteinDistance("", "blah", 2), "length difference exceeds max");
+        assertEquals(0, MathsAndStats.levenshteinDistance("blah", "blah", 0));
+        String longer = "a".repeat(100);
+        assertEquals(3, MathsAndStats.levenshteinDistance("kitten" + longer, "sitting" + longer, 5));
+        assertEquals(3, MathsAndStats.levenshteinDistance("kitten" + longer, "sitting" + longer, 2), "exceeds max");
+        assertThrows(IllegalArgumentException.class, () -> MathsAndStats.levenshteinDistance("a", "b", -1));
     }
 }
@@ -160,6 +160,8 @@ public class PagesTest
 
             """;
         assertEquals(expected, output.get(2));
+        assertEquals(output, Pages.toWikitextPaginatedStream(items, Pages.LIST_OF_LINKS, paginator, 4, true).toList());
+        assertEquals(0, Pages.toWikitextPaginatedStream(Set.of(), Pages.LIST_OF_LINKS, paginator, 4, true).count());
     }
     
     @Test
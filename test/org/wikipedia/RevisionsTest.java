@@ -89,7 +89,12 @@ public class RevisionsTest
             823352525L  // https://en.wikipedia.org/w/index.php?oldid=823352525
         };
         revisions = enWiki.getRevisions(oldids);
-        assertEquals(revisions, Revisions.removeReverts(revisions), "different pages, same content");
+        assertEquals(revisions.reversed(), Revisions.removeReverts(revisions), "different pages, same content");
+        
+        // streaming
+        revisions = enWiki.getPageHistory("Azerbaijan", rh);
+        assertArrayEquals(expected, Revisions.removeReverts(revisions.reversed().stream())
+            .mapToLong(Wiki.Revision::getID).toArray());
     }
     
     @Test
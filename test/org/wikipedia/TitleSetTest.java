@@ -0,0 +1,121 @@
+/**
+ *  @(#)TitleSetTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+
+package org.wikipedia;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Unit tests for {@link TitleSet} and {@link TitleDictionary}.
+ *  @author MER-C
+ */
+public class TitleSetTest
+{
+    @Test
+    public void dictionary()
+    {
+        TitleDictionary dictionary = new TitleDictionary();
+        assertEquals(0, dictionary.intern("Main Page"));
+        assertEquals(1, dictionary.intern("Example"));
+        assertEquals(0, dictionary.intern("Main Page"), "already seen");
+        assertArrayEquals(new int[] { 1, 2, 0, 2 }, dictionary.intern(List.of("Example", "Test", "Main Page", "Test")));
+        assertEquals(3, dictionary.size());
+        assertEquals(2, dictionary.lookup("Test"));
+        assertEquals(-1, dictionary.lookup("Not interned"));
+        assertEquals(-1, dictionary.lookup(null));
+        assertEquals(3, dictionary.size(), "lookup doesn't assign ids");
+        assertEquals("Example", dictionary.title(1));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> dictionary.title(3));
+        
+        // growing the table
+        for (int i = 0; i < 10000; i++)
+            assertEquals(i + 3, dictionary.intern("Page " + i));
+        for (int i = 0; i < 10000; i++)
+            assertEquals("Page " + i, dictionary.title(dictionary.lookup("Page " + i)));
+    }
+    
+    @Test
+    public void concurrentLookup() throws Exception
+    {
+        // lookups don't lock, check that they see every title interned 
+        // before they started while the table is growing
+        TitleDictionary dictionary = new TitleDictionary();
+        for (int i = 0; i < 1000; i++)
+            dictionary.intern("Old " + i);
+        Thread writer = new Thread(() ->
+        {
+            for (int i = 0; i < 200000; i++)
+                dictionary.intern("New " + i);
+        });
+        writer.start();
+        while (writer.isAlive())
+            for (int i = 0; i < 1000; i++)
+                assertEquals(i, dictionary.lookup("Old " + i));
+        writer.join();
+        assertEquals(199999 + 1000, dictionary.lookup("New 199999"));
+    }
+    
+    @Test
+    public void setOperations()
+    {
+        TitleDictionary dictionary = new TitleDictionary();
+        TitleSet a = TitleSet.of(dictionary, List.of("A", "B", "C", "D", "B"));
+        TitleSet b = TitleSet.of(dictionary, List.of("E", "D", "B"));
+        TitleSet c = TitleSet.of(dictionary, List.of("B", "C", "E"));
+        assertEquals(4, a.size(), "duplicates removed");
+        assertTrue(a.contains("C"));
+        assertFalse(a.contains("E"));
+        assertFalse(a.contains("Not interned"));
+        assertFalse(a.contains(null));
+        assertEquals(List.of("A", "B", "C", "D"), new ArrayList<>(a), "iteration in id order");
+        assertEquals(Set.of("B", "D"), a.intersection(b));
+        assertEquals(Set.of("B"), a.intersection(b, c));
+        assertEquals(Set.of("A", "C"), a.relativeComplement(b));
+        assertEquals(Set.of("A"), a.relativeComplement(b, c));
+        assertEquals(Set.of("A", "B", "C", "D", "E"), a.union(b, c));
+        assertEquals(a, a.intersection(), "no other sets");
+        assertEquals(a, TitleSet.of(dictionary, Set.of("D", "C", "B", "A")));
+        assertEquals(a, new HashSet<>(List.of("A", "B", "C", "D")));
+        assertEquals(a.hashCode(), Set.of("A", "B", "C", "D").hashCode());
+        assertTrue(TitleSet.of(dictionary, List.of()).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> a.union(TitleSet.of(new TitleDictionary(), List.of("A"))));
+        assertThrows(UnsupportedOperationException.class, () -> a.add("F"));
+        
+        // very different sizes take a different code path
+        List<String> large = new ArrayList<>();
+        for (int i = 0; i < 10000; i++)
+            large.add("Page " + i);
+        TitleSet big = TitleSet.of(dictionary, large);
+        TitleSet small = TitleSet.of(dictionary, List.of("Page 17", "Page 9999", "A", "Page 5000"));
+        assertEquals(Set.of("Page 17", "Page 5000", "Page 9999"), big.intersection(small));
+        assertEquals(Set.of("Page 17", "Page 5000", "Page 9999"), small.intersection(big));
+        assertEquals(Set.of("A"), small.relativeComplement(big));
+        assertEquals(9997, big.relativeComplement(small).size());
+        
+        // integration with ArrayUtils
+        assertEquals(List.of("B", "D"), ArrayUtils.intersection(a, b));
+        assertEquals(List.of("A", "C"), ArrayUtils.relativeComplement(a, b));
+        assertEquals(List.of("A", "C"), ArrayUtils.relativeComplement(a, List.of("B", "D")), "mixed inputs");
+        assertEquals(List.of("A", "B", "C", "D", "E"), ArrayUtils.union(a, b));
+    }
+}
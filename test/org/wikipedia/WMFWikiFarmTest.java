@@ -105,6 +105,30 @@ public class WMFWikiFarmTest
         // assertNull(guserinfo);
     }
 
+    @Test
+    public void getGlobalUserInfoBulk() throws Exception
+    {
+        List<String> users = List.of("Uruguymma", "Jimbo Wal3s", "127.0.0.1", "Jimbo Wales", "Uruguymma");
+        var guserinfo = sessions.getGlobalUserInfo(users, WMFWikiFarm.GlobalUserDetail.LOCK_STATUS);
+        assertEquals(List.of("Uruguymma", "Jimbo Wal3s", "Jimbo Wales"), new ArrayList<>(guserinfo.keySet()),
+            "input order, no duplicates, failed lookups (IP addresses) omitted");
+        assertTrue((Boolean)guserinfo.get("Uruguymma").get("locked"));
+        assertEquals("enwiki", guserinfo.get("Uruguymma").get("home"));
+        assertEquals(OffsetDateTime.parse("2016-09-21T13:59:30Z"), guserinfo.get("Uruguymma").get("registration"));
+        assertNull(guserinfo.get("Uruguymma").get("wikis"), "not requested");
+        assertNull(guserinfo.get("Jimbo Wal3s"));
+        assertFalse((Boolean)guserinfo.get("Jimbo Wales").get("locked"));
+
+        // more detail than cached: fetched again
+        guserinfo = sessions.getGlobalUserInfo(List.of("Uruguymma"), WMFWikiFarm.GlobalUserDetail.WIKIS);
+        assertEquals(38, guserinfo.get("Uruguymma").get("editcount"));
+        Map luserinfo = (Map)((Map)guserinfo.get("Uruguymma").get("wikis")).get("enwiki");
+        assertEquals(23, luserinfo.get("editcount"));
+        assertNull(guserinfo.get("Uruguymma").get("groups"), "not requested");
+
+        assertEquals(Map.of(), sessions.getGlobalUserInfo(List.of(), WMFWikiFarm.GlobalUserDetail.ALL));
+    }
+
     @Test
     public void sharedSession()
     {
@@ -209,8 +233,7 @@ public class WMFWikiFarmTest
         time = System.currentTimeMillis();
         assertEquals(expected, sessions.forAllWikis(wl, fn, 2));
         td = System.currentTimeMillis() - time;
-        // parallelism is not configurable...
-        assertTrue(/*td >= 150 * wd.size() && */ td < 300 * wd.size());
+        assertTrue(td >= 150 * wd.size() && td < 300 * wd.size(), "two at a time");
     }
     
     @AfterEach
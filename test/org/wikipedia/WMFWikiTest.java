@@ -102,6 +102,13 @@ public class WMFWikiTest
         assertTrue(text.get(0).startsWith("Java "));
         assertTrue(text.get(1) == null);
         assertTrue(text.get(2).startsWith("Albert Einstein "));
+
+        // length cap
+        List<String> snippets = enWiki.getLedeAsPlainText(pages, 20);
+        assertEquals(text.get(0).substring(0, 20), snippets.get(0));
+        assertNull(snippets.get(1));
+        assertEquals(text.get(2).substring(0, 20), snippets.get(2));
+        assertThrows(IllegalArgumentException.class, () -> enWiki.getLedeAsPlainText(pages, -2));
     }
     
     @Test
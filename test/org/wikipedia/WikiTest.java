@@ -338,6 +338,16 @@ public class WikiTest
         Wiki.Revision first = testWiki.getFirstRevision("User:MER-C/UnitTests/Delete");
         assertEquals(217080L, first.getID());
         assertEquals(List.of("HotCat", "MyStupidTestTag"), first.getTags());
+
+        // vectorized version
+        assertThrows(UnsupportedOperationException.class,
+            () -> enWiki.getFirstRevisions(List.of("Main Page", "Special:SpecialPages")),
+            "attempted to get the page history of a special page");
+        List<Wiki.Revision> firsts = testWiki.getFirstRevisions(List.of("User:MER-C/UnitTests/Delete", 
+            "dgfhd&fjklg", "User:MER-C/UnitTests/Delete"));
+        assertEquals(217080L, firsts.get(0).getID());
+        assertNull(firsts.get(1), "non-existent page");
+        assertEquals(firsts.get(0), firsts.get(2), "duplicate page");
     }
 
     @Test
@@ -1274,6 +1284,24 @@ public class WikiTest
             assertEquals(Wiki.MAIN_NAMESPACE, testWiki.namespace(rev.getTitle()), "namespace");
     }
 
+    @Test
+    public void getLastActivity() throws Exception
+    {
+        List<String> users = List.of("Frank234234", "Dsdlgfkjsdlkfdjilgsujilvjcl", "0.0.0.0", "Frank234234");
+        List<Map<String, OffsetDateTime>> activity = enWiki.getLastActivity(users);
+        assertEquals(users.size(), activity.size());
+        Wiki.RequestHelper rh = enWiki.new RequestHelper().limitedTo(1);
+        assertEquals(enWiki.contribs("Frank234234", rh).get(0).getTimestamp(), activity.get(0).get("lastedit"));
+        assertEquals(enWiki.getLogEntries(Wiki.ALL_LOGS, null, rh.byUser("Frank234234")).get(0).getTimestamp(),
+            activity.get(0).get("lastlog"));
+        assertNull(activity.get(1).get("lastedit"), "non-existent user");
+        assertNull(activity.get(1).get("lastlog"), "non-existent user");
+        assertNull(activity.get(2).get("lastedit"), "IP address with no edits");
+        assertNull(activity.get(2).get("lastlog"), "IP address");
+        assertEquals(activity.get(0), activity.get(3), "duplicate user");
+        assertTrue(enWiki.getLastActivity(List.of()).isEmpty());
+    }
+
     @Test
     public void getUsers() throws Exception
     {
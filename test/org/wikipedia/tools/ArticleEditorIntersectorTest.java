@@ -126,4 +126,29 @@ public class ArticleEditorIntersectorTest
         Map<String, List<Wiki.Revision>> results = intersector_enWiki.intersectArticles(articles, false, false, false);
         assertTrue(results.isEmpty(), "check date range functionality");
     }
+    
+    @Test
+    public void resultOrder() throws Exception
+    {
+        // https://en.wikipedia.org/w/index.php?title=Sainpasela&action=history
+        // https://en.wikipedia.org/w/index.php?title=Qihe_County&action=history
+        List<String> articles = List.of("Sainpasela", "Qihe County");
+        for (boolean noreverts : List.of(false, true))
+        {
+            intersector_enWiki.setIgnoringReverts(noreverts);
+            Map<String, List<Wiki.Revision>> results = intersector_enWiki.intersectArticles(articles, false, false, false);
+            assertFalse(results.isEmpty(), "these articles have an intersection");
+            for (List<Wiki.Revision> edits : results.values())
+            {
+                // grouped by page in input order, latest revision first
+                for (int i = 1; i < edits.size(); i++)
+                {
+                    Wiki.Revision previous = edits.get(i - 1), current = edits.get(i);
+                    int order = articles.indexOf(previous.getTitle()) - articles.indexOf(current.getTitle());
+                    assertTrue(order < 0 || order == 0 && !previous.getTimestamp().isBefore(current.getTimestamp()), 
+                        "revision order, noreverts = " + noreverts);
+                }
+            }
+        }
+    }
 }
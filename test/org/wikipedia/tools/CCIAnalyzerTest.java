@@ -19,10 +19,14 @@
  */
 package org.wikipedia.tools;
 
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import org.wikipedia.*;
 
@@ -89,6 +93,43 @@ public class CCIAnalyzerTest
         assertEquals(List.of("[[Special:Diff/472267771|(+315)]]"), page.getMinorEdits());
     }
     
+    @Test
+    public void setDiffStore(@TempDir Path dir) throws Exception
+    {
+        String cci = "*[[:Smiley (1956 film)]] (3 edits): [[Special:Diff/476809081|(+460)]][[Special:Diff/446793589|(+205)]]";
+        analyzer.setDiffStore(dir);
+        analyzer.setCullingFunction(diff -> analyzer.wordCountCull(diff, 9));
+        CCIAnalyzer.CCIPage page = analyzer.loadString(enWiki, cci);
+        analyzer.loadDiffs(page);
+        List<Path> stored = List.of(dir.resolve("en.wikipedia.org").resolve("476809081.diff.gz"), 
+            dir.resolve("en.wikipedia.org").resolve("446793589.diff.gz"));
+        for (Path file : stored)
+            assertTrue(Files.exists(file));
+        analyzer.analyzeDiffs(page);
+        List<String> expected = page.getMinorEdits();
+        
+        // reload through another session of the same wiki, which must reuse
+        // the stored diffs instead of fetching and storing them again
+        FileTime modified = FileTime.fromMillis(0);
+        List<byte[]> contents = new ArrayList<>();
+        for (Path file : stored)
+        {
+            Files.setLastModifiedTime(file, modified);
+            contents.add(Files.readAllBytes(file));
+        }
+        analyzer.setMaxRetries(0);
+        CCIAnalyzer.CCIPage page2 = analyzer.loadString(Wiki.newSession("en.wikipedia.org"), cci);
+        analyzer.loadDiffs(page2);
+        analyzer.analyzeDiffs(page2);
+        assertEquals(expected, page2.getMinorEdits());
+        for (int i = 0; i < stored.size(); i++)
+        {
+            assertEquals(modified, Files.getLastModifiedTime(stored.get(i)), "diff store not reused");
+            assertArrayEquals(contents.get(i), Files.readAllBytes(stored.get(i)), "diff store not reused");
+        }
+        assertThrows(IllegalArgumentException.class, () -> analyzer.setMaxRetries(-1));
+    }
+    
     @Test
     public void removeReferences()
     {
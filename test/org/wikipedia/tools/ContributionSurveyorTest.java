@@ -106,6 +106,8 @@ public class ContributionSurveyorTest
         List<String> users = List.of("HilStev", "OfficialPankajPatidar", "Rt11642");
         List<String> results = surveyor.outputContributionSurvey(users, true, false, false, Wiki.MAIN_NAMESPACE);
         assertTrue(results.isEmpty());
+        assertEquals(0, surveyor.outputContributionSurvey(users, true, false, false, 
+            page -> fail("Nothing should be written."), Wiki.MAIN_NAMESPACE));
     }
     
     @Test
@@ -74,6 +74,38 @@ public class GapFillingTextSearchTest
         assertEquals(results, results2);
     }
 
+    @Test
+    public void index()
+    {
+        Map<String, String> inputs = new LinkedHashMap<>();
+        inputs.put("A", "The quick brown fox jumps over the lazy dog");
+        inputs.put("B", "A kamikaze account created this page");
+        inputs.put("C", "Kamikaze pilots");
+        inputs.put("D", "");
+        GapFillingTextSearch.TextIndex<String> index = gfs.index(inputs);
+        assertEquals(4, index.size());
+        assertTrue(gfs.index(Collections.emptyMap()).search("Blah", false).isEmpty(), "no input");
+        
+        Map<String, Map<String, String>> results = index.search(List.of("kamikaze", "NotASearchTerm", "fox", "o"), false);
+        assertEquals(List.of("kamikaze", "NotASearchTerm", "fox", "o"), new ArrayList<>(results.keySet()), "query order");
+        assertEquals(List.of("B", "C"), new ArrayList<>(results.get("kamikaze").keySet()));
+        assertEquals("A kamikaze account created this", results.get("kamikaze").get("B"));
+        assertTrue(results.get("NotASearchTerm").isEmpty(), "no results");
+        assertEquals(List.of("A", "B", "C"), new ArrayList<>(results.get("o").keySet()), "short query");
+        for (String query : results.keySet())
+            assertEquals(gfs.searchAndExtractSnippets(inputs, query, false), results.get(query), query);
+        assertEquals(List.of("C"), new ArrayList<>(index.search("Kamikaze", true).keySet()), "check case sensitivity");
+        
+        // lower casing capital sigma depends on context
+        inputs = Map.of("E", "ΟΔΟΣΑ", "F", "Η ΟΔΟΣ ΕΙΝΑΙ");
+        index = gfs.index(inputs);
+        for (String query : List.of("ΟΔΟΣ", "ΟΔΟΣΑ", "οδος", "ΟΣ Ε"))
+            for (boolean casesensitive : List.of(true, false))
+                assertEquals(gfs.searchAndExtractSnippets(inputs, query, casesensitive), 
+                    index.search(query, casesensitive), "final sigma: " + query);
+        assertEquals(Set.of("E", "F"), index.search("ΟΔΟΣ", true).keySet(), "final sigma");
+    }
+
     @Test
     public void regexMatchAndExtractSnippets()
     {
@@ -82,6 +114,34 @@ public class GapFillingTextSearchTest
         assertTrue(gfs.regexMatchAndExtractSnippets(Collections.emptyMap(), pattern).isEmpty(), "no inputs");
     }
 
+    @Test
+    public void matchAllAndExtractSnippets()
+    {
+        Map<String, String> inputs = new LinkedHashMap<>();
+        inputs.put("A", "The quick brown fox jumps over the lazy dog. See example.com");
+        inputs.put("B", "A kamikaze account created this page at example.org");
+        inputs.put("C", "Kamikaze pilots (3 edits)");
+        List<Pattern> queries = List.of(
+            GapFillingTextSearch.phrase("kamikaze", false),
+            GapFillingTextSearch.phrase("kamikaze", true),
+            Pattern.compile("example\\.(com|org)"),
+            Pattern.compile("\\d+ edits?"),
+            Pattern.compile("f.x|d.g"),
+            Pattern.compile("NotASearchTerm"));
+        List<Map<String, String>> results = gfs.matchAllAndExtractSnippets(inputs, queries);
+        assertEquals(queries.size(), results.size());
+        assertEquals(List.of("B", "C"), new ArrayList<>(results.get(0).keySet()), "case insensitive phrase");
+        assertEquals(List.of("B"), new ArrayList<>(results.get(1).keySet()), "case sensitive phrase");
+        assertEquals(List.of("A", "B"), new ArrayList<>(results.get(2).keySet()));
+        assertEquals(List.of("C"), new ArrayList<>(results.get(3).keySet()));
+        assertEquals(List.of("A"), new ArrayList<>(results.get(4).keySet()), "regex without required literal");
+        assertTrue(results.get(5).isEmpty(), "no results");
+        for (int i = 2; i < queries.size(); i++)
+            assertEquals(gfs.regexMatchAndExtractSnippets(inputs, queries.get(i)), results.get(i), queries.get(i).pattern());
+        assertEquals(gfs.searchAndExtractSnippets(inputs, "kamikaze", false), results.get(0));
+        assertTrue(gfs.matchAllAndExtractSnippets(Collections.emptyMap(), queries).stream().allMatch(Map::isEmpty), "no input");
+    }
+
     @Test
     public void extractSnippet()
     {
@@ -19,6 +19,8 @@
  */
 package org.wikipedia.tools;
 
+import java.util.*;
+
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -52,6 +54,14 @@ public class NPPCheckTest
         assertNull(check.getUser());
     }
 
+    @Test
+    public void fetchReports() throws Exception
+    {
+        assertThrows(IllegalArgumentException.class, () -> check.fetchReports(List.of(), 0, (offset, report) -> {}));
+        check.fetchReports(List.of(), 10, (offset, report) -> fail("No events, so no reports."));
+        assertFalse(enWiki.isResolvingRedirects(), "setting restored");
+    }
+
     @Test
     public void outputTableHeader()
     {
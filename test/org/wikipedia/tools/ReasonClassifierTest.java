@@ -0,0 +1,92 @@
+/**
+ *  @(#)ReasonClassifierTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia.tools;
+
+import java.util.*;
+import org.wikipedia.*;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *  Unit tests for {@link ReasonClassifier}.
+ *  @author MER-C
+ */
+public class ReasonClassifierTest
+{
+    @Test
+    public void classify()
+    {
+        ReasonClassifier classifier = new ReasonClassifier()
+            .addCategory("Spamming", "spam", "advertising")
+            .addCategory("Vandalism", "vandalism", "{{uw-vaublock}}")
+            .addCategory("Sockpuppetry", "sock")
+            .setEmptyCategory("(no reason given)");
+        assertEquals(List.of("Spamming", "Vandalism", "Sockpuppetry"), classifier.getCategories());
+        assertEquals(List.of("Spamming", "Vandalism"), classifier.classify("persistent spamming, vandalism"), "priority order");
+        assertEquals(List.of("Vandalism"), classifier.classify("{{uw-vaublock}}"));
+        assertEquals(List.of("Unclassified"), classifier.classify("disruptive editing"));
+        assertEquals(List.of("Unclassified"), classifier.classify("SPAM"), "case sensitive");
+        assertEquals(List.of("(no reason given)"), classifier.classify(""));
+
+        // changing the rules discards cached results
+        classifier.addCategory("Vandalism", "disruptive");
+        assertEquals(List.of("Vandalism"), classifier.classify("disruptive editing"));
+        classifier.suppress("Sockpuppetry", "Spamming");
+        assertEquals(List.of("Vandalism", "Sockpuppetry"), classifier.classify("spamming sock vandalism"));
+        classifier.setDefaultCategory(null).setEmptyCategory(null);
+        assertEquals(List.of(), classifier.classify("personal attacks"));
+        assertEquals(List.of(), classifier.classify(""));
+
+        assertEquals(List.of(), new ReasonClassifier().setDefaultCategory(null).classify("anything"), "no keywords");
+        assertThrows(IllegalArgumentException.class, () -> classifier.addCategory("Empty", ""));
+        assertThrows(IllegalArgumentException.class, () -> classifier.suppress("Spamming", "No such category"));
+    }
+
+    @Test
+    public void group()
+    {
+        ReasonClassifier classifier = new ReasonClassifier()
+            .addCategory("Spamming", "spam")
+            .addCategory("Vandalism", "vandalism");
+        Map<String, Long> histogram = Map.of("spam", 3L, "spam and vandalism", 2L, "vandalism", 1L, "other", 4L);
+        assertEquals(Map.of("Spamming", 5L, "Vandalism", 1L, "Unclassified", 4L), classifier.group(histogram, true));
+        assertEquals(Map.of("Spamming", 5L, "Vandalism", 3L, "Unclassified", 4L), classifier.group(histogram, false));
+    }
+
+    @Test
+    public void adminStats()
+    {
+        AdminStats stats = new AdminStats(Wiki.newSession("en.wikipedia.org"));
+        Map<String, Long> deletions = Map.of(
+            "[[wp:csd#g11|g11]]: unambiguous advertising or promotion", 5L,
+            "[[wp:csd#g4|g4]]: repost of [[wikipedia:articles for deletion/example]]", 2L,
+            "[[wikipedia:articles for deletion/example]]", 3L,
+            "", 1L,
+            "housekeeping", 4L,
+            "TOTAL", 15L);
+        assertEquals(Map.of("Spam", 5L, "Repost of deleted content", 2L, "Deletion debate (AFD)", 3L,
+            "''No reason given''", 1L, "Unclassified", 4L), stats.groupDeleteReasons(deletions));
+        Map<String, Long> blocks = Map.of("spam / advertising-only account", 2L, "{{uw-vaublock}} sockpuppetry", 1L,
+            "TOTAL", 3L);
+        assertEquals(Map.of("Spamming", 2L, "Vandalism", 1L), stats.groupBlockReasons(blocks));
+        stats.getReasonClassifier(Wiki.BLOCK_LOG).addCategory("Spamming", "advertising-only");
+        assertThrows(IllegalArgumentException.class, () -> stats.getReasonClassifier(Wiki.MOVE_LOG));
+    }
+}
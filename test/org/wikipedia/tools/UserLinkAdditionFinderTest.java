@@ -139,4 +139,17 @@ public class UserLinkAdditionFinderTest
         links = finder_test.parseDiff(revs.get(4));
         assertEquals("http://template.example.com", links.get(0));
     }
+    
+    @Test
+    public void parseDiffText()
+    {
+        String diff = """
+            <div class="mw-diff-inline-changed"><del class="diffchange">[http://old.example.com old]</del><ins class="diffchange">[http://spam.example.com spam] {{cite web|url=https://www.example.net/page}}</ins></div>
+            <div class="mw-diff-inline-added"><ins data-key="1">http://old.example.com &lt;ref&gt;http://example.co&lt;/ref&gt; httpfoo http://nodot/</ins></div>
+            """;
+        assertEquals(List.of("http://spam.example.com", "https://www.example.net/page", "http://example.co"),
+            UserLinkAdditionFinder.parseDiff(diff));
+        assertTrue(UserLinkAdditionFinder.parseDiff("<ins class=\"x\">no links here</ins>").isEmpty());
+        assertTrue(UserLinkAdditionFinder.parseDiff("http://example.com outside of a fragment").isEmpty());
+    }
 }
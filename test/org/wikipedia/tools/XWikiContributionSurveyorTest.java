@@ -0,0 +1,59 @@
+/**
+ *  @(#)XWikiContributionSurveyorTest.java 0.01 19/10/2026
+ *  Copyright (C) 2026 - 20xx MER-C and contributors
+ *
+ *  This program is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU General Public License
+ *  as published by the Free Software Foundation; either version 3
+ *  of the License, or (at your option) any later version. Additionally
+ *  this file is subject to the "Classpath" exception.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, write to the Free Software Foundation,
+ *  Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301, USA.
+ */
+package org.wikipedia.tools;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+import org.wikipedia.WMFWikiFarm;
+
+/**
+ *  Unit tests for {@link XWikiContributionSurveyor}.
+ *  @author MER-C
+ */
+public class XWikiContributionSurveyorTest
+{
+    private final XWikiContributionSurveyor surveyor = new XWikiContributionSurveyor(new WMFWikiFarm());
+
+    @Test
+    public void planSurvey() throws Exception
+    {
+        // https://meta.wikimedia.org/w/index.php?title=Special:CentralAuth&target=Uruguymma
+        // locked sock that edited en.wikipedia.org only
+        List<String> users = List.of("Uruguymma", "Jimbo Wal3s", "Uruguymma");
+        Map<String, List<String>> plan = surveyor.planSurvey(users, null);
+        assertEquals("en.wikipedia.org", plan.keySet().iterator().next());
+        assertEquals(List.of("Uruguymma"), plan.get("en.wikipedia.org"), "no duplicates, no non-existent users");
+        assertNull(plan.get("meta.wikimedia.org"), "no edits there");
+        
+        plan = surveyor.planSurvey(users, OffsetDateTime.parse("2020-01-01T00:00:00Z"));
+        assertTrue(plan.isEmpty(), "locked before the given date");
+    }
+    
+    @Test
+    public void setMaxConcurrentWikis()
+    {
+        assertEquals(8, surveyor.getMaxConcurrentWikis());
+        surveyor.setMaxConcurrentWikis(2);
+        assertEquals(2, surveyor.getMaxConcurrentWikis());
+        assertThrows(IllegalArgumentException.class, () -> surveyor.setMaxConcurrentWikis(0));
+    }
+}